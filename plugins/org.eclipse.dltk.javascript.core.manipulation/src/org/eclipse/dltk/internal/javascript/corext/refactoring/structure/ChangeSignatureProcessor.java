@@ -17,6 +17,14 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.Assert;
@@ -27,6 +35,7 @@ import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.dltk.core.IMethod;
 import org.eclipse.dltk.core.IScriptProject;
 import org.eclipse.dltk.core.ISourceModule;
+import org.eclipse.dltk.core.ISourceRange;
 import org.eclipse.dltk.core.ModelException;
 import org.eclipse.dltk.core.SourceRange;
 import org.eclipse.dltk.core.manipulation.RefactoringChecks;
@@ -90,6 +99,13 @@ public class ChangeSignatureProcessor extends RefactoringProcessor {
 	//private static final String ATTRIBUTE_DELEGATE= "delegate"; //$NON-NLS-1$
 	//private static final String ATTRIBUTE_DEPRECATE= "deprecate"; //$NON-NLS-1$
 
+	/**
+	 * The number of the source modules processed in parallel
+	 */
+	private static final int THREAD_COUNT= Runtime.getRuntime().availableProcessors();
+
+	private int fThreadCount= THREAD_COUNT;
+
 	private List<ParameterInfo> fParameterInfos;
 
 	//private SourceModuleRewrite fBaseCuRewrite;
@@ -255,6 +271,14 @@ public class ChangeSignatureProcessor extends RefactoringProcessor {
 		return fExceptionInfos;
 	}*/
 
+	/**
+	 * Sets the number of the source modules processed in parallel, by default
+	 * the number of the available processors.
+	 */
+	public void setThreadCount(int threadCount) {
+		fThreadCount= threadCount;
+	}
+
 	public void setBodyUpdater(BodyUpdater bodyUpdater) {
 		fBodyUpdater= bodyUpdater;
 	}
@@ -1281,7 +1305,6 @@ public class ChangeSignatureProcessor extends RefactoringProcessor {
 	}
 
 	private TextChangeManager createChangeManager(IProgressMonitor pm, RefactoringStatus result) throws CoreException {
-		pm.beginTask(RefactoringCoreMessages.ChangeSignatureRefactoring_preview, 1);
 		fChangeManager= new TextChangeManager();
 		/*boolean isNoArgConstructor= isNoArgConstructor();
 		Map namedSubclassMapping= null;
@@ -1291,28 +1314,131 @@ public class ChangeSignatureProcessor extends RefactoringProcessor {
 		}else{
 			pm.worked(1);
 		}*/
+		final List<ISourceModule> units = new ArrayList<ISourceModule>();
+		final List<List<SearchMatch>> matches = new ArrayList<List<SearchMatch>>();
 		boolean decl = false;
 		for (int i= 0; i < fReferences.length; i++) {
 			SearchResultGroup group= fReferences[i];
 			ISourceModule cu= group.getSourceModule();
-			if (pm.isCanceled())
-				throw new OperationCanceledException();
-			processCu(cu,group.getSearchResults(),result);
+			units.add(cu);
+			matches.add(group.getSearchResults());
 			if (cu.equals(fMethod.getSourceModule()))
 				decl = true;
 		}
 		if (!decl) {
-			if (pm.isCanceled())
-				throw new OperationCanceledException();
-			processCu(fMethod.getSourceModule(),Collections.EMPTY_LIST,result);
+			units.add(fMethod.getSourceModule());
+			matches.add(Collections.<SearchMatch> emptyList());
+		}
+		pm.beginTask(RefactoringCoreMessages.ChangeSignatureRefactoring_preview, units.size());
+		if (units.size() == 1 || fThreadCount <= 1) {
+			for (int i = 0; i < units.size(); i++) {
+				if (pm.isCanceled())
+					throw new OperationCanceledException();
+				manage(units.get(i), processCu(units.get(i), matches.get(i), result));
+				pm.worked(1);
+			}
+		} else {
+			createChanges(units, matches, pm, result);
 		}
 		pm.done();
 		return fChangeManager;
 	}
-	private void processCu(ISourceModule cu, List<SearchMatch> searchResults, RefactoringStatus result)
+
+	private static class UnitChange {
+		final TextChange change;
+		final RefactoringStatus status;
+
+		UnitChange(TextChange change, RefactoringStatus status) {
+			this.change = change;
+			this.status = status;
+		}
+	}
+
+	/**
+	 * Computes the changes of the source modules in parallel, the changes and
+	 * the statuses are merged in the order of the source modules, so the
+	 * result does not depend on the scheduling.
+	 */
+	private void createChanges(final List<ISourceModule> units,
+			final List<List<SearchMatch>> matches, IProgressMonitor pm,
+			RefactoringStatus result) throws CoreException {
+		final AtomicBoolean canceled = new AtomicBoolean();
+		final ExecutorService executor = Executors.newFixedThreadPool(Math
+				.min(fThreadCount, units.size()));
+		try {
+			final List<Future<UnitChange>> futures = new ArrayList<Future<UnitChange>>();
+			for (int i = 0; i < units.size(); i++) {
+				final ISourceModule cu = units.get(i);
+				final List<SearchMatch> searchResults = matches.get(i);
+				futures.add(executor.submit(new Callable<UnitChange>() {
+					public UnitChange call() throws CoreException {
+						if (canceled.get())
+							throw new OperationCanceledException();
+						final RefactoringStatus status = new RefactoringStatus();
+						return new UnitChange(processCu(cu, searchResults,
+								status), status);
+					}
+				}));
+			}
+			for (int i = 0; i < units.size(); i++) {
+				final UnitChange unitChange;
+				try {
+					unitChange = waitFor(futures.get(i), pm);
+				} catch (OperationCanceledException e) {
+					canceled.set(true);
+					throw e;
+				}
+				result.merge(unitChange.status);
+				manage(units.get(i), unitChange.change);
+				pm.worked(1);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Waits for the specified change, polling the progress monitor for the
+	 * cancellation, as it could be used by this thread only.
+	 */
+	private static UnitChange waitFor(Future<UnitChange> future,
+			IProgressMonitor pm) throws CoreException {
+		for (;;) {
+			if (pm.isCanceled())
+				throw new OperationCanceledException();
+			try {
+				return future.get(100, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// check the cancellation and continue waiting
+			} catch (InterruptedException e) {
+				throw new OperationCanceledException();
+			} catch (ExecutionException e) {
+				final Throwable cause = e.getCause();
+				if (cause instanceof CoreException)
+					throw (CoreException) cause;
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				if (cause instanceof Error)
+					throw (Error) cause;
+				throw new IllegalStateException(cause);
+			}
+		}
+	}
+
+	private void manage(ISourceModule cu, TextChange change) {
+		if (change != null)
+			fChangeManager.manage(cu, change);
+	}
+
+	/**
+	 * Computes the change of the specified source module. Could be called from
+	 * the different threads for the different modules, so should not modify
+	 * the fields of the processor.
+	 */
+	private TextChange processCu(ISourceModule cu, List<SearchMatch> searchResults, RefactoringStatus result)
 			throws ModelException {
 		if (cu == null)
-			return;
+			return null;
 		/*SourceModuleRewrite cuRewrite;
 		if (cu.equals(getCu())) {
 			cuRewrite= fBaseCuRewrite;
@@ -1320,7 +1446,15 @@ public class ChangeSignatureProcessor extends RefactoringProcessor {
 			cuRewrite= new SourceModuleRewrite(cu);
 			cuRewrite.getASTRewrite().setTargetSourceRangeComputer(new TightSourceRangeComputer());
 		}*/
-		Source root = (Source)ASTConverter.convert(JavaScriptParserUtil.parse(cu));
+		// convert only the top level statements to be rewritten
+		List<ISourceRange> ranges = new ArrayList<ISourceRange>();
+		for (SearchMatch match : searchResults)
+			ranges.add(new SourceRange(match.getOffset(), match.getLength()));
+		if (cu.equals(fMethod.getSourceModule())) {
+			ranges.add(fMethod.getNameRange());
+			ranges.add(fMethod.getSourceRange());
+		}
+		Source root = ASTConverter.convert(JavaScriptParserUtil.parse(cu), ranges);
 		Node[] nodes= NodeFinder.findNodes(root, searchResults);
 		ChangeRecorder cr = new ChangeRecorder(root);
 		for(Node node : nodes) {
@@ -1395,7 +1529,7 @@ public class ChangeSignatureProcessor extends RefactoringProcessor {
 		cd.apply();
 		TextChange change = new SourceModuleChange(cu.getElementName(), cu);
 		change.setEdit(rewrite.getEdit());
-		fChangeManager.manage(cu, change);
+		return change;
 	}
 	private RefactoringStatus checkIfDeletedParametersUsed(Node node, ISourceModule cu) {
 		Set<String> deleted = new HashSet<String>();
@@ -1,8 +1,15 @@
 package org.eclipse.dltk.javascript.core.dom.rewrite;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 import org.eclipse.dltk.ast.ASTNode;
+import org.eclipse.dltk.core.ISourceRange;
 import org.eclipse.dltk.javascript.ast.ASTVisitor;
 import org.eclipse.dltk.javascript.ast.Argument;
 import org.eclipse.dltk.javascript.ast.ArrayInitializer;
@@ -106,6 +113,8 @@ import org.eclipse.dltk.javascript.core.dom.UnaryOperator;
 import org.eclipse.dltk.javascript.core.dom.VariableReference;
 import org.eclipse.dltk.javascript.core.dom.XmlInitializer;
 import org.eclipse.dltk.javascript.parser.JSParser;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 
 public class ASTConverter extends ASTVisitor<Node> {
 	private static final DomFactory DOM_FACTORY = DomFactory.eINSTANCE;
@@ -128,6 +137,158 @@ public class ASTConverter extends ASTVisitor<Node> {
 		return converter.visit(node);
 	}
 
+	/**
+	 * The function bodies of the wrappers to convert partially, with the
+	 * ranges to select their statements.
+	 */
+	private Map<StatementBlock, Collection<? extends ISourceRange>> partialBodies;
+
+	/**
+	 * Converts only the top level statements of the script overlapping any of
+	 * the specified ranges, e.g. the search matches to be rewritten. If such
+	 * a statement is a wrapper like <code>(function() {...})()</code> or
+	 * <code>define([...], function(...) {...})</code>, only the statements of
+	 * the wrapped function body overlapping the ranges are converted, since
+	 * the whole file is often a single wrapper. The nodes keep the offsets in
+	 * the original text, so the edits computed by the {@link RewriteAnalyzer}
+	 * apply to the whole document. The statement lists of the returned
+	 * {@link Source} and of the partially converted bodies should not be
+	 * modified.
+	 */
+	public static Source convert(Script script,
+			Collection<? extends ISourceRange> ranges) {
+		final List<org.eclipse.dltk.javascript.ast.Statement> statements = script
+				.getStatements();
+		final boolean[] selected = select(statements, ranges);
+		final ASTConverter converter = new ASTConverter();
+		converter.partialBodies = new IdentityHashMap<StatementBlock, Collection<? extends ISourceRange>>();
+		final Source res = DOM_FACTORY.createSource();
+		res.setBegin(script.sourceStart());
+		res.setEnd(script.sourceEnd());
+		for (int i = 0; i < selected.length; ++i) {
+			if (selected[i]) {
+				final org.eclipse.dltk.javascript.ast.Statement statement = statements
+						.get(i);
+				for (FunctionStatement function : wrappedFunctions(statement)) {
+					converter.partialBodies.put(function.getBody(), ranges);
+				}
+				res.getStatements().add((Statement) converter.visit(statement));
+			}
+		}
+		final CommentContainer comments = CommentContainer.of(script
+				.getComments());
+		if (comments != null) {
+			res.eAdapters().add(comments);
+		}
+		res.eAdapters().add(new PartialSource());
+		return res;
+	}
+
+	/**
+	 * Returns the flags of the statements overlapping any of the specified
+	 * ranges.
+	 */
+	private static boolean[] select(
+			List<org.eclipse.dltk.javascript.ast.Statement> statements,
+			Collection<? extends ISourceRange> ranges) {
+		final boolean[] selected = new boolean[statements.size()];
+		for (ISourceRange range : ranges) {
+			final int start = range.getOffset();
+			final int end = start + range.getLength();
+			int low = 0;
+			int high = statements.size();
+			while (low < high) {
+				final int mid = (low + high) >>> 1;
+				if (statements.get(mid).sourceEnd() < start) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			for (int i = low; i < statements.size()
+					&& statements.get(i).sourceStart() <= end; ++i) {
+				selected[i] = true;
+			}
+		}
+		return selected;
+	}
+
+	/**
+	 * Returns the functions wrapped by the specified statement: the function
+	 * called immediately, e.g. <code>(function() {...})()</code>,
+	 * <code>!function() {...}()</code> or
+	 * <code>(function() {...}).call(this)</code>, and the functions passed to
+	 * a call, e.g. <code>define([...], function(...) {...})</code>, also as
+	 * the initializer of a single variable.
+	 */
+	private static List<FunctionStatement> wrappedFunctions(
+			org.eclipse.dltk.javascript.ast.Statement statement) {
+		if (!(statement instanceof VoidExpression)) {
+			return Collections.emptyList();
+		}
+		org.eclipse.dltk.javascript.ast.Expression expression = ((VoidExpression) statement)
+				.getExpression();
+		if (expression instanceof VariableStatement) {
+			final List<VariableDeclaration> variables = ((VariableStatement) expression)
+					.getVariables();
+			if (variables.size() != 1) {
+				return Collections.emptyList();
+			}
+			expression = variables.get(0).getInitializer();
+		}
+		expression = unwrap(expression);
+		if (expression instanceof UnaryOperation) {
+			expression = unwrap(((UnaryOperation) expression).getExpression());
+		}
+		if (!(expression instanceof CallExpression)) {
+			return Collections.emptyList();
+		}
+		final CallExpression call = (CallExpression) expression;
+		final List<FunctionStatement> result = new ArrayList<FunctionStatement>();
+		org.eclipse.dltk.javascript.ast.Expression callee = unwrap(call
+				.getExpression());
+		if (callee instanceof PropertyExpression) {
+			// (function() {...}).call(this)
+			callee = unwrap(((PropertyExpression) callee).getObject());
+		}
+		if (callee instanceof FunctionStatement) {
+			result.add((FunctionStatement) callee);
+		}
+		for (ASTNode argument : call.getArguments()) {
+			if (argument instanceof org.eclipse.dltk.javascript.ast.Expression) {
+				argument = unwrap((org.eclipse.dltk.javascript.ast.Expression) argument);
+			}
+			if (argument instanceof FunctionStatement) {
+				result.add((FunctionStatement) argument);
+			}
+		}
+		return result;
+	}
+
+	private static org.eclipse.dltk.javascript.ast.Expression unwrap(
+			org.eclipse.dltk.javascript.ast.Expression expression) {
+		while (expression instanceof ParenthesizedExpression) {
+			expression = ((ParenthesizedExpression) expression)
+					.getExpression();
+		}
+		return expression;
+	}
+
+	/**
+	 * Marks the {@link Source} or the function body containing only some of
+	 * its statements.
+	 */
+	static class PartialSource extends AdapterImpl {
+		@Override
+		public boolean isAdapterForType(Object type) {
+			return type == PartialSource.class;
+		}
+	}
+
+	static boolean isPartial(Node node) {
+		return EcoreUtil.getExistingAdapter(node, PartialSource.class) != null;
+	}
+
 	private org.eclipse.dltk.javascript.core.dom.Label visitLabel(Label label) {
 		if (label == null)
 			return null;
@@ -584,6 +745,25 @@ public class ASTConverter extends ASTVisitor<Node> {
 	@Override
 	public Node visitStatementBlock(StatementBlock node) {
 		BlockStatement res = DOM_FACTORY.createBlockStatement();
+		final Collection<? extends ISourceRange> ranges = partialBodies != null ? partialBodies
+				.get(node) : null;
+		if (ranges != null) {
+			final List<org.eclipse.dltk.javascript.ast.Statement> statements = node
+					.getStatements();
+			final boolean[] selected = select(statements, ranges);
+			for (int i = 0; i < selected.length; ++i) {
+				if (selected[i]) {
+					final org.eclipse.dltk.javascript.ast.Statement statement = statements
+							.get(i);
+					for (FunctionStatement function : wrappedFunctions(statement)) {
+						partialBodies.put(function.getBody(), ranges);
+					}
+					res.getStatements().add((Statement) visit(statement));
+				}
+			}
+			res.eAdapters().add(new PartialSource());
+			return res;
+		}
 		for (org.eclipse.dltk.javascript.ast.Statement stmt : node
 				.getStatements())
 			res.getStatements().add((Statement) visit(stmt));
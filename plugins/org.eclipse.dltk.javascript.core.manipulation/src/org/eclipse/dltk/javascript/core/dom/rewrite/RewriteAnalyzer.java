@@ -96,6 +96,12 @@ public class RewriteAnalyzer extends DomSwitch<Boolean> {
 
 	// Processes EReference only
 	private void processFeature(Node node, FeatureChange fc) {
+		if ((fc.getFeature() == DomPackage.Literals.SOURCE__STATEMENTS || fc
+				.getFeature() == DomPackage.Literals.BLOCK_STATEMENT__STATEMENTS)
+				&& ASTConverter.isPartial(node)) {
+			throw new IllegalStateException(
+					"Statements of the partially converted source could not be changed");
+		}
 		if (fc.getFeature() instanceof EAttribute) {
 			final EAttribute attribute = (EAttribute) fc.getFeature();
 			if (!attribute.isMany()
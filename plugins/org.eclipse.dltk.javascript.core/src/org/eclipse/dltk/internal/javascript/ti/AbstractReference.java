@@ -26,6 +26,10 @@ import org.eclipse.dltk.javascript.typeinfo.JSTypeSet;
 public abstract class AbstractReference implements IValueReference,
 		IValueProvider {
 
+	protected AbstractReference() {
+		InferenceStatistics.count(InferenceStatistics.Counter.REFERENCES);
+	}
+
 	public abstract IValue getValue();
 
 	public abstract IValue createValue();
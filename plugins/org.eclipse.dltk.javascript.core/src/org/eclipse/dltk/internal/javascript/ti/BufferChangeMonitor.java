@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation (Alex Panchenko)
+ *******************************************************************************/
+package org.eclipse.dltk.internal.javascript.ti;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.dltk.annotations.Nullable;
+import org.eclipse.dltk.core.BufferChangedEvent;
+import org.eclipse.dltk.core.IBuffer;
+import org.eclipse.dltk.core.IBufferChangedListener;
+import org.eclipse.dltk.core.IModelElement;
+import org.eclipse.dltk.core.ISourceModule;
+import org.eclipse.dltk.core.ModelException;
+
+/**
+ * Progress monitor which becomes canceled as soon as the buffer of the working
+ * copy is changed, so the interactive work for the stale revision (e.g. the
+ * reconcile validation or the semantic highlighting) could be dropped.
+ *
+ * {@link #dispose()} should be called when the work is done.
+ */
+public class BufferChangeMonitor extends NullProgressMonitor implements
+		IBufferChangedListener {
+
+	@Nullable
+	private final IBuffer buffer;
+
+	private BufferChangeMonitor(@Nullable IBuffer buffer) {
+		this.buffer = buffer;
+		if (buffer != null) {
+			buffer.addBufferChangedListener(this);
+		}
+	}
+
+	/**
+	 * Creates the monitor for the specified element. If the element is not a
+	 * working copy the returned monitor is never canceled.
+	 */
+	public static BufferChangeMonitor create(@Nullable IModelElement element) {
+		IBuffer buffer = null;
+		if (element instanceof ISourceModule
+				&& ((ISourceModule) element).isWorkingCopy()) {
+			try {
+				buffer = ((ISourceModule) element).getBuffer();
+			} catch (ModelException e) {
+				// ignore
+			}
+		}
+		return new BufferChangeMonitor(buffer);
+	}
+
+	public void bufferChanged(BufferChangedEvent event) {
+		setCanceled(true);
+	}
+
+	public void dispose() {
+		if (buffer != null) {
+			buffer.removeBufferChangedListener(this);
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation (Alex Panchenko)
+ *******************************************************************************/
+package org.eclipse.dltk.internal.javascript.ti;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.dltk.javascript.typeinfo.IContributedNames;
+import org.eclipse.dltk.javascript.typeinfo.INameContributor;
+import org.eclipse.dltk.javascript.typeinfo.TypeMode;
+
+/**
+ * The shared index of the names contributed by the {@link INameContributor}
+ * implementations. The names are indexed with the class of the contributor,
+ * so each context lists only the names of its own providers.
+ */
+public class ContributedNames {
+
+	private static final ContributedNames INSTANCE = new ContributedNames();
+
+	public static ContributedNames getInstance() {
+		return INSTANCE;
+	}
+
+	private final Map<TypeMode, NameIndex<Class<?>>> types = new EnumMap<TypeMode, NameIndex<Class<?>>>(
+			TypeMode.class);
+	private final NameIndex<Class<?>> globals = new NameIndex<Class<?>>();
+
+	/**
+	 * The contributor classes, which names were already requested.
+	 */
+	private final Set<Class<?>> contributors = new HashSet<Class<?>>();
+
+	private ContributedNames() {
+		for (TypeMode mode : TypeMode.values()) {
+			types.put(mode, new NameIndex<Class<?>>());
+		}
+	}
+
+	private class Names implements IContributedNames {
+		private final Class<?> contributor;
+
+		Names(Class<?> contributor) {
+			this.contributor = contributor;
+		}
+
+		public void addType(TypeMode mode, String name) {
+			types.get(mode).add(name, contributor);
+		}
+
+		public void removeType(TypeMode mode, String name) {
+			types.get(mode).remove(name, contributor);
+		}
+
+		public void addGlobal(String name) {
+			globals.add(name, contributor);
+		}
+
+		public void removeGlobal(String name) {
+			globals.remove(name, contributor);
+		}
+	}
+
+	/**
+	 * Requests the names of the specified object if it is an
+	 * {@link INameContributor} and its class was not requested yet.
+	 * 
+	 * @return <code>true</code> if the object is an {@link INameContributor}
+	 *         and its names are listed from this index
+	 */
+	public boolean contribute(Object contributor) {
+		if (!(contributor instanceof INameContributor)) {
+			return false;
+		}
+		final Class<?> contributorClass = contributor.getClass();
+		synchronized (contributors) {
+			if (contributors.add(contributorClass)) {
+				((INameContributor) contributor).contributeNames(new Names(
+						contributorClass));
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Adds the type names starting with the specified prefix contributed by
+	 * the specified classes.
+	 */
+	public void listTypes(TypeMode mode, String prefix, Set<Class<?>> active,
+			Collection<? super String> result) {
+		types.get(mode).collectNamesByPrefix(prefix, active, result);
+	}
+
+	/**
+	 * Adds the global names starting with the specified prefix contributed by
+	 * the specified classes.
+	 */
+	public void listGlobals(String prefix, Set<Class<?>> active,
+			Collection<? super String> result) {
+		globals.collectNamesByPrefix(prefix, active, result);
+	}
+
+}
@@ -24,6 +24,8 @@ import org.eclipse.dltk.annotations.Internal;
 import org.eclipse.dltk.compiler.problem.IProblemIdentifier;
 import org.eclipse.dltk.internal.javascript.validation.ValidationMessages;
 import org.eclipse.dltk.javascript.core.JavaScriptProblems;
+import org.eclipse.dltk.javascript.internal.core.RTypeDeclaration;
+import org.eclipse.dltk.javascript.internal.core.RTypeMemberIndex;
 import org.eclipse.dltk.javascript.typeinference.IAssignProtection;
 import org.eclipse.dltk.javascript.typeinference.ILocationProvider;
 import org.eclipse.dltk.javascript.typeinference.IValueCollection;
@@ -329,6 +331,11 @@ public abstract class ElementValue implements IValue {
 
 	public static List<IRMember> findMembers(IRTypeDeclaration type,
 			String name, MemberPredicate predicate) {
+		if (type instanceof RTypeDeclaration
+				&& RTypeMemberIndex.isSupported(predicate)) {
+			return ((RTypeDeclaration) type).getMemberIndex().findMembers(
+					name, predicate);
+		}
 		final List<IRMember> selection = new ArrayList<IRMember>(4);
 		for (IRMember member : new RTypeMemberQuery(type, predicate)
 				.ignoreDuplicates()) {
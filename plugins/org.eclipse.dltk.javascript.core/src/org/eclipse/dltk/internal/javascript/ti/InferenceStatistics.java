@@ -0,0 +1,429 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation (Alex Panchenko)
+ *******************************************************************************/
+package org.eclipse.dltk.internal.javascript.ti;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.dltk.annotations.Nullable;
+import org.eclipse.dltk.ast.ASTNode;
+import org.eclipse.dltk.javascript.ast.FunctionStatement;
+
+/**
+ * Opt-in instrumentation of the type inference, collecting the time and
+ * allocation per AST node type and per function, and the counters of the
+ * created values and references, type conversions and cache hits of the
+ * {@link TypeSystemImpl}.
+ *
+ * The instance is attached to the {@link TypeInferencer2} with
+ * {@link TypeInferencer2#setStatistics(InferenceStatistics)} and accumulates
+ * the data of all the following inferences until it is detached. The
+ * counters are collected only for the thread running the inference, when no
+ * statistics are attached the overhead is a single volatile read per counted
+ * event.
+ */
+public class InferenceStatistics {
+
+	public enum Counter {
+		VALUES, REFERENCES, TYPE_CONVERSIONS, DECLARATION_CACHE_HITS, CONTEXTUALIZE_CACHE_HITS, CONTEXTUALIZE_CACHE_MISSES, ASSIGNABILITY_CACHE_HITS, ASSIGNABILITY_CACHE_MISSES, COMMON_SUPER_TYPE_CACHE_HITS, COMMON_SUPER_TYPE_CACHE_MISSES
+	}
+
+	/**
+	 * The accumulated data of the single AST node type or function.
+	 */
+	public static class Entry {
+		final String name;
+		final int offset;
+		int count;
+		long totalNanos;
+		long selfNanos;
+		long allocatedBytes;
+
+		Entry(String name, int offset) {
+			this.name = name;
+			this.offset = offset;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns the source offset of the function or <code>-1</code> for
+		 * the node types.
+		 */
+		public int getOffset() {
+			return offset;
+		}
+
+		public int getCount() {
+			return count;
+		}
+
+		/**
+		 * Returns the time spent in the nodes including the nested ones.
+		 */
+		public long getTotalNanos() {
+			return totalNanos;
+		}
+
+		/**
+		 * Returns the time spent in the nodes excluding the nested ones.
+		 */
+		public long getSelfNanos() {
+			return selfNanos;
+		}
+
+		/**
+		 * Returns the number of bytes allocated in the nodes (excluding the
+		 * nested ones for the node types and including them for the
+		 * functions) or <code>0</code> if not supported by the JVM.
+		 */
+		public long getAllocatedBytes() {
+			return allocatedBytes;
+		}
+	}
+
+	private static final Comparator<Entry> BY_SELF_TIME = new Comparator<Entry>() {
+		public int compare(Entry o1, Entry o2) {
+			return o1.selfNanos < o2.selfNanos ? 1
+					: o1.selfNanos > o2.selfNanos ? -1 : 0;
+		}
+	};
+
+	private static final Comparator<Entry> BY_TOTAL_TIME = new Comparator<Entry>() {
+		public int compare(Entry o1, Entry o2) {
+			return o1.totalNanos < o2.totalNanos ? 1
+					: o1.totalNanos > o2.totalNanos ? -1 : 0;
+		}
+	};
+
+	private static class Frame {
+		long startNanos;
+		long startBytes;
+		long childNanos;
+		long childBytes;
+	}
+
+	private final String module;
+	private final Map<Class<?>, Entry> nodes = new HashMap<Class<?>, Entry>();
+	private final Map<String, Entry> functions = new HashMap<String, Entry>();
+	private final long[] counters = new long[Counter.values().length];
+	private final List<Frame> stack = new ArrayList<Frame>();
+	private int depth;
+	private int inferences;
+	private long totalNanos;
+
+	public InferenceStatistics(String module) {
+		this.module = module;
+	}
+
+	public String getModule() {
+		return module;
+	}
+
+	/**
+	 * Returns the number of the completed inferences.
+	 */
+	public int getInferenceCount() {
+		return inferences;
+	}
+
+	/**
+	 * Returns the total duration of the completed inferences.
+	 */
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	public long getCounter(Counter counter) {
+		return counters[counter.ordinal()];
+	}
+
+	/**
+	 * Returns the statistics of the AST node types, the most expensive first.
+	 */
+	public List<Entry> getNodeTypes() {
+		return sort(nodes.values(), BY_SELF_TIME, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the specified number of the slowest functions.
+	 */
+	public List<Entry> getSlowestFunctions(int limit) {
+		return sort(functions.values(), BY_TOTAL_TIME, limit);
+	}
+
+	private static List<Entry> sort(Iterable<Entry> entries,
+			Comparator<Entry> comparator, int limit) {
+		final List<Entry> result = new ArrayList<Entry>();
+		for (Entry entry : entries) {
+			result.add(entry);
+		}
+		Collections.sort(result, comparator);
+		return result.size() > limit ? result.subList(0, limit) : result;
+	}
+
+	private static final AtomicInteger ACTIVE = new AtomicInteger();
+
+	private static final ThreadLocal<InferenceStatistics> CURRENT = new ThreadLocal<InferenceStatistics>();
+
+	/**
+	 * Increments the counter of the statistics collected by the current
+	 * thread, if any.
+	 */
+	static void count(Counter counter) {
+		if (ACTIVE.get() != 0) {
+			final InferenceStatistics statistics = CURRENT.get();
+			if (statistics != null) {
+				++statistics.counters[counter.ordinal()];
+			}
+		}
+	}
+
+	private long inferenceStart;
+
+	/**
+	 * Starts collecting the counters in the current thread, returns the
+	 * statistics previously associated with the thread to be passed to
+	 * {@link #end(InferenceStatistics)}.
+	 */
+	InferenceStatistics begin() {
+		final InferenceStatistics saved = CURRENT.get();
+		CURRENT.set(this);
+		ACTIVE.incrementAndGet();
+		inferenceStart = System.nanoTime();
+		return saved;
+	}
+
+	void end(@Nullable InferenceStatistics saved) {
+		totalNanos += System.nanoTime() - inferenceStart;
+		++inferences;
+		ACTIVE.decrementAndGet();
+		if (saved != null) {
+			CURRENT.set(saved);
+		} else {
+			CURRENT.remove();
+		}
+	}
+
+	void enter() {
+		final Frame frame;
+		if (depth < stack.size()) {
+			frame = stack.get(depth);
+		} else {
+			frame = new Frame();
+			stack.add(frame);
+		}
+		++depth;
+		frame.childNanos = 0;
+		frame.childBytes = 0;
+		frame.startBytes = allocatedBytes();
+		frame.startNanos = System.nanoTime();
+	}
+
+	void exit(ASTNode node) {
+		final long nanos = System.nanoTime();
+		final long bytes = allocatedBytes();
+		if (depth == 0) {
+			return;
+		}
+		final Frame frame = stack.get(--depth);
+		final long total = nanos - frame.startNanos;
+		final long allocated = bytes - frame.startBytes;
+		Entry entry = nodes.get(node.getClass());
+		if (entry == null) {
+			entry = new Entry(node.getClass().getSimpleName(), -1);
+			nodes.put(node.getClass(), entry);
+		}
+		++entry.count;
+		entry.totalNanos += total;
+		entry.selfNanos += total - frame.childNanos;
+		entry.allocatedBytes += allocated - frame.childBytes;
+		if (node instanceof FunctionStatement) {
+			final FunctionStatement function = (FunctionStatement) node;
+			final String name = function.getFunctionName();
+			final String key = (name != null ? name : "<anonymous>") + '@'
+					+ function.start();
+			Entry f = functions.get(key);
+			if (f == null) {
+				f = new Entry(name != null ? name : "<anonymous>",
+						function.start());
+				functions.put(key, f);
+			}
+			++f.count;
+			f.totalNanos += total;
+			f.selfNanos += total - frame.childNanos;
+			f.allocatedBytes += allocated;
+		}
+		if (depth != 0) {
+			final Frame parent = stack.get(depth - 1);
+			parent.childNanos += total;
+			parent.childBytes += allocated;
+		}
+	}
+
+	private static final Object THREAD_BEAN;
+	private static final Method ALLOCATED_BYTES;
+
+	static {
+		Object bean = null;
+		Method method = null;
+		try {
+			bean = ManagementFactory.getThreadMXBean();
+			final Class<?> beanClass = Class
+					.forName("com.sun.management.ThreadMXBean");
+			if (beanClass.isInstance(bean)) {
+				method = beanClass.getMethod("getThreadAllocatedBytes",
+						long.class);
+			}
+		} catch (Exception e) {
+			// not supported
+		} catch (LinkageError e) {
+			// not supported
+		}
+		THREAD_BEAN = bean;
+		ALLOCATED_BYTES = method;
+	}
+
+	private static long allocatedBytes() {
+		if (ALLOCATED_BYTES != null) {
+			try {
+				return (Long) ALLOCATED_BYTES.invoke(THREAD_BEAN, Thread
+						.currentThread().getId());
+			} catch (Exception e) {
+				// fall thru
+			}
+		}
+		return 0;
+	}
+
+	private static final int REPORT_LIMIT = 10;
+
+	private static String millis(long nanos) {
+		return String.valueOf((nanos / 10000) / 100.0);
+	}
+
+	/**
+	 * Returns the human readable report of the collected data.
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("Inference of ").append(module).append(": ")
+				.append(millis(totalNanos)).append("ms in ")
+				.append(inferences).append(" run(s)\n");
+		sb.append("Node types (self ms, total ms, count, bytes):\n");
+		for (Entry entry : getNodeTypes()) {
+			sb.append("  ").append(entry.name).append(' ')
+					.append(millis(entry.selfNanos)).append(' ')
+					.append(millis(entry.totalNanos)).append(' ')
+					.append(entry.count).append(' ')
+					.append(entry.allocatedBytes).append('\n');
+		}
+		sb.append("Slowest functions (total ms, count, bytes):\n");
+		for (Entry entry : getSlowestFunctions(REPORT_LIMIT)) {
+			sb.append("  ").append(entry.name).append('@')
+					.append(entry.offset).append(' ')
+					.append(millis(entry.totalNanos)).append(' ')
+					.append(entry.count).append(' ')
+					.append(entry.allocatedBytes).append('\n');
+		}
+		sb.append("Counters:\n");
+		for (Counter counter : Counter.values()) {
+			sb.append("  ").append(counter.name()).append(' ')
+					.append(counters[counter.ordinal()]).append('\n');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the collected data as JSON object.
+	 */
+	public String toJSON() {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("{\"module\":");
+		appendString(sb, module);
+		sb.append(",\"inferences\":").append(inferences);
+		sb.append(",\"totalNanos\":").append(totalNanos);
+		sb.append(",\"nodeTypes\":[");
+		appendEntries(sb, getNodeTypes());
+		sb.append("],\"slowestFunctions\":[");
+		appendEntries(sb, getSlowestFunctions(REPORT_LIMIT));
+		sb.append("],\"counters\":{");
+		for (Counter counter : Counter.values()) {
+			if (counter.ordinal() != 0) {
+				sb.append(',');
+			}
+			appendString(sb, counter.name());
+			sb.append(':').append(counters[counter.ordinal()]);
+		}
+		sb.append("}}");
+		return sb.toString();
+	}
+
+	private static void appendEntries(StringBuilder sb, List<Entry> entries) {
+		for (int i = 0; i < entries.size(); ++i) {
+			final Entry entry = entries.get(i);
+			if (i != 0) {
+				sb.append(',');
+			}
+			sb.append("{\"name\":");
+			appendString(sb, entry.name);
+			if (entry.offset >= 0) {
+				sb.append(",\"offset\":").append(entry.offset);
+			}
+			sb.append(",\"count\":").append(entry.count);
+			sb.append(",\"totalNanos\":").append(entry.totalNanos);
+			sb.append(",\"selfNanos\":").append(entry.selfNanos);
+			sb.append(",\"allocatedBytes\":").append(entry.allocatedBytes);
+			sb.append('}');
+		}
+	}
+
+	private static void appendString(StringBuilder sb, String value) {
+		sb.append('"');
+		for (int i = 0; i < value.length(); ++i) {
+			final char c = value.charAt(i);
+			switch (c) {
+			case '"':
+			case '\\':
+				sb.append('\\').append(c);
+				break;
+			case '\n':
+				sb.append("\\n");
+				break;
+			case '\r':
+				sb.append("\\r");
+				break;
+			case '\t':
+				sb.append("\\t");
+				break;
+			default:
+				if (c < ' ') {
+					sb.append(String.format("\\u%04x", (int) c));
+				} else {
+					sb.append(c);
+				}
+			}
+		}
+		sb.append('"');
+	}
+
+}
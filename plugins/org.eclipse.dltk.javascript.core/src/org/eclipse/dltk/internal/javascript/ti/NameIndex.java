@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation (Alex Panchenko)
+ *******************************************************************************/
+package org.eclipse.dltk.internal.javascript.ti;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Sorted index of the named elements supporting the prefix searches without
+ * iterating all the elements. The entries are added and removed in place, the
+ * searches do not lock and could run concurrently with the changes.
+ * 
+ * @param <T>
+ *            the type of the indexed elements
+ */
+public final class NameIndex<T> {
+
+	/**
+	 * The values of each name, the sets are immutable and replaced on change.
+	 */
+	private final ConcurrentNavigableMap<String, Set<T>> entries = new ConcurrentSkipListMap<String, Set<T>>();
+
+	/**
+	 * Adds the value with the specified name, does nothing if the name is
+	 * <code>null</code> or the value is already indexed with this name.
+	 */
+	public synchronized void add(String name, T value) {
+		if (name == null) {
+			return;
+		}
+		final Set<T> values = entries.get(name);
+		if (values == null) {
+			entries.put(name, Collections.singleton(value));
+		} else if (!values.contains(value)) {
+			final Set<T> copy = new HashSet<T>(values);
+			copy.add(value);
+			entries.put(name, Collections.unmodifiableSet(copy));
+		}
+	}
+
+	/**
+	 * Removes the value indexed with the specified name.
+	 */
+	public synchronized void remove(String name, T value) {
+		if (name == null) {
+			return;
+		}
+		final Set<T> values = entries.get(name);
+		if (values != null && values.contains(value)) {
+			if (values.size() == 1) {
+				entries.remove(name);
+			} else {
+				final Set<T> copy = new HashSet<T>(values);
+				copy.remove(value);
+				entries.put(name, Collections.unmodifiableSet(copy));
+			}
+		}
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	public boolean isEmpty() {
+		return entries.isEmpty();
+	}
+
+	/**
+	 * Returns the entries which names start with the specified prefix (case
+	 * sensitive).
+	 */
+	private Map<String, Set<T>> byPrefix(String prefix) {
+		if (prefix.length() == 0) {
+			return entries;
+		}
+		final char last = prefix.charAt(prefix.length() - 1);
+		if (last == Character.MAX_VALUE) {
+			return entries.tailMap(prefix);
+		}
+		// the least string greater than all the strings with this prefix
+		final String end = prefix.substring(0, prefix.length() - 1)
+				+ (char) (last + 1);
+		return entries.subMap(prefix, end);
+	}
+
+	/**
+	 * Adds the elements which names start with the specified prefix (case
+	 * sensitive) to the specified collection.
+	 */
+	public void collectByPrefix(String prefix, Collection<? super T> result) {
+		for (Map.Entry<String, Set<T>> entry : byPrefix(prefix).entrySet()) {
+			if (entry.getKey().startsWith(prefix)) {
+				result.addAll(entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Adds the names starting with the specified prefix (case sensitive) to
+	 * the specified collection.
+	 */
+	public void collectNamesByPrefix(String prefix,
+			Collection<? super String> result) {
+		for (Map.Entry<String, Set<T>> entry : byPrefix(prefix).entrySet()) {
+			if (entry.getKey().startsWith(prefix)) {
+				result.add(entry.getKey());
+			}
+		}
+	}
+
+	/**
+	 * Adds the names starting with the specified prefix (case sensitive) and
+	 * indexed with at least one of the specified values to the specified
+	 * collection.
+	 */
+	public void collectNamesByPrefix(String prefix, Set<?> values,
+			Collection<? super String> result) {
+		for (Map.Entry<String, Set<T>> entry : byPrefix(prefix).entrySet()) {
+			if (!entry.getKey().startsWith(prefix)) {
+				continue;
+			}
+			for (T value : entry.getValue()) {
+				if (values.contains(value)) {
+					result.add(entry.getKey());
+					break;
+				}
+			}
+		}
+	}
+
+}
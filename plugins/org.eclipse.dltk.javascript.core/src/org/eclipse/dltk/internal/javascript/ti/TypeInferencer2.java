@@ -20,7 +20,10 @@ import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.dltk.annotations.Internal;
+import org.eclipse.dltk.annotations.Nullable;
 import org.eclipse.dltk.ast.ASTNode;
 import org.eclipse.dltk.core.IModelElement;
 import org.eclipse.dltk.javascript.ast.Script;
@@ -67,6 +70,7 @@ import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
 import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 
 public class TypeInferencer2 extends TypeSystemImpl implements
 		ITypeInferenceContext {
@@ -79,8 +83,72 @@ public class TypeInferencer2 extends TypeSystemImpl implements
 			visitor = new TypeInferencerVisitor(this);
 		}
 		visitor.initialize();
+		visitor.setCheckpoint(monitor,
+				timeBudget > 0 ? System.nanoTime() + timeBudget * 1000000L : 0);
+		visitor.setStatistics(null);
 	}
 
+	@Nullable
+	private IProgressMonitor monitor;
+	private long timeBudget;
+	private boolean complete;
+
+	/**
+	 * Sets the progress monitor checked at the statement and function
+	 * boundaries, if it is canceled {@link #doInferencing(Script)} throws
+	 * {@link OperationCanceledException}.
+	 */
+	public void setProgressMonitor(@Nullable IProgressMonitor monitor) {
+		this.monitor = monitor;
+	}
+
+	/**
+	 * Sets the maximum duration of the {@link #doInferencing(Script)} in
+	 * milliseconds, <code>0</code> means unlimited. When the budget is
+	 * exceeded the inference stops at the next statement or function boundary
+	 * and the results collected so far are kept, {@link #isComplete()} returns
+	 * <code>false</code> then.
+	 */
+	public void setTimeBudget(long millis) {
+		this.timeBudget = millis;
+	}
+
+	/**
+	 * Checks if the last {@link #doInferencing(Script)} has processed the
+	 * whole script, i.e. was not stopped because of the time budget.
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	@Nullable
+	private InferenceStatistics statistics;
+
+	/**
+	 * Sets the statistics accumulating the instrumentation data of the
+	 * following {@link #doInferencing(Script)} calls or <code>null</code> to
+	 * disable the instrumentation.
+	 */
+	public void setStatistics(@Nullable InferenceStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	@Nullable
+	public InferenceStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * The duration in milliseconds after which the statistics of the module
+	 * are logged, specified with the
+	 * <code>-Dorg.eclipse.dltk.javascript.inference.statistics=millis</code>
+	 * system property. When specified the statistics are collected for all
+	 * the inferences, so it should be used only to find the pathological
+	 * scripts.
+	 */
+	private static final long STATISTICS_THRESHOLD = Long.getLong(
+			"org.eclipse.dltk.javascript.inference.statistics", -1); //$NON-NLS-1$
+
 	public void setVisitor(TypeInferencerVisitor visitor) {
 		this.visitor = visitor;
 	}
@@ -96,6 +164,17 @@ public class TypeInferencer2 extends TypeSystemImpl implements
 	private static final boolean DEBUG = false;
 
 	public void doInferencing(Script script) {
+		doInferencing(script, 0, null);
+	}
+
+	/**
+	 * Infers the script starting from the specified top level statement, the
+	 * state after the preceding statements is restored from the snapshot.
+	 * 
+	 * @see TypeInferencerVisitor#visitScript(Script, int, IValueCollection)
+	 */
+	public void doInferencing(Script script, int fromStatement,
+			IValueCollection snapshot) {
 		if (DEBUG)
 			System.out.println("Visiting "
 					+ source
@@ -104,13 +183,26 @@ public class TypeInferencer2 extends TypeSystemImpl implements
 							: "Default") + " in "
 					+ Thread.currentThread().getName());
 		final ITypeSystem saved = CURRENT.get();
+		InferenceStatistics statistics = this.statistics;
+		if (statistics == null && STATISTICS_THRESHOLD >= 0) {
+			statistics = new InferenceStatistics(String.valueOf(source));
+		}
+		final InferenceStatistics savedStatistics = statistics != null ? statistics
+				.begin() : null;
 		try {
 			((ThreadTypeSystemImpl) CURRENT).set(this);
 			elements.clear();
 			modelBuilders = null;
 			typeProviders = null;
+			complete = false;
 			initializeVisitor();
-			visitor.visit(script);
+			visitor.setStatistics(statistics);
+			if (snapshot != null) {
+				visitor.visitScript(script, fromStatement, snapshot);
+			} else {
+				visitor.visit(script);
+			}
+			complete = true;
 			visitor.done();
 			// IValueCollection collection = visitor.getCollection();
 			// visitor = null;
@@ -118,6 +210,10 @@ public class TypeInferencer2 extends TypeSystemImpl implements
 		} catch (PositionReachedException e) {
 			// visitor = null;
 			throw e;
+		} catch (OperationCanceledException e) {
+			throw e;
+		} catch (TypeInferencerVisitorBase.TimeBudgetExceededException e) {
+			visitor.done();
 		} catch (TypeInferencerVisitorBase.TIWrappedException e) {
 			log(e.getCause());
 		} catch (RuntimeException e) {
@@ -126,6 +222,13 @@ public class TypeInferencer2 extends TypeSystemImpl implements
 			log(e);
 		} finally {
 			((ThreadTypeSystemImpl) CURRENT).set(saved);
+			if (statistics != null) {
+				statistics.end(savedStatistics);
+				if (statistics != this.statistics
+						&& statistics.getTotalNanos() >= STATISTICS_THRESHOLD * 1000000L) {
+					JavaScriptPlugin.warning(statistics.toJSON());
+				}
+			}
 		}
 		// return null;
 	}
@@ -201,6 +304,19 @@ public class TypeInferencer2 extends TypeSystemImpl implements
 	 */
 	private final Map<String, LocalTypeBucket> localTypes = new HashMap<String, LocalTypeBucket>();
 
+	/**
+	 * The names of the {@link #localTypes} by the lower case name after the
+	 * last dot, for completion.
+	 */
+	private final NameIndex<String> localTypeIndex = new NameIndex<String>();
+
+	private void addLocalTypeBucket(String name, LocalTypeBucket locals) {
+		localTypes.put(name, locals);
+		final int index = name.lastIndexOf('.');
+		localTypeIndex.add((index != -1 ? name.substring(index + 1) : name)
+				.toLowerCase(), name);
+	}
+
 	/*
 	 * @see ITypeInfoContext#registerLocalType(Type)
 	 */
@@ -214,7 +330,7 @@ public class TypeInferencer2 extends TypeSystemImpl implements
 			LocalTypeBucket locals = localTypes.get(name);
 			if (locals == null) {
 				locals = new LocalTypeBucket();
-				localTypes.put(name, locals);
+				addLocalTypeBucket(name, locals);
 			} else {
 				for (LocalType localType : locals) {
 					if (type.equals(localType.type)) {
@@ -243,6 +359,90 @@ public class TypeInferencer2 extends TypeSystemImpl implements
 		}
 	}
 
+	/**
+	 * The local types registered by an inferencer at some point of the
+	 * inference.
+	 *
+	 * @see TypeInferencer2#exportLocalTypes()
+	 */
+	public static final class LocalTypes {
+		final Map<String, List<Type>> enabled = new HashMap<String, List<Type>>();
+		final Map<String, Type> unknown = new HashMap<String, Type>();
+
+		/**
+		 * Resolves the proxies of the types in the current thread, so the
+		 * inferencers importing them do not resolve them concurrently.
+		 */
+		public void resolveAll() {
+			for (List<Type> types : enabled.values()) {
+				for (Type type : types) {
+					EcoreUtil.resolveAll(type);
+				}
+			}
+			for (Type type : unknown.values()) {
+				EcoreUtil.resolveAll(type);
+			}
+		}
+	}
+
+	/**
+	 * Returns the local types registered so far, so another inferencer
+	 * continuing the inference from a snapshot of the values of this one
+	 * resolves the same types.
+	 */
+	public LocalTypes exportLocalTypes() {
+		final LocalTypes result = new LocalTypes();
+		synchronized (localTypes) {
+			for (Map.Entry<String, LocalTypeBucket> entry : localTypes
+					.entrySet()) {
+				final LocalTypeBucket locals = entry.getValue();
+				final List<Type> types = new ArrayList<Type>(locals.size());
+				for (LocalType localType : locals) {
+					if (localType.isEnabled()) {
+						types.add(localType.type);
+					}
+				}
+				if (!types.isEmpty()) {
+					result.enabled.put(entry.getKey(), types);
+				}
+				if (locals.unknownType != null) {
+					result.unknown.put(entry.getKey(), locals.unknownType);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Registers the local types exported by another inferencer. The types stay
+	 * in the resource of that inferencer and are not modified.
+	 */
+	public void importLocalTypes(LocalTypes types) {
+		synchronized (localTypes) {
+			for (Map.Entry<String, List<Type>> entry : types.enabled.entrySet()) {
+				final LocalTypeBucket locals = getLocalTypeBucket(entry.getKey());
+				for (Type type : entry.getValue()) {
+					locals.add(new LocalType(type));
+				}
+			}
+			for (Map.Entry<String, Type> entry : types.unknown.entrySet()) {
+				final LocalTypeBucket locals = getLocalTypeBucket(entry.getKey());
+				if (locals.unknownType == null) {
+					locals.unknownType = entry.getValue();
+				}
+			}
+		}
+	}
+
+	private LocalTypeBucket getLocalTypeBucket(String name) {
+		LocalTypeBucket locals = localTypes.get(name);
+		if (locals == null) {
+			locals = new LocalTypeBucket();
+			addLocalTypeBucket(name, locals);
+		}
+		return locals;
+	}
+
 	private final Map<String, Type> types = new HashMap<String, Type>();
 
 	public Type getType(String typeName) {
@@ -301,27 +501,30 @@ public class TypeInferencer2 extends TypeSystemImpl implements
 		if (typeNames != null) {
 			result.addAll(typeNames);
 		}
+		final ContributedNames contributedNames = ContributedNames
+				.getInstance();
+		final Set<Class<?>> contributors = new HashSet<Class<?>>();
 		for (ITypeProvider provider : getTypeProviders()) {
+			if (contributedNames.contribute(provider)) {
+				contributors.add(provider.getClass());
+				continue;
+			}
 			typeNames = provider.listTypes(this, mode, prefix);
 			if (typeNames != null) {
 				result.addAll(typeNames);
 			}
 		}
+		if (!contributors.isEmpty()) {
+			contributedNames.listTypes(mode, prefix, contributors, result);
+		}
 
-		String lowerPrefix = prefix.toLowerCase();
-		synchronized (localTypes) {
-			Set<String> localTypeNames = localTypes.keySet();
-			for (String name : localTypeNames) {
-				String typeName = name;
-				if (typeName.toLowerCase().equals(lowerPrefix))
-					continue; // skip the thing that is already typed.
-				int index = typeName.lastIndexOf('.');
-				if (index != -1) {
-					typeName = typeName.substring(index + 1);
-				}
-				if (typeName.toLowerCase().startsWith(lowerPrefix)) {
-					result.add(name);
-				}
+		final String lowerPrefix = prefix.toLowerCase();
+		final List<String> localTypeNames = new ArrayList<String>();
+		localTypeIndex.collectByPrefix(lowerPrefix, localTypeNames);
+		for (String name : localTypeNames) {
+			if (!name.toLowerCase().equals(lowerPrefix)) {
+				// skip the thing that is already typed.
+				result.add(name);
 			}
 		}
 		return result;
@@ -429,7 +632,7 @@ public class TypeInferencer2 extends TypeSystemImpl implements
 				}
 			} else {
 				locals = new LocalTypeBucket();
-				localTypes.put(typeName, locals);
+				addLocalTypeBucket(typeName, locals);
 			}
 			locals.unknownType = type;
 		}
@@ -616,12 +819,22 @@ public class TypeInferencer2 extends TypeSystemImpl implements
 				prefix)) {
 			result.add(member.getName());
 		}
+		final ContributedNames contributedNames = ContributedNames
+				.getInstance();
+		final Set<Class<?>> contributors = new HashSet<Class<?>>();
 		for (IElementResolver resolver : TypeInfoManager.getElementResolvers()) {
+			if (contributedNames.contribute(resolver)) {
+				contributors.add(resolver.getClass());
+				continue;
+			}
 			Set<String> globals = resolver.listGlobals(this, prefix);
 			if (globals != null) {
 				result.addAll(globals);
 			}
 		}
+		if (!contributors.isEmpty()) {
+			contributedNames.listGlobals(prefix, contributors, result);
+		}
 		return result;
 	}
 
@@ -705,6 +918,7 @@ public class TypeInferencer2 extends TypeSystemImpl implements
 				}
 			}
 			localTypes.clear();
+			localTypeIndex.clear();
 		}
 		if (!copy.isEmpty()) {
 			typeRS.removeAll(copy);
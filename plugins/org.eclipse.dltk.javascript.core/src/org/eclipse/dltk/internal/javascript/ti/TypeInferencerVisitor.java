@@ -107,6 +107,7 @@ import org.eclipse.dltk.javascript.typeinference.IValueReference;
 import org.eclipse.dltk.javascript.typeinference.PhantomValueReference;
 import org.eclipse.dltk.javascript.typeinference.ReferenceKind;
 import org.eclipse.dltk.javascript.typeinference.ReferenceLocation;
+import org.eclipse.dltk.javascript.typeinference.ValueCollectionFactory;
 import org.eclipse.dltk.javascript.typeinference.ValueReferenceUtil;
 import org.eclipse.dltk.javascript.typeinfo.CommonSuperTypeFinder;
 import org.eclipse.dltk.javascript.typeinfo.E4XTypes;
@@ -1579,6 +1580,20 @@ public class TypeInferencerVisitor extends TypeInferencerVisitorBase {
 		return visit(node.getStatements());
 	}
 
+	/**
+	 * Continues the inference of the script from the specified top level
+	 * statement. The state after the preceding statements is restored from
+	 * the snapshot, previously created with
+	 * {@link ValueCollectionFactory#makeImmutable(IValueCollection)}.
+	 */
+	public IValueReference visitScript(Script node, int fromStatement,
+			IValueCollection snapshot) {
+		handleDeclarations(node);
+		ValueCollectionFactory.copyInto(peekContext(), snapshot);
+		final List<Statement> statements = node.getStatements();
+		return visit(statements.subList(fromStatement, statements.size()));
+	}
+
 	private void handleDeclarations(JSScope scope) {
 		ArrayList<IValueReference> variables = new ArrayList<IValueReference>();
 		ArrayList<ForwardDeclaration> forwardDecls = new ArrayList<ForwardDeclaration>();
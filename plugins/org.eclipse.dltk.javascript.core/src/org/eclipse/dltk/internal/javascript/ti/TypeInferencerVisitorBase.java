@@ -16,10 +16,14 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Stack;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.dltk.annotations.Nullable;
 import org.eclipse.dltk.ast.ASTNode;
 import org.eclipse.dltk.compiler.problem.IProblemIdentifier;
 import org.eclipse.dltk.javascript.ast.ASTVisitor;
+import org.eclipse.dltk.javascript.ast.FunctionStatement;
+import org.eclipse.dltk.javascript.ast.Statement;
 import org.eclipse.dltk.javascript.core.JavaScriptPlugin;
 import org.eclipse.dltk.javascript.parser.JSProblemReporter;
 import org.eclipse.dltk.javascript.parser.Reporter;
@@ -128,8 +132,74 @@ public abstract class TypeInferencerVisitorBase extends
 		}
 	}
 
+	@Nullable
+	private IProgressMonitor monitor;
+	private long deadline;
+
+	/**
+	 * Configures the cooperative cancellation checked at the statement and
+	 * function boundaries.
+	 * 
+	 * @param monitor
+	 *            the progress monitor to check or <code>null</code>
+	 * @param deadline
+	 *            the {@link System#nanoTime()} after which the inference stops
+	 *            with {@link TimeBudgetExceededException} or <code>0</code>
+	 */
+	void setCheckpoint(@Nullable IProgressMonitor monitor, long deadline) {
+		this.monitor = monitor;
+		this.deadline = deadline;
+	}
+
+	/**
+	 * Throws {@link OperationCanceledException} if the monitor was canceled
+	 * and {@link TimeBudgetExceededException} if the deadline has passed.
+	 */
+	protected void checkpoint() {
+		if (monitor != null && monitor.isCanceled()) {
+			throw new OperationCanceledException();
+		}
+		if (deadline != 0 && System.nanoTime() - deadline > 0) {
+			throw new TimeBudgetExceededException();
+		}
+	}
+
+	@Nullable
+	private InferenceStatistics statistics;
+
+	/**
+	 * Sets the statistics collecting the time and allocation per AST node
+	 * type and per function or <code>null</code> to disable the
+	 * instrumentation.
+	 */
+	public void setStatistics(@Nullable InferenceStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	@Nullable
+	public InferenceStatistics getStatistics() {
+		return statistics;
+	}
+
 	@Override
 	public IValueReference visit(ASTNode node) {
+		if ((monitor != null || deadline != 0)
+				&& (node instanceof Statement || node instanceof FunctionStatement)) {
+			checkpoint();
+		}
+		final InferenceStatistics statistics = this.statistics;
+		if (statistics != null) {
+			statistics.enter();
+			try {
+				return doVisit(node);
+			} finally {
+				statistics.exit(node);
+			}
+		}
+		return doVisit(node);
+	}
+
+	private IValueReference doVisit(ASTNode node) {
 		if (handlers != null) {
 			for (ITypeInferenceHandler handler : handlers) {
 				final IValueReference result = handler.handle(node);
@@ -142,6 +212,10 @@ public abstract class TypeInferencerVisitorBase extends
 			return super.visit(node);
 		} catch (PositionReachedException e) {
 			throw e;
+		} catch (OperationCanceledException e) {
+			throw e;
+		} catch (TimeBudgetExceededException e) {
+			throw e;
 		} catch (TIWrappedException e) {
 			throw e;
 		} catch (RuntimeException e) {
@@ -160,6 +234,14 @@ public abstract class TypeInferencerVisitorBase extends
 		}
 	}
 
+	/**
+	 * Thrown when the time budget of the inference is exceeded, the results
+	 * collected so far are kept.
+	 */
+	@SuppressWarnings("serial")
+	static class TimeBudgetExceededException extends RuntimeException {
+	}
+
 	protected String buildNodeErrorMessage(ASTNode node) {
 		final StringBuilder sb = new StringBuilder();
 		sb.append("Error processing ");
@@ -23,15 +23,18 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.dltk.annotations.NonNull;
 import org.eclipse.dltk.annotations.Nullable;
+import org.eclipse.dltk.internal.javascript.ti.InferenceStatistics.Counter;
 import org.eclipse.dltk.javascript.internal.core.RConstructor;
 import org.eclipse.dltk.javascript.internal.core.RMethod;
 import org.eclipse.dltk.javascript.internal.core.RParameter;
 import org.eclipse.dltk.javascript.internal.core.RParameterizedTypeDeclaration;
 import org.eclipse.dltk.javascript.internal.core.RProperty;
 import org.eclipse.dltk.javascript.internal.core.RTypeDeclaration;
+import org.eclipse.dltk.javascript.internal.core.TypeSystems;
 import org.eclipse.dltk.javascript.typeinfo.IRArrayType;
 import org.eclipse.dltk.javascript.typeinfo.IRConstructor;
 import org.eclipse.dltk.javascript.typeinfo.IRContextualizableType;
@@ -45,6 +48,7 @@ import org.eclipse.dltk.javascript.typeinfo.IRTypeDeclaration;
 import org.eclipse.dltk.javascript.typeinfo.IRTypeTransformer;
 import org.eclipse.dltk.javascript.typeinfo.ITypeSystem;
 import org.eclipse.dltk.javascript.typeinfo.RTypes;
+import org.eclipse.dltk.javascript.typeinfo.TypeCompatibility;
 import org.eclipse.dltk.javascript.typeinfo.model.Constructor;
 import org.eclipse.dltk.javascript.typeinfo.model.GenericType;
 import org.eclipse.dltk.javascript.typeinfo.model.JSType;
@@ -138,6 +142,8 @@ public class TypeSystemImpl implements ITypeSystem {
 			declarations.clear();
 			parameterized.clear();
 			contextualized.clear();
+			assignability.clear();
+			commonSuperTypes.clear();
 			if (values != null) {
 				values.clear();
 			}
@@ -148,6 +154,7 @@ public class TypeSystemImpl implements ITypeSystem {
 		{
 			final RTypeDeclaration declaration = declarations.get(type);
 			if (declaration != null) {
+				InferenceStatistics.count(Counter.DECLARATION_CACHE_HITS);
 				return declaration;
 			}
 		}
@@ -165,6 +172,7 @@ public class TypeSystemImpl implements ITypeSystem {
 		}
 		final RTypeDeclaration declaration = new RTypeDeclaration(this, type);
 		declarations.put(type, declaration);
+		InferenceStatistics.count(Counter.TYPE_CONVERSIONS);
 		if (TRACE) {
 			log("Creating", declaration, "declarations.size=",
 					declarations.size());
@@ -399,6 +407,7 @@ public class TypeSystemImpl implements ITypeSystem {
 		{
 			final RTypeDeclaration declaration = parameterized.get(key);
 			if (declaration != null) {
+				InferenceStatistics.count(Counter.DECLARATION_CACHE_HITS);
 				return declaration;
 			}
 		}
@@ -408,6 +417,7 @@ public class TypeSystemImpl implements ITypeSystem {
 		final RParameterizedTypeDeclaration declaration = new RParameterizedTypeDeclaration(
 				this, genericType, Arrays.asList(key.parameters));
 		parameterized.put(key, declaration);
+		InferenceStatistics.count(Counter.TYPE_CONVERSIONS);
 		typeVariables.add(declaration);
 		try {
 			buildType(declaration, genericType,
@@ -460,8 +470,10 @@ public class TypeSystemImpl implements ITypeSystem {
 		synchronized (contextualized) {
 			final E cached = (E) contextualized.get(key);
 			if (cached != null) {
+				InferenceStatistics.count(Counter.CONTEXTUALIZE_CACHE_HITS);
 				return cached;
 			}
+			InferenceStatistics.count(Counter.CONTEXTUALIZE_CACHE_MISSES);
 			final E result = contextualizeMember(member, declaration);
 			contextualized.put(key, result);
 			if (TRACE) {
@@ -589,6 +601,112 @@ public class TypeSystemImpl implements ITypeSystem {
 		values.put(key, value);
 	}
 
+	/**
+	 * Identity pair of the declarations, the order is significant.
+	 */
+	private static class DeclarationPair {
+		final IRTypeDeclaration first;
+		final IRTypeDeclaration second;
+
+		public DeclarationPair(IRTypeDeclaration first,
+				IRTypeDeclaration second) {
+			this.first = first;
+			this.second = second;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(first) * 31
+					+ System.identityHashCode(second);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj instanceof DeclarationPair) {
+				final DeclarationPair other = (DeclarationPair) obj;
+				return first == other.first && second == other.second;
+			}
+			return false;
+		}
+	}
+
+	private final Map<DeclarationPair, TypeCompatibility> assignability = new ConcurrentHashMap<DeclarationPair, TypeCompatibility>();
+
+	private final Map<DeclarationPair, IRTypeDeclaration> commonSuperTypes = new ConcurrentHashMap<DeclarationPair, IRTypeDeclaration>();
+
+	/**
+	 * Returns the type system caching the relations between the specified
+	 * declarations or <code>null</code> if they should not be cached. The
+	 * relations are cached when both declarations belong to the same type
+	 * system, or when one of them belongs to the {@link TypeSystems#GLOBAL}
+	 * one, which outlives all the others.
+	 */
+	@Nullable
+	public static TypeSystemImpl getRelationCache(IRTypeDeclaration a,
+			IRTypeDeclaration b) {
+		final ITypeSystem first = a.getTypeSystem();
+		final ITypeSystem second = b.getTypeSystem();
+		final ITypeSystem owner;
+		if (first == second || second == TypeSystems.GLOBAL) {
+			owner = first;
+		} else if (first == TypeSystems.GLOBAL) {
+			owner = second;
+		} else {
+			return null;
+		}
+		return owner instanceof TypeSystemImpl ? (TypeSystemImpl) owner : null;
+	}
+
+	/**
+	 * Returns the cached result of
+	 * <code>target.isAssignableFrom(source)</code> or <code>null</code> if
+	 * it was not evaluated yet. Both declarations should belong to this type
+	 * system.
+	 */
+	@Nullable
+	public TypeCompatibility getCachedAssignability(IRTypeDeclaration target,
+			IRTypeDeclaration source) {
+		final TypeCompatibility result = assignability.get(new DeclarationPair(
+				target, source));
+		InferenceStatistics
+				.count(result != null ? Counter.ASSIGNABILITY_CACHE_HITS
+						: Counter.ASSIGNABILITY_CACHE_MISSES);
+		return result;
+	}
+
+	/**
+	 * Caches the result of <code>target.isAssignableFrom(source)</code> until
+	 * this type system is {@link #reset()}.
+	 */
+	public void cacheAssignability(IRTypeDeclaration target,
+			IRTypeDeclaration source, TypeCompatibility result) {
+		assignability.put(new DeclarationPair(target, source), result);
+	}
+
+	/**
+	 * Returns the cached least common super type of the declarations or
+	 * <code>null</code> if it was not evaluated yet.
+	 */
+	@Nullable
+	public IRTypeDeclaration getCachedCommonSuperType(IRTypeDeclaration a,
+			IRTypeDeclaration b) {
+		final IRTypeDeclaration result = commonSuperTypes
+				.get(new DeclarationPair(a, b));
+		InferenceStatistics
+				.count(result != null ? Counter.COMMON_SUPER_TYPE_CACHE_HITS
+						: Counter.COMMON_SUPER_TYPE_CACHE_MISSES);
+		return result;
+	}
+
+	/**
+	 * Caches the least common super type of the declarations until this type
+	 * system is {@link #reset()}.
+	 */
+	public void cacheCommonSuperType(IRTypeDeclaration a, IRTypeDeclaration b,
+			IRTypeDeclaration result) {
+		commonSuperTypes.put(new DeclarationPair(a, b), result);
+	}
+
 	protected boolean isContextualizable(IRMember member) {
 		if (isContextualizable(member.getType())) {
 			return true;
@@ -35,10 +35,12 @@ import org.eclipse.dltk.javascript.typeinfo.model.Type;
 public class Value extends ImmutableValue {
 
 	public Value() {
+		InferenceStatistics.count(InferenceStatistics.Counter.VALUES);
 	}
 
 	public Value(ImmutableValue value) {
 		super(value);
+		InferenceStatistics.count(InferenceStatistics.Counter.VALUES);
 	}
 
 	@Override
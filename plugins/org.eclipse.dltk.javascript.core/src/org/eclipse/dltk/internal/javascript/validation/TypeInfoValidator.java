@@ -33,6 +33,7 @@ import java.util.Stack;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.dltk.annotations.NonNull;
 import org.eclipse.dltk.annotations.Nullable;
 import org.eclipse.dltk.ast.ASTNode;
@@ -46,6 +47,7 @@ import org.eclipse.dltk.core.builder.IBuildParticipant;
 import org.eclipse.dltk.core.builder.IBuildParticipantExtension;
 import org.eclipse.dltk.core.builder.IBuildParticipantExtension4;
 import org.eclipse.dltk.internal.javascript.parser.JSDocValidatorFactory.TypeChecker;
+import org.eclipse.dltk.internal.javascript.ti.BufferChangeMonitor;
 import org.eclipse.dltk.internal.javascript.ti.ConstantValue;
 import org.eclipse.dltk.internal.javascript.ti.IReferenceAttributes;
 import org.eclipse.dltk.internal.javascript.ti.ITypeInferenceContext;
@@ -165,12 +167,31 @@ public class TypeInfoValidator implements IBuildParticipant,
 		final ValidationVisitor visitor = new ValidationVisitor(inferencer,
 				reporter, inconsistentReturns, hasDependents);
 		inferencer.setVisitor(visitor);
-		inferencer.doInferencing(script);
+		final BufferChangeMonitor monitor = context.getBuildType() == IBuildContext.RECONCILE_BUILD ? BufferChangeMonitor
+				.create(context.getSourceModule()) : null;
+		inferencer.setProgressMonitor(monitor);
+		boolean canceled = false;
+		try {
+			inferencer.doInferencing(script);
+		} catch (OperationCanceledException e) {
+			// the source was changed, it will be reconciled again
+			canceled = true;
+		} finally {
+			inferencer.setProgressMonitor(null);
+			if (monitor != null) {
+				monitor.dispose();
+			}
+		}
 		if (hasDependents) {
 			inferencer.resetLocalState();
+			// the dependents rely on JSBindings.of(IBuildContext), so the
+			// partial bindings are published even if the build was canceled,
+			// but not cached for the other requests
 			context.set(TypeInfoValidator.ATTR_BINDINGS, visitor.bindings);
-			saveCachedBindings(script, new TemporaryBindings(inferencer,
-					visitor.bindings));
+			if (!canceled) {
+				saveCachedBindings(script, new TemporaryBindings(inferencer,
+						visitor.bindings));
+			}
 			((ThreadTypeSystemImpl) ITypeSystem.CURRENT).set(inferencer);
 		}
 	}
@@ -541,6 +562,15 @@ public class TypeInfoValidator implements IBuildParticipant,
 
 		final Map<ASTNode, IValueReference> bindings;
 
+		/**
+		 * Returns the bindings collected by this visitor or <code>null</code>
+		 * if it was created without collecting them.
+		 */
+		@Nullable
+		public Map<ASTNode, IValueReference> getBindings() {
+			return bindings;
+		}
+
 		@Override
 		public IValueReference visit(ASTNode node) {
 			visitStack.push(node);
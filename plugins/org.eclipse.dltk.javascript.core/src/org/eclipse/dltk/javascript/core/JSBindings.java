@@ -11,10 +11,13 @@
  *******************************************************************************/
 package org.eclipse.dltk.javascript.core;
 
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.Callable;
 
 import org.eclipse.dltk.ast.ASTNode;
@@ -146,10 +149,58 @@ public class JSBindings implements Map<ASTNode, IValueReference> {
 		bindings = buildBindings(module, script);
 		if (bindings.isCacheable()) {
 			script.setAttribute(ATTR_BINDINGS, bindings);
+			remember(module, bindings);
 		}
 		return bindings;
 	}
 
+	/**
+	 * The type systems of the bindings last cached for each module, referenced
+	 * weakly, so they live as long as the AST they are attached to.
+	 */
+	private static final Map<ISourceModule, Reference<ITypeSystem>> typeSystems = new WeakHashMap<ISourceModule, Reference<ITypeSystem>>();
+
+	private static void remember(ISourceModule module, JSBindings bindings) {
+		if (module != null) {
+			synchronized (typeSystems) {
+				typeSystems.put(module, new WeakReference<ITypeSystem>(
+						bindings.typeSystem));
+			}
+		}
+	}
+
+	/**
+	 * Returns the type system of the bindings last computed for the specified
+	 * module (e.g. by semantic highlighting) or <code>null</code> if there are
+	 * none. Neither parses the module nor runs the type inference, so it is
+	 * cheap enough for the UI thread, but the result may belong to a previous
+	 * revision of the module.
+	 */
+	public static ITypeSystem getCachedTypeSystem(ISourceModule module) {
+		final Reference<ITypeSystem> ref;
+		synchronized (typeSystems) {
+			ref = typeSystems.get(module);
+		}
+		return ref != null ? ref.get() : null;
+	}
+
+	/**
+	 * Associates the bindings computed by the caller with the specified AST,
+	 * so all the subsequent requests for the same revision of the module
+	 * (hovers, hyperlinks, other semantic highlighters) reuse them instead of
+	 * running the type inference again. Does nothing if the bindings for this
+	 * AST are already available.
+	 */
+	public static void attach(Script script, ITypeSystem typeSystem,
+			Map<ASTNode, IValueReference> nodeMap) {
+		if (script.getAttribute(ATTR_BINDINGS) == null) {
+			final JSBindings bindings = new JSBindings(typeSystem, nodeMap);
+			script.setAttribute(ATTR_BINDINGS, bindings);
+			remember((ISourceModule) script
+					.getAttribute(JavaScriptParserUtil.ATTR_MODULE), bindings);
+		}
+	}
+
 	/**
 	 * Returns bindings for the specified {@link IBuildContext}. This method
 	 * should be called only from {@link IBuildParticipant} which has dependency
@@ -19,12 +19,10 @@ import java.util.List;
 import org.eclipse.dltk.ast.ASTNode;
 import org.eclipse.dltk.ast.ASTVisitor;
 import org.eclipse.dltk.javascript.ast.Comment;
-import org.eclipse.dltk.javascript.ast.FunctionStatement;
 import org.eclipse.dltk.javascript.ast.ISemicolonStatement;
 import org.eclipse.dltk.javascript.ast.JSNode;
 import org.eclipse.dltk.javascript.ast.JSUserNode;
 import org.eclipse.dltk.javascript.ast.Script;
-import org.eclipse.dltk.javascript.ast.Statement;
 
 public class NodeFinder extends ASTVisitor {
 	private final boolean skipUserExpressions;
@@ -49,8 +47,7 @@ public class NodeFinder extends ASTVisitor {
 	private ASTNode after = null;
 
 	private static boolean isBlock(ASTNode node) {
-		return node instanceof Script || node instanceof FunctionStatement
-				|| node instanceof Statement;
+		return NodeIndex.isBlock(node);
 	}
 
 	@Override
@@ -105,6 +102,12 @@ public class NodeFinder extends ASTVisitor {
 				return true;
 			}
 		}
+		final NodeIndex index = NodeIndex.get(script);
+		if (index != null && !(skipUserExpressions && index.hasUserNodes())) {
+			before = index.findClosest(start, start, end);
+			after = index.findClosest(end, start, end);
+			return true;
+		}
 		try {
 			script.traverse(this);
 			return true;
@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation (Alex Panchenko)
+ *******************************************************************************/
+package org.eclipse.dltk.javascript.core;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.dltk.annotations.Nullable;
+import org.eclipse.dltk.ast.ASTNode;
+import org.eclipse.dltk.ast.ASTVisitor;
+import org.eclipse.dltk.javascript.ast.FunctionStatement;
+import org.eclipse.dltk.javascript.ast.ISemicolonStatement;
+import org.eclipse.dltk.javascript.ast.JSNode;
+import org.eclipse.dltk.javascript.ast.JSUserNode;
+import org.eclipse.dltk.javascript.ast.Script;
+import org.eclipse.dltk.javascript.ast.Statement;
+
+/**
+ * Position index of the script AST: the nodes in the traversal order, which
+ * is also the order of their start offsets, with the links to the enclosing
+ * blocks. The index is built once per {@link Script} and kept as its
+ * attribute, the node lookups are binary searches then.
+ */
+public class NodeIndex {
+
+	private static final String ATTR_INDEX = NodeIndex.class.getName();
+
+	private final ASTNode[] nodes;
+	private final int[] starts;
+	private final int[] ends;
+	/**
+	 * The index of the parent node or <code>-1</code>
+	 */
+	private final int[] parents;
+	/**
+	 * The index of the nearest enclosing block or <code>-1</code>
+	 */
+	private final int[] blocks;
+	private final boolean[] block;
+	private final boolean userNodes;
+
+	private NodeIndex(List<ASTNode> list, boolean userNodes) {
+		final int size = list.size();
+		this.nodes = list.toArray(new ASTNode[size]);
+		this.starts = new int[size];
+		this.ends = new int[size];
+		this.parents = new int[size];
+		this.blocks = new int[size];
+		this.block = new boolean[size];
+		this.userNodes = userNodes;
+		final Map<ASTNode, Integer> positions = new IdentityHashMap<ASTNode, Integer>(
+				size);
+		for (int i = 0; i < size; ++i) {
+			positions.put(nodes[i], i);
+		}
+		for (int i = 0; i < size; ++i) {
+			final ASTNode node = nodes[i];
+			starts[i] = node.sourceStart();
+			ends[i] = node.sourceEnd();
+			block[i] = isBlock(node);
+			parents[i] = -1;
+			blocks[i] = -1;
+			if (node instanceof JSNode) {
+				for (ASTNode parent = ((JSNode) node).getParent(); parent != null; parent = parent instanceof JSNode ? ((JSNode) parent)
+						.getParent() : null) {
+					final Integer index = positions.get(parent);
+					if (index != null && index < i) {
+						parents[i] = index;
+						blocks[i] = block[index] ? index : blocks[index];
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	static boolean isBlock(ASTNode node) {
+		return node instanceof Script || node instanceof FunctionStatement
+				|| node instanceof Statement;
+	}
+
+	/**
+	 * Returns the index of the specified script, building it if not cached
+	 * yet, or <code>null</code> if the nodes of the script are not ordered
+	 * by their positions and could not be indexed.
+	 */
+	@Nullable
+	public static NodeIndex get(Script script) {
+		final Object cached = script.getAttribute(ATTR_INDEX);
+		if (cached instanceof NodeIndex) {
+			return (NodeIndex) cached;
+		} else if (cached != null) {
+			return null;
+		}
+		final NodeIndex index = build(script);
+		script.setAttribute(ATTR_INDEX, index != null ? index : Boolean.FALSE);
+		return index;
+	}
+
+	@Nullable
+	private static NodeIndex build(Script script) {
+		final List<ASTNode> list = new ArrayList<ASTNode>();
+		final boolean[] userNodes = new boolean[1];
+		try {
+			script.traverse(new ASTVisitor() {
+				@Override
+				public boolean visit(ASTNode node) throws Exception {
+					list.add(node);
+					if (node instanceof JSUserNode
+							&& ((JSUserNode) node).getOriginal() != null) {
+						userNodes[0] = true;
+					}
+					return true;
+				}
+			});
+		} catch (Exception e) {
+			return null;
+		}
+		for (int i = 1; i < list.size(); ++i) {
+			if (list.get(i).sourceStart() < list.get(i - 1).sourceStart()) {
+				return null;
+			}
+		}
+		return new NodeIndex(list, userNodes[0]);
+	}
+
+	/**
+	 * Checks if the script contains the user nodes having the original
+	 * expressions.
+	 */
+	boolean hasUserNodes() {
+		return userNodes;
+	}
+
+	public int size() {
+		return nodes.length;
+	}
+
+	/**
+	 * Returns the index of the first node starting after the specified
+	 * position.
+	 */
+	private int upperBound(int position) {
+		int low = 0;
+		int high = starts.length;
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (starts[mid] <= position) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Checks if the block is visited when looking for the nodes in the
+	 * specified range, the same way as {@link NodeFinder} does.
+	 */
+	private boolean isVisited(int index, int start, int end) {
+		if (ends[index] < start || starts[index] > end) {
+			return false;
+		}
+		if (ends[index] == start
+				&& nodes[index] instanceof ISemicolonStatement
+				&& ((ISemicolonStatement) nodes[index]).getSemicolonPosition() >= 0) {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the outermost block containing the specified node (or the node
+	 * itself) which is not visited for the specified range, or
+	 * <code>-1</code>.
+	 */
+	private int findSkippedBlock(int index, int start, int end) {
+		int result = -1;
+		for (int i = block[index] ? index : blocks[index]; i >= 0; i = blocks[i]) {
+			if (!isVisited(i, start, end)) {
+				result = i;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the last non-block node in the traversal order, starting at or
+	 * before the specified position, skipping the blocks outside of the range.
+	 * If there are no such nodes - returns the first visited non-block node.
+	 */
+	@Nullable
+	ASTNode findClosest(int position, int start, int end) {
+		for (int i = upperBound(position) - 1; i >= 0;) {
+			final int skipped = findSkippedBlock(i, start, end);
+			if (skipped >= 0) {
+				i = skipped - 1;
+			} else if (block[i]) {
+				--i;
+			} else {
+				return nodes[i];
+			}
+		}
+		for (int i = 0; i < nodes.length; ++i) {
+			final int skipped = findSkippedBlock(i, start, end);
+			if (skipped >= 0) {
+				i = skipLast(skipped);
+			} else if (!block[i]) {
+				return nodes[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the index of the last node in the subtree of the specified
+	 * block.
+	 */
+	private int skipLast(int blockIndex) {
+		int i = blockIndex + 1;
+		while (i < nodes.length && isInside(i, blockIndex)) {
+			++i;
+		}
+		return i - 1;
+	}
+
+	private boolean isInside(int index, int blockIndex) {
+		for (int i = blocks[index]; i >= 0; i = blocks[i]) {
+			if (i == blockIndex) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the innermost node containing the specified range or
+	 * <code>null</code> if there is no such node.
+	 */
+	@Nullable
+	public ASTNode findInnermost(int start, int end) {
+		for (int i = upperBound(start) - 1; i >= 0; i = parents[i]) {
+			if (ends[i] >= end) {
+				return nodes[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the nodes completely inside of the specified range, in the
+	 * traversal order.
+	 */
+	public List<ASTNode> findNodes(int start, int end) {
+		final List<ASTNode> result = new ArrayList<ASTNode>();
+		for (int i = upperBound(start - 1); i < nodes.length
+				&& starts[i] <= end; ++i) {
+			if (ends[i] <= end) {
+				result.add(nodes[i]);
+			}
+		}
+		return result;
+	}
+
+}
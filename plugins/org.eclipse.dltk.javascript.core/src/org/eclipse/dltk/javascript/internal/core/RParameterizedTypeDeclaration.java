@@ -84,7 +84,8 @@ public class RParameterizedTypeDeclaration extends RTypeDeclaration implements
 	}
 
 	@Override
-	public TypeCompatibility isAssignableFrom(IRTypeDeclaration declaration) {
+	protected TypeCompatibility computeAssignableFrom(
+			IRTypeDeclaration declaration) {
 		if (declaration instanceof RParameterizedTypeDeclaration) {
 			final RParameterizedTypeDeclaration other = (RParameterizedTypeDeclaration) declaration;
 			if (type.equals(other.type)) {
@@ -92,7 +93,7 @@ public class RParameterizedTypeDeclaration extends RTypeDeclaration implements
 						: TypeCompatibility.UNPARAMETERIZED;
 			}
 		}
-		return super.isAssignableFrom(declaration);
+		return super.computeAssignableFrom(declaration);
 	}
 
 	@Override
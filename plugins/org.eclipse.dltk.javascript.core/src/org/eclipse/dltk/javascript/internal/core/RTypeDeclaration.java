@@ -19,6 +19,7 @@ import java.util.Set;
 import org.eclipse.dltk.annotations.NonNull;
 import org.eclipse.dltk.compiler.problem.IProblemCategory;
 import org.eclipse.dltk.compiler.problem.IProblemIdentifier;
+import org.eclipse.dltk.internal.javascript.ti.TypeSystemImpl;
 import org.eclipse.dltk.javascript.typeinfo.IRConstructor;
 import org.eclipse.dltk.javascript.typeinfo.IRMember;
 import org.eclipse.dltk.javascript.typeinfo.IRMethod;
@@ -42,6 +43,7 @@ public class RTypeDeclaration implements IRTypeDeclaration {
 	private List<IRMember> members;
 	private List<IRConstructor> constructors;
 	private IRConstructor staticConstructor;
+	private volatile RTypeMemberIndex memberIndex;
 
 	public RTypeDeclaration(ITypeSystem typeSystem, Type type) {
 		this.typeSystem = typeSystem;
@@ -89,6 +91,19 @@ public class RTypeDeclaration implements IRTypeDeclaration {
 		return members;
 	}
 
+	/**
+	 * Returns the index of the members of this type merged with the members
+	 * of the super types and traits. The index is built on the first call.
+	 */
+	public RTypeMemberIndex getMemberIndex() {
+		RTypeMemberIndex index = memberIndex;
+		if (index == null) {
+			index = new RTypeMemberIndex(this);
+			memberIndex = index;
+		}
+		return index;
+	}
+
 	@Override
 	public int hashCode() {
 		return type.hashCode();
@@ -116,14 +131,17 @@ public class RTypeDeclaration implements IRTypeDeclaration {
 
 	public void setMembers(List<IRMember> members) {
 		this.members = members;
+		this.memberIndex = null;
 	}
 
 	public void setSuperType(RTypeDeclaration superType) {
 		this.superType = superType;
+		this.memberIndex = null;
 	}
 
 	public void setTraits(List<RTypeDeclaration> traits) {
 		this.traits = traits;
+		this.memberIndex = null;
 	}
 
 	public TypeKind getKind() {
@@ -167,6 +185,27 @@ public class RTypeDeclaration implements IRTypeDeclaration {
 	}
 
 	public TypeCompatibility isAssignableFrom(IRTypeDeclaration declaration) {
+		final TypeSystemImpl cache = TypeSystemImpl.getRelationCache(this,
+				declaration);
+		if (cache != null) {
+			final TypeCompatibility cached = cache.getCachedAssignability(
+					this, declaration);
+			if (cached != null) {
+				return cached;
+			}
+		}
+		final TypeCompatibility result = computeAssignableFrom(declaration);
+		if (cache != null) {
+			cache.cacheAssignability(this, declaration, result);
+		}
+		return result;
+	}
+
+	/*
+	 * overridden in RParameterizedTypeDeclaration
+	 */
+	protected TypeCompatibility computeAssignableFrom(
+			IRTypeDeclaration declaration) {
 		final TypeCompatibility result = isAssignableFrom(this,
 				(RTypeDeclaration) declaration, new HashSet<RTypeDeclaration>());
 		return result != null ? result : TypeCompatibility.FALSE;
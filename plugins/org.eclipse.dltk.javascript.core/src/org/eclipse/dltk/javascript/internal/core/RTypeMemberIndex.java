@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation (Alex Panchenko)
+ *******************************************************************************/
+package org.eclipse.dltk.javascript.internal.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.dltk.annotations.Nullable;
+import org.eclipse.dltk.javascript.typeinfo.IRMember;
+import org.eclipse.dltk.javascript.typeinfo.IRTypeDeclaration;
+import org.eclipse.dltk.javascript.typeinfo.MemberPredicate;
+import org.eclipse.dltk.javascript.typeinfo.MemberPredicates;
+import org.eclipse.dltk.javascript.typeinfo.RTypeMemberQuery;
+
+/**
+ * Immutable name index of the members of the type declaration, including the
+ * members inherited from the super types and traits.
+ *
+ * The index is built once from {@link RTypeMemberQuery}, so the members of
+ * each name are kept in the same order as the query returns them: the
+ * overriding members go first.
+ */
+public final class RTypeMemberIndex {
+
+	private static class Entry {
+		/**
+		 * All the members with this name, including overridden ones
+		 */
+		final List<IRMember> all = new ArrayList<IRMember>(2);
+		/**
+		 * Members with this name without duplicates
+		 */
+		final List<IRMember> unique = new ArrayList<IRMember>(2);
+		List<IRMember> uniqueStatic = Collections.emptyList();
+		List<IRMember> uniqueInstance = Collections.emptyList();
+	}
+
+	private final Map<String, Entry> entries;
+
+	RTypeMemberIndex(IRTypeDeclaration declaration) {
+		final Map<String, Entry> map = new HashMap<String, Entry>();
+		for (IRMember member : new RTypeMemberQuery(declaration)) {
+			Entry entry = map.get(member.getName());
+			if (entry == null) {
+				entry = new Entry();
+				map.put(member.getName(), entry);
+			}
+			entry.all.add(member);
+		}
+		for (IRMember member : new RTypeMemberQuery(declaration)
+				.ignoreDuplicates()) {
+			final Entry entry = map.get(member.getName());
+			entry.unique.add(member);
+			if (member.isStatic()) {
+				if (entry.uniqueStatic.isEmpty()) {
+					entry.uniqueStatic = new ArrayList<IRMember>(1);
+				}
+				entry.uniqueStatic.add(member);
+			} else {
+				if (entry.uniqueInstance.isEmpty()) {
+					entry.uniqueInstance = new ArrayList<IRMember>(1);
+				}
+				entry.uniqueInstance.add(member);
+			}
+		}
+		this.entries = map;
+	}
+
+	/**
+	 * Checks if the specified predicate could be answered by this index.
+	 */
+	public static boolean isSupported(MemberPredicate predicate) {
+		return predicate instanceof MemberPredicates;
+	}
+
+	/**
+	 * Returns the members with the specified name matching the predicate,
+	 * skipping the overridden ones, the same as iterating
+	 * {@link RTypeMemberQuery#ignoreDuplicates()}. The returned list should
+	 * not be modified.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the predicate is not {@link #isSupported(MemberPredicate)
+	 *             supported}
+	 */
+	public List<IRMember> findMembers(String name, MemberPredicate predicate) {
+		if (!isSupported(predicate)) {
+			throw new IllegalArgumentException(String.valueOf(predicate));
+		}
+		final Entry entry = entries.get(name);
+		if (entry == null) {
+			return Collections.emptyList();
+		}
+		switch ((MemberPredicates) predicate) {
+		case ALWAYS_TRUE:
+			return entry.unique;
+		case STATIC:
+			return entry.uniqueStatic;
+		case NON_STATIC:
+		case PROTOTYPE:
+			return entry.uniqueInstance;
+		default:
+			throw new IllegalArgumentException(String.valueOf(predicate));
+		}
+	}
+
+	/**
+	 * Returns the first member of the specified class with the specified name
+	 * matching the predicate in the query order, the overridden members are
+	 * considered too.
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	public <T extends IRMember> T findMember(String name,
+			MemberPredicate predicate, Class<T> memberType) {
+		final Entry entry = entries.get(name);
+		if (entry != null) {
+			for (IRMember member : entry.all) {
+				if (memberType.isInstance(member) && predicate.evaluate(member)) {
+					return (T) member;
+				}
+			}
+		}
+		return null;
+	}
+
+}
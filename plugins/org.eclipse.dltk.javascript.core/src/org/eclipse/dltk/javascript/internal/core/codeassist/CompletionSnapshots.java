@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation (Alex Panchenko)
+ *******************************************************************************/
+package org.eclipse.dltk.javascript.internal.core.codeassist;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.dltk.annotations.Nullable;
+import org.eclipse.dltk.ast.ASTNode;
+import org.eclipse.dltk.compiler.env.IModuleSource;
+import org.eclipse.dltk.core.IModelElement;
+import org.eclipse.dltk.internal.javascript.ti.TypeInferencer2;
+import org.eclipse.dltk.internal.javascript.ti.TypeInferencerVisitor;
+import org.eclipse.dltk.javascript.ast.Expression;
+import org.eclipse.dltk.javascript.ast.FunctionStatement;
+import org.eclipse.dltk.javascript.ast.Script;
+import org.eclipse.dltk.javascript.ast.Statement;
+import org.eclipse.dltk.javascript.ast.VoidExpression;
+import org.eclipse.dltk.javascript.parser.JavaScriptParser;
+import org.eclipse.dltk.javascript.typeinference.IValueCollection;
+import org.eclipse.dltk.javascript.typeinference.IValueReference;
+import org.eclipse.dltk.javascript.typeinference.ValueCollectionFactory;
+
+/**
+ * Speculative completion support: the immutable snapshots of the inferred
+ * global state at the start of each top level function declaration, kept as
+ * an attribute of the {@link Script} AST, so they live as long as the current
+ * revision of the source module.
+ *
+ * The snapshots are computed in the background after the first completion
+ * request in the revision, from a private copy of the AST parsed from the same
+ * source, since the inference could modify the shared one. The following
+ * requests with the caret inside of a top level function infer only that
+ * function, starting from its snapshot and with the local types registered
+ * before it. This mode should be enabled explicitly with the
+ * <code>-Dorg.eclipse.dltk.javascript.completion.snapshots=true</code> system
+ * property.
+ */
+public class CompletionSnapshots {
+
+	/**
+	 * Enables the completion from the snapshots.
+	 */
+	static final boolean ENABLED = Boolean
+			.getBoolean("org.eclipse.dltk.javascript.completion.snapshots"); //$NON-NLS-1$
+
+	private static final String ATTR_SNAPSHOTS = CompletionSnapshots.class
+			.getName();
+
+	public static class Snapshot {
+		final int statement;
+		final int start;
+		final int end;
+		final IValueCollection collection;
+		/**
+		 * The local types the values of the {@link #collection} refer to,
+		 * imported by the completion inferencer, so it resolves the same types
+		 * by name.
+		 */
+		final TypeInferencer2.LocalTypes localTypes;
+
+		Snapshot(int statement, int start, int end,
+				IValueCollection collection, TypeInferencer2.LocalTypes localTypes) {
+			this.statement = statement;
+			this.start = start;
+			this.end = end;
+			this.collection = collection;
+			this.localTypes = localTypes;
+		}
+
+		/**
+		 * Continues the inference of the script from this snapshot.
+		 */
+		void infer(TypeInferencer2 inferencer, Script script) {
+			inferencer.importLocalTypes(localTypes);
+			inferencer.doInferencing(script, statement, collection);
+		}
+	}
+
+	private volatile Snapshot[] snapshots;
+
+	private CompletionSnapshots() {
+	}
+
+	/**
+	 * Computes the snapshots of the specified script in the current thread.
+	 */
+	public static CompletionSnapshots compute(Script script,
+			@Nullable IModelElement element) {
+		final CompletionSnapshots result = new CompletionSnapshots();
+		result.computeSnapshots(script, element);
+		return result;
+	}
+
+	/**
+	 * Returns the snapshots of the specified script, scheduling their
+	 * computation if not requested yet. The script is shared by the requests
+	 * of the same revision, so the snapshots are computed from a copy parsed
+	 * from the specified source of the script.
+	 */
+	static synchronized CompletionSnapshots get(Script script,
+			final IModuleSource source) {
+		CompletionSnapshots result = (CompletionSnapshots) script
+				.getAttribute(ATTR_SNAPSHOTS);
+		if (result == null) {
+			result = new CompletionSnapshots();
+			script.setAttribute(ATTR_SNAPSHOTS, result);
+			final CompletionSnapshots snapshots = result;
+			final RevisionSource revision = new RevisionSource(source);
+			final Job job = new Job("Completion snapshots") { //$NON-NLS-1$
+				@Override
+				protected IStatus run(IProgressMonitor monitor) {
+					final Script copy = new JavaScriptParser().parse(revision,
+							null);
+					snapshots.computeSnapshots(copy, revision.element);
+					return Status.OK_STATUS;
+				}
+			};
+			job.setSystem(true);
+			job.setPriority(Job.DECORATE);
+			job.schedule();
+		}
+		return result;
+	}
+
+	/**
+	 * The contents of the source module at the time of the request, the
+	 * snapshot positions must match the AST of the request.
+	 */
+	private static class RevisionSource implements IModuleSource {
+		final String contents;
+		final IModelElement element;
+		final String fileName;
+
+		RevisionSource(IModuleSource source) {
+			this.contents = source.getSourceContents();
+			this.element = source.getModelElement();
+			this.fileName = source.getFileName();
+		}
+
+		public IModelElement getModelElement() {
+			return element;
+		}
+
+		public String getSourceContents() {
+			return contents;
+		}
+
+		public char[] getContentsAsCharArray() {
+			return contents.toCharArray();
+		}
+
+		public String getFileName() {
+			return fileName;
+		}
+	}
+
+	/**
+	 * Returns the snapshot of the top level function containing the specified
+	 * position or <code>null</code> if not available.
+	 */
+	@Nullable
+	public Snapshot find(int position) {
+		final Snapshot[] array = snapshots;
+		if (array == null) {
+			return null;
+		}
+		int low = 0;
+		int high = array.length - 1;
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			final Snapshot snapshot = array[mid];
+			if (position <= snapshot.start) {
+				high = mid - 1;
+			} else if (position >= snapshot.end) {
+				low = mid + 1;
+			} else {
+				return snapshot;
+			}
+		}
+		return null;
+	}
+
+	private void computeSnapshots(Script script, IModelElement element) {
+		final Map<ASTNode, Integer> declarations = new IdentityHashMap<ASTNode, Integer>();
+		final List<Statement> statements = script.getStatements();
+		for (int i = 0; i < statements.size(); ++i) {
+			final Statement statement = statements.get(i);
+			if (statement instanceof VoidExpression) {
+				final Expression expression = ((VoidExpression) statement)
+						.getExpression();
+				if (expression instanceof FunctionStatement
+						&& ((FunctionStatement) expression).isDeclaration()) {
+					declarations.put(statement, i);
+				}
+			}
+		}
+		if (declarations.isEmpty()) {
+			snapshots = new Snapshot[0];
+			return;
+		}
+		final TypeInferencer2 inferencer = new TypeInferencer2();
+		inferencer.setModelElement(element);
+		final SnapshotVisitor visitor = new SnapshotVisitor(inferencer,
+				declarations);
+		inferencer.setVisitor(visitor);
+		inferencer.doInferencing(script);
+		for (Snapshot snapshot : visitor.snapshots) {
+			snapshot.localTypes.resolveAll();
+		}
+		snapshots = visitor.snapshots.toArray(new Snapshot[visitor.snapshots
+				.size()]);
+	}
+
+	private static class SnapshotVisitor extends TypeInferencerVisitor {
+		private final TypeInferencer2 inferencer;
+		private final Map<ASTNode, Integer> declarations;
+		final List<Snapshot> snapshots = new ArrayList<Snapshot>();
+
+		SnapshotVisitor(TypeInferencer2 inferencer,
+				Map<ASTNode, Integer> declarations) {
+			super(inferencer);
+			this.inferencer = inferencer;
+			this.declarations = declarations;
+		}
+
+		@Override
+		public IValueReference visit(ASTNode node) {
+			final Integer index = declarations.get(node);
+			if (index != null) {
+				snapshots.add(new Snapshot(index, node.start(), node.end(),
+						ValueCollectionFactory.makeImmutable(peekContext()),
+						inferencer.exportLocalTypes()));
+			}
+			return super.visit(node);
+		}
+	}
+
+}
@@ -9,7 +9,10 @@
  *******************************************************************************/
 package org.eclipse.dltk.javascript.internal.core.codeassist;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.core.runtime.CoreException;
@@ -35,7 +38,7 @@ public class JavaScriptCallProcessor implements ICallProcessor {
 
 	public Map process(final IModelElement parent, IModelElement element,
 			IDLTKSearchScope scope, IProgressMonitor monitor) {
-		final Map elements = new HashMap();
+		final Map<ISourceModule, List<SearchMatch>> matches = new LinkedHashMap<ISourceModule, List<SearchMatch>>();
 		SearchRequestor requestor = new SearchRequestor() {
 
 			public void acceptSearchMatch(SearchMatch match) {
@@ -52,21 +55,12 @@ public class JavaScriptCallProcessor implements ICallProcessor {
 					IModelElement member = (IModelElement) match.getElement();
 					ISourceModule module = (ISourceModule) member
 							.getAncestor(IModelElement.SOURCE_MODULE);
-					SimpleReference ref = new SimpleReference(
-							match.getOffset(), match.getOffset()
-									+ match.getLength(), "");
-					try {
-						IModelElement[] e = module.codeSelect(
-								match.getOffset(), 1);
-						for (int j = 0; j < e.length; ++j) {
-							if (e[j].equals(parent)) {
-								elements.put(ref, member);
-							}
-						}
-
-					} catch (ModelException e) {
-						e.printStackTrace();
+					List<SearchMatch> list = matches.get(module);
+					if (list == null) {
+						list = new ArrayList<SearchMatch>();
+						matches.put(module, list);
 					}
+					list.add(match);
 				}
 			}
 		};
@@ -82,6 +76,35 @@ public class JavaScriptCallProcessor implements ICallProcessor {
 		} catch (CoreException e) {
 			e.printStackTrace();
 		}
+		final Map elements = new HashMap();
+		for (Map.Entry<ISourceModule, List<SearchMatch>> entry : matches
+				.entrySet()) {
+			final List<SearchMatch> list = entry.getValue();
+			final int[] offsets = new int[list.size()];
+			final int[] lengths = new int[list.size()];
+			for (int i = 0; i < offsets.length; ++i) {
+				offsets[i] = list.get(i).getOffset();
+				lengths[i] = 1;
+			}
+			try {
+				final IModelElement[][] selected = JavaScriptSelectionEngine2
+						.codeSelect(entry.getKey(), offsets, lengths);
+				for (int i = 0; i < offsets.length; ++i) {
+					final SearchMatch match = list.get(i);
+					for (IModelElement e : selected[i]) {
+						if (e.equals(parent)) {
+							elements.put(
+									new SimpleReference(match.getOffset(),
+											match.getOffset()
+													+ match.getLength(), ""),
+									match.getElement());
+						}
+					}
+				}
+			} catch (ModelException e) {
+				e.printStackTrace();
+			}
+		}
 		return elements;
 	}
 }
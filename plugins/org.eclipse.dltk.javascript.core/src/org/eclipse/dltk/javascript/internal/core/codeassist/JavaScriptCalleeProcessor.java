@@ -55,6 +55,8 @@ public class JavaScriptCalleeProcessor implements ICalleeProcessor {
 	private class CaleeSourceElementRequestor extends
 			SourceElementRequestorAdaptor {
 
+		final List<SimpleReference> references = new ArrayList<SimpleReference>();
+
 		@Override
 		public void acceptMethodReference(String methodName, int argCount,
 				int sourcePosition, int sourceEndPosition) {
@@ -67,9 +69,32 @@ public class JavaScriptCalleeProcessor implements ICalleeProcessor {
 			// TODO RMOVE HACK
 			SimpleReference ref = new SimpleReference(off + sourcePosition, off
 					+ sourceEndPosition + 1, methodName);
-			IMethod[] methods = findMethods(methodName, argCount, off
-					+ sourcePosition);
-			fSearchResults.put(ref, methods);
+			references.add(ref);
+		}
+
+		/**
+		 * Resolves all the collected references with the single selection
+		 * request.
+		 */
+		void resolve() {
+			final int[] offsets = new int[references.size()];
+			final int[] lengths = new int[references.size()];
+			for (int i = 0; i < offsets.length; ++i) {
+				final SimpleReference ref = references.get(i);
+				offsets[i] = ref.sourceStart();
+				lengths[i] = ref.getName().length();
+			}
+			final IModelElement[][] selected;
+			try {
+				selected = JavaScriptSelectionEngine2.codeSelect(
+						method.getSourceModule(), offsets, lengths);
+			} catch (ModelException e) {
+				DLTKCore.error("Error finding methods elements: " + method, e);
+				return;
+			}
+			for (int i = 0; i < offsets.length; ++i) {
+				fSearchResults.put(references.get(i), toMethods(selected[i]));
+			}
 		}
 
 	}
@@ -84,6 +109,7 @@ public class JavaScriptCalleeProcessor implements ICalleeProcessor {
 					.getSourceElementParser(JavaScriptNature.NATURE_ID);
 			parser.setRequestor(requestor);
 			parser.parseSourceModule(new ModuleSource(methodSource));
+			requestor.resolve();
 			return fSearchResults;
 		} catch (ModelException e) {
 			DLTKCore.error("Error parsing methods source: " + method, e);
@@ -93,16 +119,10 @@ public class JavaScriptCalleeProcessor implements ICalleeProcessor {
 
 	public IMethod[] findMethods(final String methodName, int argCount,
 			int sourcePosition) {
-		final List methods = new ArrayList();
 		ISourceModule module = this.method.getSourceModule();
 		try {
-			IModelElement[] elements = module.codeSelect(sourcePosition,
-					methodName.length());
-			for (int i = 0; i < elements.length; ++i) {
-				if (elements[i] instanceof IMethod) {
-					methods.add(elements[i]);
-				}
-			}
+			return toMethods(module.codeSelect(sourcePosition,
+					methodName.length()));
 		} catch (ModelException e) {
 			DLTKCore.error("Error finding methods elements: " + method, e);
 		}
@@ -177,7 +197,17 @@ public class JavaScriptCalleeProcessor implements ICalleeProcessor {
 		// e.printStackTrace();
 		// }
 
-		return (IMethod[]) methods.toArray(new IMethod[methods.size()]);
+		return new IMethod[0];
+	}
+
+	private static IMethod[] toMethods(IModelElement[] elements) {
+		final List<IMethod> methods = new ArrayList<IMethod>();
+		for (int i = 0; i < elements.length; ++i) {
+			if (elements[i] instanceof IMethod) {
+				methods.add((IMethod) elements[i]);
+			}
+		}
+		return methods.toArray(new IMethod[methods.size()]);
 	}
 
 	protected void search(String patternString, int searchFor, int limitTo,
@@ -83,6 +83,7 @@ public class JavaScriptCompletionEngine2 extends ScriptCompletionEngine
 		implements JSCompletionEngine {
 
 	private int globalOptions = JSCompletionEngine.OPTION_ALL;
+	private CompletionSnapshots snapshots;
 
 	public int getGlobalOptions() {
 		return globalOptions;
@@ -92,6 +93,16 @@ public class JavaScriptCompletionEngine2 extends ScriptCompletionEngine
 		this.globalOptions = value;
 	}
 
+	/**
+	 * Sets the snapshots to complete from instead of the ones of the current
+	 * revision of the source module (available only if
+	 * {@link CompletionSnapshots#ENABLED enabled}), e.g. to compare the
+	 * results with the full inference.
+	 */
+	public void setSnapshots(CompletionSnapshots snapshots) {
+		this.snapshots = snapshots;
+	}
+
 	public void complete(final IModuleSource cu, final int position, int i) {
 		this.requestor.beginReporting();
 		final String content = cu.getSourceContents();
@@ -118,8 +129,19 @@ public class JavaScriptCompletionEngine2 extends ScriptCompletionEngine
 			inferencer2
 					.setModelElement((org.eclipse.dltk.core.ISourceModule) cu);
 		}
+		CompletionSnapshots snapshots = this.snapshots;
+		if (snapshots == null && CompletionSnapshots.ENABLED
+				&& cu.getModelElement() instanceof ISourceModule) {
+			snapshots = CompletionSnapshots.get(script, cu);
+		}
+		final CompletionSnapshots.Snapshot snapshot = snapshots != null ? snapshots
+				.find(position) : null;
 		try {
-			inferencer2.doInferencing(script);
+			if (snapshot != null) {
+				snapshot.infer(inferencer2, script);
+			} else {
+				inferencer2.doInferencing(script);
+			}
 		} catch (PositionReachedException e) {
 			// e.printStackTrace();
 		}
@@ -12,11 +12,15 @@
 package org.eclipse.dltk.javascript.internal.core.codeassist;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
+import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.dltk.annotations.Nullable;
 import org.eclipse.dltk.ast.ASTNode;
@@ -174,7 +178,8 @@ public class JavaScriptSelectionEngine2 extends ScriptSelectionEngine {
 				}
 				ITypeSystem.CURRENT.runWith(inferencer2, new Runnable() {
 					public void run() {
-						toModelElements(inferencer2, visitor, module, value);
+						toModelElements(inferencer2, visitor.getArguments(),
+								module, value);
 					}
 				});
 				return null;
@@ -237,6 +242,162 @@ public class JavaScriptSelectionEngine2 extends ScriptSelectionEngine {
 		return null;
 	}
 
+	private static final IModelElement[] NO_ELEMENTS = new IModelElement[0];
+
+	/**
+	 * The model elements reported by the current batch selection or
+	 * <code>null</code> if the elements are reported to the requestor.
+	 */
+	@Nullable
+	private List<IModelElement> collected;
+
+	private void report(IModelElement element) {
+		if (collected != null) {
+			collected.add(element);
+		} else {
+			reportElement(element);
+		}
+	}
+
+	private void report(Object element, ISourceRange range) {
+		if (collected != null) {
+			if (element instanceof IModelElement) {
+				collected.add((IModelElement) element);
+			}
+		} else {
+			reportElement(element, range);
+		}
+	}
+
+	/**
+	 * Selects the model elements at the multiple positions of the same module,
+	 * the module is parsed and inferred only once for all of them. The
+	 * elements not representable as {@link IModelElement} are not returned.
+	 * 
+	 * @param module
+	 *            the source module
+	 * @param offsets
+	 *            the start offsets of the selections
+	 * @param lengths
+	 *            the lengths of the selections
+	 * @return the elements at each of the positions, in the same order as
+	 *         the offsets, an empty array if nothing is selected
+	 */
+	public IModelElement[][] select(final IModuleSource module, int[] offsets,
+			int[] lengths) {
+		Assert.isLegal(offsets.length == lengths.length);
+		final IModelElement[][] result = new IModelElement[offsets.length][];
+		Arrays.fill(result, NO_ELEMENTS);
+		if (!(module.getModelElement() instanceof ISourceModule)) {
+			return result;
+		}
+		final int contentLength = module.getSourceContents().length();
+		final Script script = JavaScriptParserUtil.parse(module, null);
+		final ASTNode[] targets = new ASTNode[offsets.length];
+		boolean inferenceRequired = false;
+		for (int i = 0; i < offsets.length; ++i) {
+			if (offsets[i] < 0 || offsets[i] > contentLength
+					|| lengths[i] < 0) {
+				continue;
+			}
+			final NodeFinder finder = new NodeFinder(offsets[i], offsets[i]
+					+ lengths[i]);
+			finder.locate(script);
+			final ASTNode node = finder.getNode();
+			if (node instanceof Identifier
+					|| isStringLiteralInObjectLiteral(node)) {
+				targets[i] = node;
+				inferenceRequired = true;
+			} else if (node != null) {
+				result[i] = selectOne(module, offsets[i], lengths[i]);
+			}
+		}
+		if (!inferenceRequired) {
+			return result;
+		}
+		final TypeInferencer2 inferencer2 = new TypeInferencer2();
+		final MultiSelectionVisitor visitor = new MultiSelectionVisitor(
+				inferencer2, targets);
+		inferencer2.setVisitor(visitor);
+		inferencer2.setModelElement(module.getModelElement());
+		inferencer2.doInferencing(script);
+		final Map<ASTNode, IModelElement[]> resolved = new IdentityHashMap<ASTNode, IModelElement[]>();
+		for (int i = 0; i < targets.length; ++i) {
+			final ASTNode target = targets[i];
+			if (target == null) {
+				continue;
+			}
+			IModelElement[] elements = resolved.get(target);
+			if (elements == null) {
+				final IValueReference value = visitor.getValue(i);
+				elements = NO_ELEMENTS;
+				if (value != null) {
+					final IValueReference[] arguments = visitor
+							.getArguments(i);
+					final List<IModelElement> list = new ArrayList<IModelElement>();
+					collected = list;
+					try {
+						ITypeSystem.CURRENT.runWith(inferencer2,
+								new Runnable() {
+									public void run() {
+										toModelElements(inferencer2,
+												arguments, module, value);
+									}
+								});
+					} finally {
+						collected = null;
+					}
+					if (!list.isEmpty()) {
+						elements = list.toArray(new IModelElement[list.size()]);
+					}
+				}
+				resolved.put(target, elements);
+			}
+			result[i] = elements;
+		}
+		return result;
+	}
+
+	private IModelElement[] selectOne(IModuleSource module, int offset,
+			int length) {
+		final List<IModelElement> list = new ArrayList<IModelElement>();
+		collected = list;
+		try {
+			final IModelElement[] elements = select(module, offset, offset
+					+ length - 1);
+			if (elements != null) {
+				Collections.addAll(list, elements);
+			}
+		} finally {
+			collected = null;
+		}
+		return list.isEmpty() ? NO_ELEMENTS : list.toArray(new IModelElement[list
+				.size()]);
+	}
+
+	/**
+	 * Selects the model elements at the multiple positions of the module,
+	 * with the single inference if the module is a {@link IModuleSource} and
+	 * with the separate {@link ISourceModule#codeSelect(int, int)} calls
+	 * otherwise.
+	 * 
+	 * @see #select(IModuleSource, int[], int[])
+	 */
+	public static IModelElement[][] codeSelect(ISourceModule module,
+			int[] offsets, int[] lengths) throws ModelException {
+		if (module instanceof IModuleSource) {
+			return new JavaScriptSelectionEngine2().select(
+					(IModuleSource) module, offsets, lengths);
+		}
+		final IModelElement[][] result = new IModelElement[offsets.length][];
+		for (int i = 0; i < offsets.length; ++i) {
+			final IModelElement[] elements = module.codeSelect(offsets[i],
+					lengths[i]);
+			result[i] = elements != null ? elements : NO_ELEMENTS;
+		}
+		return result;
+	}
+
 	private void findTypeInTypeExpression(IModuleSource module, JSDocTag tag,
 			TypedElementNode node, int valueOffset) {
 		final ISourceModule m = (ISourceModule) module.getModelElement();
@@ -273,7 +434,7 @@ public class JavaScriptSelectionEngine2 extends ScriptSelectionEngine {
 	}
 
 	private void toModelElements(TypeInferencer2 inferencer2,
-			SelectionVisitor visitor, IModuleSource module,
+			@Nullable IValueReference[] arguments, IModuleSource module,
 			IValueReference value) {
 		final ReferenceKind kind = value.getKind();
 		if (DEBUG) {
@@ -292,11 +453,11 @@ public class JavaScriptSelectionEngine2 extends ScriptSelectionEngine {
 			if (result != null
 					&& (result.getElementType() == IModelElement.FIELD || result
 							.getElementType() == IModelElement.METHOD)) {
-				reportElement(result);
+				report(result);
 				return;
 			}
 			final IRType type = JavaScriptValidations.typeOf(value);
-			reportElement(new LocalVariable(m, value.getName(),
+			report(new LocalVariable(m, value.getName(),
 					location.getDeclarationStart(),
 					location.getDeclarationEnd(), location.getNameStart(),
 					location.getNameEnd() - 1, type == null ? null
@@ -309,7 +470,7 @@ public class JavaScriptSelectionEngine2 extends ScriptSelectionEngine {
 			}
 			final IModelElement result = locateModelElement(location);
 			if (result != null) {
-				reportElement(result);
+				report(result);
 				return;
 			}
 		} else if (kind == ReferenceKind.PROPERTY) {
@@ -321,14 +482,13 @@ public class JavaScriptSelectionEngine2 extends ScriptSelectionEngine {
 			}
 			final IModelElement result = locateModelElement(location);
 			if (result != null) {
-				reportElement(result);
+				report(result);
 				return;
 			}
 		} else if (kind == ReferenceKind.METHOD) {
 			final List<IRMethod> methods = ValueReferenceUtil.extractElements(
 					value, IRMethod.class);
 			if (methods != null) {
-				IValueReference[] arguments = visitor.getArguments();
 				if (arguments == null) {
 					arguments = new IValueReference[0];
 				}
@@ -357,7 +517,7 @@ public class JavaScriptSelectionEngine2 extends ScriptSelectionEngine {
 		}
 		if (location != ReferenceLocation.UNKNOWN
 				&& location.getSourceModule() != null) {
-			reportElement(new UnresolvedElement(location.getSourceModule(),
+			report(new UnresolvedElement(location.getSourceModule(),
 					value.getName(), location.getNameStart(),
 					location.getNameEnd() - 1));
 			return;
@@ -381,7 +541,7 @@ public class JavaScriptSelectionEngine2 extends ScriptSelectionEngine {
 			ISourceRange range) {
 		try {
 			final IModelElement me = convert(module, element);
-			reportElement(me != null ? me : element, range);
+			report(me != null ? me : element, range);
 		} catch (ModelException e) {
 			//
 		}
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation (Alex Panchenko)
+ *******************************************************************************/
+package org.eclipse.dltk.javascript.internal.core.codeassist;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.dltk.ast.ASTNode;
+import org.eclipse.dltk.internal.javascript.ti.ITypeInferenceContext;
+import org.eclipse.dltk.internal.javascript.ti.TypeInferencerVisitor;
+import org.eclipse.dltk.javascript.ast.Argument;
+import org.eclipse.dltk.javascript.ast.CallExpression;
+import org.eclipse.dltk.javascript.ast.Expression;
+import org.eclipse.dltk.javascript.ast.FunctionStatement;
+import org.eclipse.dltk.javascript.ast.Identifier;
+import org.eclipse.dltk.javascript.ast.VariableDeclaration;
+import org.eclipse.dltk.javascript.typeinference.IValueCollection;
+import org.eclipse.dltk.javascript.typeinference.IValueReference;
+import org.eclipse.dltk.javascript.typeinference.ReferenceKind;
+
+/**
+ * The {@link SelectionVisitor} for the multiple target nodes, collecting the
+ * value of each of them during the single inference of the script.
+ *
+ * The value of the target is updated the same way as the
+ * {@link SelectionVisitor} does before the early exit: the first known value
+ * wins, the unknown ones are replaced by the following occurrences.
+ */
+public class MultiSelectionVisitor extends TypeInferencerVisitor {
+
+	private final Map<ASTNode, Integer> targets = new IdentityHashMap<ASTNode, Integer>();
+	private final IValueReference[] values;
+	private final IValueReference[][] arguments;
+	private final boolean[] resolved;
+	private int lastResolved = -1;
+
+	public MultiSelectionVisitor(ITypeInferenceContext context,
+			ASTNode[] targets) {
+		super(context);
+		for (int i = 0; i < targets.length; ++i) {
+			if (targets[i] != null && !this.targets.containsKey(targets[i])) {
+				this.targets.put(targets[i], i);
+			}
+		}
+		this.values = new IValueReference[targets.length];
+		this.arguments = new IValueReference[targets.length][];
+		this.resolved = new boolean[targets.length];
+	}
+
+	/**
+	 * Returns the value of the target with the specified index, if the same
+	 * node was specified several times - only the first index is filled.
+	 */
+	public IValueReference getValue(int index) {
+		return values[index];
+	}
+
+	public IValueReference[] getArguments(int index) {
+		return arguments[index];
+	}
+
+	private IValueReference check(ASTNode node, IValueReference value) {
+		final Integer index = targets.get(node);
+		if (index != null && !resolved[index]) {
+			values[index] = value;
+			if (value == null || value.getKind() != ReferenceKind.UNKNOWN) {
+				resolved[index] = true;
+				lastResolved = index;
+			}
+		}
+		return value;
+	}
+
+	@Override
+	public IValueReference visit(ASTNode node) {
+		return check(node, super.visit(node));
+	}
+
+	@Override
+	public IValueReference visitCallExpression(CallExpression node) {
+		final int saved = lastResolved;
+		lastResolved = -1;
+		final IValueReference reference = visit(node.getExpression());
+		final int hit = lastResolved;
+		final List<ASTNode> callArgs = node.getArguments();
+		final IValueReference[] arguments = new IValueReference[callArgs
+				.size()];
+		for (int i = 0, size = callArgs.size(); i < size; ++i) {
+			arguments[i] = visit(callArgs.get(i));
+		}
+		if (hit >= 0 && this.arguments[hit] == null) {
+			this.arguments[hit] = arguments;
+		}
+		lastResolved = hit >= 0 ? hit : saved;
+		if (reference != null) {
+			return reference.getChild(IValueReference.FUNCTION_OP);
+		} else {
+			return null;
+		}
+	}
+
+	@Override
+	protected IValueReference extractNamedChild(IValueReference parent,
+			Expression name) {
+		return check(name, super.extractNamedChild(parent, name));
+	}
+
+	@Override
+	public void visitFunctionBody(FunctionStatement node) {
+		for (Argument argument : node.getArguments()) {
+			check(argument.getIdentifier(),
+					peekContext().getChild(argument.getArgumentName()));
+		}
+		super.visitFunctionBody(node);
+	}
+
+	@Override
+	protected IValueReference createVariable(IValueCollection context,
+			VariableDeclaration declaration) {
+		return check(declaration.getIdentifier(),
+				super.createVariable(context, declaration));
+	}
+
+	@Override
+	public IValueReference visitFunctionStatement(FunctionStatement node) {
+		final IValueReference fs = super.visitFunctionStatement(node);
+		final Identifier name = node.getName();
+		if (name != null)
+			visit(name);
+		return fs;
+	}
+
+}
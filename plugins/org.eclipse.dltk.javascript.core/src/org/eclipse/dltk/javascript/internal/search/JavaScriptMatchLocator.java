@@ -94,7 +94,12 @@ public class JavaScriptMatchLocator implements IMatchLocator,
 				resolvePotentialMatches(predicate);
 				participant = document.getParticipant();
 				// report matches according to the module structure
-				module.accept(this);
+				nodeSet.sortMatchingNodes();
+				try {
+					module.accept(this);
+				} finally {
+					nodeSet.clearSortedNodes();
+				}
 				// report remaining matches - the ones at the module level
 				for (MatchingNode matchingNode : nodeSet.matchingNodes()) {
 					final MatchLevel level = nodeSet
@@ -140,7 +145,7 @@ public class JavaScriptMatchLocator implements IMatchLocator,
 			final ISourceRange range = ((ISourceReference) element)
 					.getSourceRange();
 			// TODO (alex) also capture nodes covered by member JSDoc
-			List<MatchingNode> matchingNodes = nodeSet.matchingNodes(
+			List<MatchingNode> matchingNodes = nodeSet.matchingNodesInRange(
 					range.getOffset(), range.getOffset() + range.getLength());
 			for (MatchingNode node : matchingNodes) {
 				final MatchLevel level = nodeSet.removeTrustedMatch(node);
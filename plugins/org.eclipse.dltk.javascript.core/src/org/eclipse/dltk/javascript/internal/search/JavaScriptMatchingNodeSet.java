@@ -11,6 +11,11 @@
  *******************************************************************************/
 package org.eclipse.dltk.javascript.internal.search;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
 import org.eclipse.dltk.core.search.matching2.MatchingNodeSet;
 
 public class JavaScriptMatchingNodeSet extends MatchingNodeSet<MatchingNode> {
@@ -29,4 +34,64 @@ public class JavaScriptMatchingNodeSet extends MatchingNodeSet<MatchingNode> {
 		return o1.sourceStart() - o2.sourceStart();
 	}
 
+	private static final Comparator<MatchingNode> BY_START = new Comparator<MatchingNode>() {
+		public int compare(MatchingNode o1, MatchingNode o2) {
+			return o1.sourceStart() - o2.sourceStart();
+		}
+	};
+
+	private MatchingNode[] sortedNodes;
+
+	/**
+	 * Takes the snapshot of the current matching nodes sorted by their
+	 * positions, to answer the following
+	 * {@link #matchingNodesInRange(int, int)} queries with the binary search
+	 * instead of checking all the nodes.
+	 */
+	public void sortMatchingNodes() {
+		final List<MatchingNode> nodes = new ArrayList<MatchingNode>();
+		for (MatchingNode node : matchingNodes()) {
+			nodes.add(node);
+		}
+		sortedNodes = nodes.toArray(new MatchingNode[nodes.size()]);
+		Arrays.sort(sortedNodes, BY_START);
+	}
+
+	/**
+	 * Returns the nodes of the last {@link #sortMatchingNodes()} snapshot
+	 * which are inside of the specified range, in the order of their
+	 * positions. The nodes removed from this set after the snapshot was taken
+	 * are returned too.
+	 */
+	public List<MatchingNode> matchingNodesInRange(int start, int end) {
+		final MatchingNode[] nodes = sortedNodes;
+		if (nodes == null) {
+			return matchingNodes(start, end);
+		}
+		int low = 0;
+		int high = nodes.length;
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (nodes[mid].sourceStart() < start) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		final List<MatchingNode> result = new ArrayList<MatchingNode>();
+		for (int i = low; i < nodes.length && nodes[i].sourceStart() <= end; ++i) {
+			if (checkRange(nodes[i], start, end)) {
+				result.add(nodes[i]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Discards the snapshot taken by {@link #sortMatchingNodes()}.
+	 */
+	public void clearSortedNodes() {
+		sortedNodes = null;
+	}
+
 }
@@ -13,12 +13,12 @@ package org.eclipse.dltk.javascript.typeinfo;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 import org.eclipse.dltk.annotations.Nullable;
+import org.eclipse.dltk.internal.javascript.ti.TypeSystemImpl;
 import org.eclipse.dltk.javascript.typeinference.ReferenceLocation;
 
 /**
@@ -228,33 +228,48 @@ public class CommonSuperTypeFinder {
 		} else if (declarations.size() == 1) {
 			return declarations.get(0);
 		}
-		// initial hierarchy based on the 0th type
+		IRTypeDeclaration result = declarations.get(0);
+		for (int i = 1; i < declarations.size(); ++i) {
+			result = leastCommonSuperType(result, declarations.get(i));
+			if (result == null) { // no common type found
+				// TODO (alex) check mixed java/javascript case
+				return RTypes.OBJECT.getDeclaration();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the least common super type of the 2 declarations or
+	 * <code>null</code>. The results are cached by the type system, see
+	 * {@link TypeSystemImpl#getRelationCache(IRTypeDeclaration, IRTypeDeclaration)}
+	 */
+	@Nullable
+	private static IRTypeDeclaration leastCommonSuperType(IRTypeDeclaration a,
+			IRTypeDeclaration b) {
+		final TypeSystemImpl cache = TypeSystemImpl.getRelationCache(a, b);
+		if (cache != null) {
+			final IRTypeDeclaration cached = cache.getCachedCommonSuperType(a,
+					b);
+			if (cached != null) {
+				return cached;
+			}
+		}
 		final List<IRTypeDeclaration> hierarchy = new ArrayList<IRTypeDeclaration>();
-		for (IRTypeDeclaration d = declarations.get(0);;) {
+		for (IRTypeDeclaration d = a; d != null; d = d.getSuperType()) {
 			hierarchy.add(d);
-			d = d.getSuperType();
-			if (d == null)
-				break;
 		}
-		Collections.reverse(hierarchy);
-		// handle others starting from the 1st type
-		for (int i = 1; i < declarations.size(); ++i) {
-			for (IRTypeDeclaration declaration = declarations.get(i);;) {
-				final int index = hierarchy.lastIndexOf(declaration);
-				if (index >= 0) { // common type found, remove the tail
-					for (int j = hierarchy.size(); --j > index;) {
-						hierarchy.remove(j);
-					}
-					break; // ... and handle the next type
-				}
-				declaration = declaration.getSuperType();
-				if (declaration == null) { // no common type found
-					// TODO (alex) check mixed java/javascript case
-					return RTypes.OBJECT.getDeclaration();
+		for (IRTypeDeclaration d = b; d != null; d = d.getSuperType()) {
+			final int index = hierarchy.indexOf(d);
+			if (index >= 0) {
+				final IRTypeDeclaration result = hierarchy.get(index);
+				if (cache != null) {
+					cache.cacheCommonSuperType(a, b, result);
 				}
+				return result;
 			}
 		}
-		return hierarchy.get(hierarchy.size() - 1);
+		return null;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation (Alex Panchenko)
+ *******************************************************************************/
+package org.eclipse.dltk.javascript.typeinfo;
+
+/**
+ * The names contributed by the {@link INameContributor}. The changes are
+ * visible to the following requests, the methods could be called from any
+ * thread.
+ * 
+ * @since 5.1
+ */
+public interface IContributedNames {
+
+	void addType(TypeMode mode, String name);
+
+	void removeType(TypeMode mode, String name);
+
+	void addGlobal(String name);
+
+	void removeGlobal(String name);
+
+}
@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation (Alex Panchenko)
+ *******************************************************************************/
+package org.eclipse.dltk.javascript.typeinfo;
+
+/**
+ * Optional interface of the {@link ITypeProvider} and {@link IElementResolver}
+ * implementations, which type and global names do not depend on the context.
+ * Such names are contributed once to the shared index, instead of calling
+ * {@link ITypeProvider#listTypes(ITypeInfoContext, TypeMode, String)} or
+ * {@link IElementResolver#listGlobals(ITypeInfoContext, String)} on each
+ * request. The contributed names of a type provider are listed only in the
+ * contexts the provider is initialized for.
+ * 
+ * @since 5.1
+ */
+public interface INameContributor {
+
+	/**
+	 * Adds the names to the specified index. Called once for each
+	 * implementation class, the index could be kept to update the names later.
+	 * The names are matched by case sensitive prefix.
+	 */
+	void contributeNames(IContributedNames names);
+
+}
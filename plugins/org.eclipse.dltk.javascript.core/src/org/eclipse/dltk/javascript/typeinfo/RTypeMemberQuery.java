@@ -20,6 +20,8 @@ import java.util.List;
 import java.util.Set;
 
 import org.eclipse.core.runtime.Assert;
+import org.eclipse.dltk.javascript.internal.core.RTypeDeclaration;
+import org.eclipse.dltk.javascript.internal.core.RTypeMemberIndex;
 import org.eclipse.dltk.javascript.typeinfo.model.TypeKind;
 import org.eclipse.dltk.utils.CompoundIterator;
 
@@ -400,6 +402,11 @@ public class RTypeMemberQuery implements Iterable<IRMember> {
 	 * <code>null</code> otherwise.
 	 */
 	public IRMember findMember(String memberName) {
+		final QueueItem indexed = getIndexedItem();
+		if (indexed != null) {
+			return ((RTypeDeclaration) indexed.type).getMemberIndex()
+					.findMember(memberName, indexed.predicate, IRMember.class);
+		}
 		for (IRMember member : this) {
 			if (memberName.equals(member.getName())) {
 				return member;
@@ -415,6 +422,11 @@ public class RTypeMemberQuery implements Iterable<IRMember> {
 	@SuppressWarnings("unchecked")
 	protected <T extends IRMember> T findMember(String memberName,
 			Class<T> memberType) {
+		final QueueItem indexed = getIndexedItem();
+		if (indexed != null) {
+			return ((RTypeDeclaration) indexed.type).getMemberIndex()
+					.findMember(memberName, indexed.predicate, memberType);
+		}
 		for (IRMember member : this) {
 			if (memberType.isInstance(member)
 					&& memberName.equals(member.getName())) {
@@ -438,6 +450,22 @@ public class RTypeMemberQuery implements Iterable<IRMember> {
 		return findMember(propertyName, IRProperty.class);
 	}
 
+	/**
+	 * Returns the single item of this query if the lookups could be answered
+	 * by the {@link RTypeMemberIndex} of its type, <code>null</code> otherwise.
+	 * Subclasses may filter the types, so they always iterate.
+	 */
+	private QueueItem getIndexedItem() {
+		if (types.size() == 1 && getClass() == RTypeMemberQuery.class) {
+			final QueueItem item = types.get(0);
+			if (item.type instanceof RTypeDeclaration
+					&& RTypeMemberIndex.isSupported(item.predicate)) {
+				return item;
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Checks if this query contains the specified type.
 	 */
@@ -11,10 +11,8 @@
  *******************************************************************************/
 package org.eclipse.dltk.javascript.typeinfo.model;
 
-import java.util.HashSet;
 import java.util.Set;
 
-import org.eclipse.dltk.compiler.CharOperation;
 import org.eclipse.dltk.javascript.typeinfo.TypeInfoManager;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EObject;
@@ -103,18 +101,7 @@ public class TypeInfoModelLoader {
 	 * @since 3.0
 	 */
 	public Set<Member> listMembers(String prefix) {
-		Set<Member> result = new HashSet<Member>();
-		for (Resource resource : getResources()) {
-			for (EObject object : resource.getContents()) {
-				if (object instanceof Member) {
-					final Member member = (Member) object;
-					if (CharOperation.prefixEquals(prefix, member.getName())) {
-						result.add(member);
-					}
-				}
-			}
-		}
-		return result;
+		return resourceSet.listMembers(prefix);
 	}
 
 	public boolean hasResource(Resource resource) {
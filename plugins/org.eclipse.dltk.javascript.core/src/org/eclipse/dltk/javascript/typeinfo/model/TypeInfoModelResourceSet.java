@@ -11,22 +11,32 @@
  *******************************************************************************/
 package org.eclipse.dltk.javascript.typeinfo.model;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
-import org.eclipse.dltk.compiler.CharOperation;
+import org.eclipse.dltk.internal.javascript.ti.NameIndex;
 import org.eclipse.dltk.javascript.typeinfo.TypeUtil;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 
 public class TypeInfoModelResourceSet extends ResourceSetImpl {
 
 	public TypeInfoModelResourceSet() {
 		setURIResourceMap(new HashMap<URI, Resource>());
+		eAdapters().add(updater);
 	}
 
 	@Override
@@ -91,40 +101,258 @@ public class TypeInfoModelResourceSet extends ResourceSetImpl {
 		return null;
 	}
 
-	public Set<String> listTypes(String prefix) {
-		Set<String> result = new HashSet<String>();
-		for (Resource resource : resources()) {
-			for (EObject object : resource.getContents()) {
-				if (object instanceof Type) {
-					final Type type = (Type) object;
-					if (type.isVisible()
-							&& CharOperation.prefixEquals(prefix,
-									type.getName())) {
-						result.add(type.getName());
+	/**
+	 * The top level types by name, including the hidden ones, since
+	 * {@link Type#isVisible()} is checked when listing.
+	 */
+	private final NameIndex<Type> types = new NameIndex<Type>();
+	private final NameIndex<TypeLiteral> typeLiterals = new NameIndex<TypeLiteral>();
+	private final NameIndex<Member> members = new NameIndex<Member>();
+
+	/**
+	 * The name each top level object is currently indexed with.
+	 */
+	private final Map<EObject, Indexed> indexed = new HashMap<EObject, Indexed>();
+
+	/**
+	 * The type literals without own name, indexed with the name of the target
+	 * type, so they are updated when a type is renamed.
+	 */
+	private final Set<TypeLiteral> unnamedLiterals = new HashSet<TypeLiteral>();
+
+	/**
+	 * The objects to (re)index, collected by the notifications and processed
+	 * before the next lookup, so the notifications do not resolve the literal
+	 * targets.
+	 */
+	private final Set<EObject> pending = new LinkedHashSet<EObject>();
+
+	private static class Indexed {
+		final Resource resource;
+		final String name;
+
+		Indexed(Resource resource, String name) {
+			this.resource = resource;
+			this.name = name;
+		}
+	}
+
+	/**
+	 * Updates the indexes in place on changes of the resources, their contents
+	 * and the names of the top level objects. Attached to the resource set,
+	 * its resources and the top level objects.
+	 */
+	private class IndexUpdater extends AdapterImpl {
+		@Override
+		public void notifyChanged(Notification msg) {
+			final int eventType = msg.getEventType();
+			if (eventType == Notification.RESOLVE
+					|| eventType == Notification.REMOVING_ADAPTER) {
+				return;
+			}
+			final Object notifier = msg.getNotifier();
+			if (notifier == TypeInfoModelResourceSet.this) {
+				if (msg.getFeatureID(ResourceSet.class) == RESOURCE_SET__RESOURCES) {
+					for (Object value : values(msg)) {
+						if (value instanceof Resource) {
+							resourceChanged((Resource) value);
+						}
+					}
+				}
+			} else if (notifier instanceof Resource) {
+				final int featureID = msg.getFeatureID(Resource.class);
+				if (featureID == Resource.RESOURCE__CONTENTS) {
+					for (Object value : values(msg)) {
+						if (value instanceof EObject) {
+							objectChanged((EObject) value);
+						}
+					}
+				} else if (featureID == Resource.RESOURCE__IS_LOADED) {
+					resourceChanged((Resource) notifier);
+				}
+			} else if (notifier instanceof TypeLiteral) {
+				final Object feature = msg.getFeature();
+				if (feature == TypeInfoModelPackage.Literals.TYPE_LITERAL__NAME
+						|| feature == TypeInfoModelPackage.Literals.TYPE_LITERAL__TARGET) {
+					objectChanged((EObject) notifier);
+				}
+			} else if (notifier instanceof EObject) {
+				if (msg.getFeature() == TypeInfoModelPackage.Literals.NAMED_ELEMENT__NAME) {
+					objectChanged((EObject) notifier);
+					if (notifier instanceof Type) {
+						synchronized (pending) {
+							pending.addAll(unnamedLiterals);
+						}
 					}
 				}
 			}
 		}
-		return result;
-	}
 
-	public Set<String> listTypeLiterals(String prefix) {
-		Set<String> result = new HashSet<String>();
-		for (Resource resource : resources()) {
-			for (EObject object : resource.getContents()) {
-				if (object instanceof TypeLiteral) {
-					final TypeLiteral literal = (TypeLiteral) object;
-					final Type type = literal.getTarget();
-					if (type == null)
-						continue;
-					final String name = literal.getName() != null ? literal
-							.getName() : type.getName();
-					if (CharOperation.prefixEquals(prefix, name)) {
-						result.add(name);
+		private Collection<?> values(Notification msg) {
+			final List<Object> values = new ArrayList<Object>();
+			addValue(values, msg.getOldValue());
+			addValue(values, msg.getNewValue());
+			return values;
+		}
+
+		private void addValue(List<Object> values, Object value) {
+			if (value instanceof Collection<?>) {
+				values.addAll((Collection<?>) value);
+			} else if (value != null) {
+				values.add(value);
+			}
+		}
+
+		void observe(Notifier notifier) {
+			if (!notifier.eAdapters().contains(this)) {
+				notifier.eAdapters().add(this);
+			}
+		}
+
+		void unobserve(Notifier notifier) {
+			notifier.eAdapters().remove(this);
+		}
+
+		/**
+		 * Queues the contents of the resource and the objects previously
+		 * indexed from it, since the contents are not notified on unload.
+		 */
+		private void resourceChanged(Resource resource) {
+			final boolean contained = resource.getResourceSet() == TypeInfoModelResourceSet.this;
+			if (contained) {
+				observe(resource);
+			} else {
+				unobserve(resource);
+			}
+			final EList<EObject> contents = resource.getContents();
+			final EObject[] objects = contents.toArray(new EObject[contents
+					.size()]);
+			synchronized (pending) {
+				for (EObject object : objects) {
+					if (contained) {
+						observe(object);
 					}
+					pending.add(object);
+				}
+				for (Map.Entry<EObject, Indexed> entry : indexed.entrySet()) {
+					if (entry.getValue().resource == resource) {
+						pending.add(entry.getKey());
+					}
+				}
+			}
+		}
+
+		private void objectChanged(EObject object) {
+			if (object instanceof Type || object instanceof TypeLiteral
+					|| object instanceof Member) {
+				observe(object);
+				synchronized (pending) {
+					pending.add(object);
 				}
 			}
 		}
+	}
+
+	/**
+	 * Processes the pending changes. Resolving the literal targets could load
+	 * other resources and queue more changes, so it repeats until nothing is
+	 * left.
+	 */
+	private void updateIndex() {
+		synchronized (pending) {
+			while (!pending.isEmpty()) {
+				final EObject[] objects = pending.toArray(new EObject[pending
+						.size()]);
+				pending.clear();
+				for (EObject object : objects) {
+					reindex(object);
+				}
+			}
+		}
+	}
+
+	private final IndexUpdater updater = new IndexUpdater();
+
+	private void reindex(EObject object) {
+		final Indexed previous = indexed.remove(object);
+		if (previous != null) {
+			remove(object, previous.name);
+		}
+		final Resource resource = object.eResource();
+		if (resource == null || resource.getResourceSet() != this
+				|| object.eContainer() != null
+				|| !resource.getContents().contains(object)) {
+			if (object instanceof TypeLiteral) {
+				unnamedLiterals.remove(object);
+			}
+			updater.unobserve(object);
+			return;
+		}
+		final String name;
+		if (object instanceof Type) {
+			name = ((Type) object).getName();
+			types.add(name, (Type) object);
+		} else if (object instanceof TypeLiteral) {
+			final TypeLiteral literal = (TypeLiteral) object;
+			if (literal.getName() != null) {
+				unnamedLiterals.remove(literal);
+				name = literal.getName();
+			} else {
+				unnamedLiterals.add(literal);
+				final Type type = literal.getTarget();
+				name = type != null ? type.getName() : null;
+			}
+			// literals without target are not listed
+			if (literal.getTarget() != null) {
+				typeLiterals.add(name, literal);
+			}
+		} else if (object instanceof Member) {
+			name = ((Member) object).getName();
+			members.add(name, (Member) object);
+		} else {
+			return;
+		}
+		indexed.put(object, new Indexed(resource, name));
+	}
+
+	private void remove(EObject object, String name) {
+		if (object instanceof Type) {
+			types.remove(name, (Type) object);
+		} else if (object instanceof TypeLiteral) {
+			typeLiterals.remove(name, (TypeLiteral) object);
+		} else if (object instanceof Member) {
+			members.remove(name, (Member) object);
+		}
+	}
+
+	public Set<String> listTypes(String prefix) {
+		updateIndex();
+		final List<Type> matches = new ArrayList<Type>();
+		types.collectByPrefix(prefix, matches);
+		final Set<String> result = new HashSet<String>();
+		for (Type type : matches) {
+			if (type.isVisible()) {
+				result.add(type.getName());
+			}
+		}
+		return result;
+	}
+
+	public Set<String> listTypeLiterals(String prefix) {
+		updateIndex();
+		final Set<String> result = new HashSet<String>();
+		typeLiterals.collectNamesByPrefix(prefix, result);
+		return result;
+	}
+
+	/**
+	 * Returns the top level members which names start with the specified
+	 * prefix.
+	 */
+	public Set<Member> listMembers(String prefix) {
+		updateIndex();
+		final Set<Member> result = new HashSet<Member>();
+		members.collectByPrefix(prefix, result);
 		return result;
 	}
 
@@ -23,6 +23,7 @@ import org.eclipse.dltk.formatter.FormatterIndentDetector;
 import org.eclipse.dltk.formatter.IFormatterContainerNode;
 import org.eclipse.dltk.formatter.IFormatterContext;
 import org.eclipse.dltk.javascript.ast.Script;
+import org.eclipse.dltk.javascript.formatter.internal.FormatterEdits;
 import org.eclipse.dltk.javascript.formatter.internal.FormatterNodeBuilder;
 import org.eclipse.dltk.javascript.formatter.internal.JavaScriptFormatterContext;
 import org.eclipse.dltk.javascript.formatter.internal.JavaScriptFormatterWriter;
@@ -50,17 +51,48 @@ public class JavaScriptFormatter extends AbstractScriptFormatter {
 	public TextEdit format(String source, int offset, int length,
 			int indentationLevel) throws FormatterException {
 
+		if (offset != 0 || length != source.length()) {
+			final TextEdit edit = formatRange(source, offset, length,
+					indentationLevel);
+			if (edit != null) {
+				return edit;
+			}
+		}
+
 		String input = source.substring(offset, offset + length);
 
 		String formatted = format(input, indentationLevel);
 
-		if (!input.equals(formatted)) {
+		final TextEdit edit = FormatterEdits.create(input, formatted, offset,
+				0, length);
+		if (edit != null) {
+			return edit;
+		} else if (!input.equals(formatted)) {
 			return new ReplaceEdit(offset, length, formatted);
 		} else {
 			return new MultiTextEdit(); // NOP
 		}
 	}
 
+	/**
+	 * Formats the whole source at the specified indentation level, so the
+	 * selected range is indented according to the enclosing code, and returns
+	 * only the edits inside of the range.
+	 * Returns <code>null</code> if the source can't be parsed or the edits
+	 * can't be computed, then the range is formatted standalone.
+	 */
+	private TextEdit formatRange(String source, int offset, int length,
+			int indentationLevel) throws FormatterException {
+		final ParserProblemReporter reporter = new ParserProblemReporter();
+		final Script ast = createParser().parse(source, reporter);
+		if (ast == null || reporter.hasErrors()) {
+			return null;
+		}
+		final String formatted = format(source, ast, indentationLevel);
+		return FormatterEdits.create(source, formatted, 0, offset, offset
+				+ length);
+	}
+
 	private static class ParserProblemReporter extends ProblemCollector {
 
 		@Override
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.javascript.formatter.internal;
+
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.ReplaceEdit;
+import org.eclipse.text.edits.TextEdit;
+
+/**
+ * Computes the minimal set of whitespace edits transforming the source into
+ * the formatted text.
+ */
+public class FormatterEdits {
+
+	private final String input;
+	private final String output;
+	private final int offset;
+	private final int start;
+	private final int end;
+	private final MultiTextEdit edit = new MultiTextEdit();
+
+	private FormatterEdits(String input, String output, int offset,
+			int start, int end) {
+		this.input = input;
+		this.output = output;
+		this.offset = offset;
+		this.start = start;
+		this.end = end;
+	}
+
+	/**
+	 * Returns the edits transforming the <code>input</code> into the
+	 * <code>output</code>, which are applicable to the document containing the
+	 * <code>input</code> at the specified <code>offset</code>. Only the
+	 * changes of the <code>input</code> text between <code>start</code> and
+	 * <code>end</code> are included. Returns <code>null</code> if the texts
+	 * differ not only in whitespace.
+	 */
+	public static TextEdit create(String input, String output, int offset,
+			int start, int end) {
+		return new FormatterEdits(input, output, offset, start, end).compute();
+	}
+
+	private TextEdit compute() {
+		int i = 0;
+		int j = 0;
+		for (;;) {
+			final int inputEnd = skipWhitespace(input, i);
+			final int outputEnd = skipWhitespace(output, j);
+			addEdits(i, inputEnd, j, outputEnd);
+			if (inputEnd == input.length() || outputEnd == output.length()) {
+				if (inputEnd == input.length()
+						&& outputEnd == output.length()) {
+					return edit;
+				}
+				return null;
+			}
+			if (input.charAt(inputEnd) != output.charAt(outputEnd)) {
+				return null;
+			}
+			i = inputEnd + 1;
+			j = outputEnd + 1;
+		}
+	}
+
+	private static int skipWhitespace(String text, int index) {
+		while (index < text.length()
+				&& Character.isWhitespace(text.charAt(index))) {
+			++index;
+		}
+		return index;
+	}
+
+	private static int lastLineBreak(String text, int begin, int end) {
+		for (int i = end; --i >= begin;) {
+			final char c = text.charAt(i);
+			if (c == '\n' || c == '\r') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Compares the whitespace runs. If both of them contain line breaks the
+	 * line breaks and the indentation are compared separately, so the
+	 * indentation of the first line of the range is updated even if the
+	 * preceding line break is outside of the range.
+	 */
+	private void addEdits(int inputBegin, int inputEnd, int outputBegin,
+			int outputEnd) {
+		final int inputLength = inputEnd - inputBegin;
+		if (inputLength == outputEnd - outputBegin
+				&& input.regionMatches(inputBegin, output, outputBegin,
+						inputLength)) {
+			return;
+		}
+		final int inputBreak = lastLineBreak(input, inputBegin, inputEnd);
+		final int outputBreak = lastLineBreak(output, outputBegin, outputEnd);
+		if (inputBreak >= 0 && outputBreak >= 0) {
+			addEdit(inputBegin, inputBreak + 1, outputBegin, outputBreak + 1);
+			addEdit(inputBreak + 1, inputEnd, outputBreak + 1, outputEnd);
+		} else {
+			addEdit(inputBegin, inputEnd, outputBegin, outputEnd);
+		}
+	}
+
+	private void addEdit(int inputBegin, int inputEnd, int outputBegin,
+			int outputEnd) {
+		final int inputLength = inputEnd - inputBegin;
+		if (inputLength == outputEnd - outputBegin
+				&& input.regionMatches(inputBegin, output, outputBegin,
+						inputLength)) {
+			return;
+		}
+		if (inputBegin >= start && inputEnd <= end) {
+			edit.addChild(new ReplaceEdit(offset + inputBegin, inputLength,
+					output.substring(outputBegin, outputEnd)));
+		}
+	}
+
+}
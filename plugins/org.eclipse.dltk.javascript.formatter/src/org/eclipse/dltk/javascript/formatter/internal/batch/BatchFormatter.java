@@ -0,0 +1,316 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.javascript.formatter.internal.batch;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.dltk.javascript.formatter.JavaScriptFormatter;
+
+/**
+ * Formats or checks the formatting of many script files in parallel outside
+ * of the workbench.
+ * 
+ * Each worker thread keeps its own {@link JavaScriptFormatter} instances (one
+ * per line delimiter), so nothing is shared between the threads except the
+ * immutable preferences. The results are reported to the {@link Listener} in
+ * the calling thread as soon as they are available.
+ */
+public class BatchFormatter {
+
+	public enum Status {
+		/**
+		 * The file is already formatted
+		 */
+		UNCHANGED,
+		/**
+		 * The file was formatted and saved
+		 */
+		FORMATTED,
+		/**
+		 * The file is not formatted (check mode)
+		 */
+		UNFORMATTED,
+		/**
+		 * The file could not be read, parsed or saved
+		 */
+		FAILED
+	}
+
+	public static class Result {
+		public final File file;
+		public final Status status;
+		public final int size;
+		public final String message;
+
+		Result(File file, Status status, int size, String message) {
+			this.file = file;
+			this.status = status;
+			this.size = size;
+			this.message = message;
+		}
+
+		@Override
+		public String toString() {
+			final String s = status + " " + file;
+			return message != null ? s + ": " + message : s;
+		}
+	}
+
+	public interface Listener {
+		void fileProcessed(Result result);
+	}
+
+	public static class Summary {
+		private final int[] counts = new int[Status.values().length];
+		private long bytes;
+		private long elapsedNanos;
+
+		void add(Result result) {
+			++counts[result.status.ordinal()];
+			bytes += result.size;
+		}
+
+		public int getCount(Status status) {
+			return counts[status.ordinal()];
+		}
+
+		public int getFileCount() {
+			int count = 0;
+			for (int c : counts) {
+				count += c;
+			}
+			return count;
+		}
+
+		public long getBytes() {
+			return bytes;
+		}
+
+		public long getElapsedMillis() {
+			return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+		}
+
+		/**
+		 * Checks if all the files were processed successfully and, in check
+		 * mode, are properly formatted.
+		 */
+		public boolean isOK() {
+			return getCount(Status.UNFORMATTED) == 0
+					&& getCount(Status.FAILED) == 0;
+		}
+
+		@Override
+		public String toString() {
+			final StringBuilder sb = new StringBuilder();
+			sb.append(getFileCount()).append(" file(s), ");
+			sb.append(bytes / 1024).append(" KB in ");
+			sb.append(getElapsedMillis()).append(" ms");
+			if (elapsedNanos != 0) {
+				final double seconds = elapsedNanos / 1e9;
+				sb.append(String.format(" (%.1f files/s, %.1f KB/s)",
+						getFileCount() / seconds, bytes / 1024 / seconds));
+			}
+			for (Status status : Status.values()) {
+				sb.append(", ").append(status.name().toLowerCase()).append(
+						"=").append(getCount(status));
+			}
+			return sb.toString();
+		}
+	}
+
+	private static final String DEFAULT_EXTENSION = ".js"; //$NON-NLS-1$
+
+	private final Map<String, ? extends Object> preferences;
+	private int threadCount = Runtime.getRuntime().availableProcessors();
+	private boolean checkOnly;
+	private String encoding = "UTF-8"; //$NON-NLS-1$
+
+	private final ThreadLocal<Map<String, JavaScriptFormatter>> formatters = new ThreadLocal<Map<String, JavaScriptFormatter>>() {
+		@Override
+		protected Map<String, JavaScriptFormatter> initialValue() {
+			return new HashMap<String, JavaScriptFormatter>(2);
+		}
+	};
+
+	public BatchFormatter(Map<String, ? extends Object> preferences) {
+		this.preferences = preferences;
+	}
+
+	public void setThreadCount(int threadCount) {
+		this.threadCount = Math.max(1, threadCount);
+	}
+
+	/**
+	 * In check mode the files are not modified, the unformatted ones are
+	 * reported as {@link Status#UNFORMATTED}.
+	 */
+	public void setCheckOnly(boolean checkOnly) {
+		this.checkOnly = checkOnly;
+	}
+
+	public void setEncoding(String encoding) {
+		this.encoding = encoding;
+	}
+
+	/**
+	 * Collects the script files, directories are scanned recursively.
+	 */
+	public static List<File> collectFiles(List<File> roots) {
+		final List<File> result = new ArrayList<File>();
+		for (File root : roots) {
+			collectFiles(root, result);
+		}
+		return result;
+	}
+
+	private static void collectFiles(File file, List<File> result) {
+		if (file.isDirectory()) {
+			final File[] children = file.listFiles();
+			if (children != null) {
+				Arrays.sort(children);
+				for (File child : children) {
+					collectFiles(child, result);
+				}
+			}
+		} else if (file.getName().endsWith(DEFAULT_EXTENSION)) {
+			result.add(file);
+		}
+	}
+
+	public Summary run(List<File> files, Listener listener)
+			throws InterruptedException {
+		final Summary summary = new Summary();
+		final long start = System.nanoTime();
+		final ExecutorService executor = Executors
+				.newFixedThreadPool(threadCount);
+		try {
+			final CompletionService<Result> service = new ExecutorCompletionService<Result>(
+					executor);
+			for (final File file : files) {
+				service.submit(new Callable<Result>() {
+					public Result call() {
+						return process(file);
+					}
+				});
+			}
+			for (int i = 0; i < files.size(); ++i) {
+				final Result result;
+				try {
+					result = service.take().get();
+				} catch (ExecutionException e) {
+					// process() catches everything, should not happen
+					throw new IllegalStateException(e.getCause());
+				}
+				summary.add(result);
+				if (listener != null) {
+					listener.fileProcessed(result);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		summary.elapsedNanos = System.nanoTime() - start;
+		return summary;
+	}
+
+	Result process(File file) {
+		final String source;
+		try {
+			source = read(file);
+		} catch (IOException e) {
+			return new Result(file, Status.FAILED, 0, e.toString());
+		}
+		final int size = source.length();
+		try {
+			final String formatted = getFormatter(detectLineDelimiter(source))
+					.format(source, 0);
+			if (formatted.equals(source)) {
+				return new Result(file, Status.UNCHANGED, size, null);
+			}
+			if (checkOnly) {
+				return new Result(file, Status.UNFORMATTED, size, null);
+			}
+			write(file, formatted);
+			return new Result(file, Status.FORMATTED, size, null);
+		} catch (Exception e) {
+			return new Result(file, Status.FAILED, size,
+					e.getMessage() != null ? e.getMessage() : e.toString());
+		}
+	}
+
+	private JavaScriptFormatter getFormatter(String lineDelimiter) {
+		final Map<String, JavaScriptFormatter> map = formatters.get();
+		JavaScriptFormatter formatter = map.get(lineDelimiter);
+		if (formatter == null) {
+			formatter = new JavaScriptFormatter(lineDelimiter, preferences);
+			map.put(lineDelimiter, formatter);
+		}
+		return formatter;
+	}
+
+	static String detectLineDelimiter(String source) {
+		final int index = source.indexOf('\n');
+		if (index > 0 && source.charAt(index - 1) == '\r') {
+			return "\r\n"; //$NON-NLS-1$
+		} else if (index >= 0) {
+			return "\n"; //$NON-NLS-1$
+		} else if (source.indexOf('\r') >= 0) {
+			return "\r"; //$NON-NLS-1$
+		} else {
+			return System.getProperty("line.separator"); //$NON-NLS-1$
+		}
+	}
+
+	private String read(File file) throws IOException {
+		final InputStream input = new FileInputStream(file);
+		try {
+			final ByteArrayOutputStream buffer = new ByteArrayOutputStream(
+					(int) file.length());
+			final byte[] bytes = new byte[8192];
+			int len;
+			while ((len = input.read(bytes)) > 0) {
+				buffer.write(bytes, 0, len);
+			}
+			return buffer.toString(encoding);
+		} finally {
+			input.close();
+		}
+	}
+
+	private void write(File file, String content) throws IOException {
+		final OutputStream output = new FileOutputStream(file);
+		try {
+			output.write(content.getBytes(encoding));
+		} finally {
+			output.close();
+		}
+	}
+
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.javascript.formatter.internal.batch;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.eclipse.dltk.javascript.formatter.JavaScriptFormatterConstants;
+import org.eclipse.dltk.javascript.formatter.internal.batch.BatchFormatter.Result;
+import org.eclipse.dltk.javascript.formatter.internal.batch.BatchFormatter.Status;
+import org.eclipse.dltk.javascript.formatter.internal.batch.BatchFormatter.Summary;
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+
+/**
+ * Headless application formatting the script files:
+ * 
+ * <pre>
+ * eclipse -application org.eclipse.dltk.javascript.formatter.batch
+ *     [-check] [-threads N] [-encoding NAME] [-config FILE]... [-verbose]
+ *     FILE_OR_DIRECTORY...
+ * </pre>
+ * 
+ * The <code>-config</code> files are the preference files (e.g.
+ * <code>.settings/org.eclipse.dltk.javascript.formatter.prefs</code>)
+ * overriding the default formatter options. In check mode the files are not
+ * modified and the application exits with code 1 if any of them is not
+ * formatted.
+ */
+public class BatchFormatterApplication implements IApplication {
+
+	private static final Integer EXIT_FAILED = Integer.valueOf(1);
+
+	public Object start(IApplicationContext context) throws Exception {
+		final String[] args = (String[]) context.getArguments().get(
+				IApplicationContext.APPLICATION_ARGS);
+		return run(args != null ? args : new String[0], System.out);
+	}
+
+	public void stop() {
+	}
+
+	Object run(String[] args, final PrintStream out) throws IOException,
+			InterruptedException {
+		final Map<String, Object> preferences = JavaScriptFormatterConstants
+				.getDefaults();
+		final List<File> roots = new ArrayList<File>();
+		boolean checkOnly = false;
+		boolean verbose = false;
+		int threads = 0;
+		String encoding = null;
+		for (int i = 0; i < args.length; ++i) {
+			final String arg = args[i];
+			if ("-check".equals(arg)) { //$NON-NLS-1$
+				checkOnly = true;
+			} else if ("-verbose".equals(arg)) { //$NON-NLS-1$
+				verbose = true;
+			} else if ("-threads".equals(arg) && i + 1 < args.length) { //$NON-NLS-1$
+				threads = Integer.parseInt(args[++i]);
+			} else if ("-encoding".equals(arg) && i + 1 < args.length) { //$NON-NLS-1$
+				encoding = args[++i];
+			} else if ("-config".equals(arg) && i + 1 < args.length) { //$NON-NLS-1$
+				loadPreferences(new File(args[++i]), preferences);
+			} else if (arg.startsWith("-")) { //$NON-NLS-1$
+				out.println("Unknown option " + arg);
+				return EXIT_FAILED;
+			} else {
+				roots.add(new File(arg));
+			}
+		}
+		if (roots.isEmpty()) {
+			out.println("Usage: [-check] [-threads N] [-encoding NAME] [-config FILE]... [-verbose] FILE_OR_DIRECTORY...");
+			return EXIT_FAILED;
+		}
+		final BatchFormatter formatter = new BatchFormatter(preferences);
+		formatter.setCheckOnly(checkOnly);
+		if (threads > 0) {
+			formatter.setThreadCount(threads);
+		}
+		if (encoding != null) {
+			formatter.setEncoding(encoding);
+		}
+		final boolean printAll = verbose;
+		final Summary summary = formatter.run(
+				BatchFormatter.collectFiles(roots),
+				new BatchFormatter.Listener() {
+					public void fileProcessed(Result result) {
+						if (printAll || result.status != Status.UNCHANGED) {
+							out.println(result);
+						}
+					}
+				});
+		out.println(summary);
+		return summary.isOK() ? EXIT_OK : EXIT_FAILED;
+	}
+
+	private static void loadPreferences(File file,
+			Map<String, Object> preferences) throws IOException {
+		final Properties properties = new Properties();
+		final InputStream input = new FileInputStream(file);
+		try {
+			properties.load(input);
+		} finally {
+			input.close();
+		}
+		for (String name : properties.stringPropertyNames()) {
+			if (JavaScriptFormatterConstants.isDefined(name)) {
+				preferences.put(name, properties.getProperty(name));
+			}
+		}
+	}
+
+}
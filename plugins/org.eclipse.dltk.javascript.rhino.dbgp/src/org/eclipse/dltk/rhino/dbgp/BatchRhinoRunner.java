@@ -0,0 +1,270 @@
+package org.eclipse.dltk.rhino.dbgp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.mozilla.javascript.BaseFunction;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextAction;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.RhinoException;
+import org.mozilla.javascript.ScriptRuntime;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.SharedStandardObjects;
+
+/**
+ * Executes the independent scripts concurrently on a pool of worker threads.
+ *
+ * Each script runs in the context of its worker thread entered with
+ * {@link ContextFactory#call(ContextAction)} and in its own execution scope
+ * on top of the sealed standard objects shared by all the scripts (see
+ * {@link SharedStandardObjects}), so the global variables of one script are
+ * not visible to the others. The execution scope defines the
+ * <code>print</code> function writing to the output of the script, which is
+ * collected separately for each script. The output written directly to
+ * {@link System#out} and {@link System#err} is not captured.
+ *
+ * The scripts throwing an exception are reported as failed, while an
+ * {@link Error} (e.g. {@link OutOfMemoryError}) aborts the whole batch.
+ */
+public class BatchRhinoRunner {
+
+	/**
+	 * The outcome of the single script
+	 */
+	public static class Result {
+		private final String fileName;
+		private final String output;
+		private final Exception error;
+		private final long elapsedNanos;
+
+		Result(String fileName, String output, Exception error,
+				long elapsedNanos) {
+			this.fileName = fileName;
+			this.output = output;
+			this.error = error;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		public String getFileName() {
+			return fileName;
+		}
+
+		/**
+		 * Returns the text printed by the script followed by the description
+		 * of the error, if any.
+		 */
+		public String getOutput() {
+			return output;
+		}
+
+		/**
+		 * Returns the exception terminating the script or <code>null</code>
+		 * if it completed normally.
+		 */
+		public Exception getError() {
+			return error;
+		}
+
+		public boolean isSuccess() {
+			return error == null;
+		}
+
+		public long getElapsedNanos() {
+			return elapsedNanos;
+		}
+
+		@Override
+		public String toString() {
+			return fileName + ": " + (error == null ? "OK" : "FAILED") + " " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+					+ elapsedNanos / 1000000 + " ms"; //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * The <code>print</code> function of the script, writes the arguments
+	 * separated by spaces and the line separator to the output of the script.
+	 */
+	private static class PrintFunction extends BaseFunction {
+		private static final long serialVersionUID = 1L;
+
+		private final PrintStream out;
+
+		PrintFunction(PrintStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public Object call(Context cx, Scriptable scope, Scriptable thisObj,
+				Object[] args) {
+			final StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < args.length; ++i) {
+				if (i != 0) {
+					sb.append(' ');
+				}
+				sb.append(Context.toString(args[i]));
+			}
+			out.println(sb);
+			return Context.getUndefinedValue();
+		}
+
+		@Override
+		public String getFunctionName() {
+			return "print"; //$NON-NLS-1$
+		}
+	}
+
+	private final ContextFactory factory;
+	private final int threadCount;
+
+	public BatchRhinoRunner(int threadCount) {
+		this(ContextFactory.getGlobal(), threadCount);
+	}
+
+	public BatchRhinoRunner(ContextFactory factory, int threadCount) {
+		this.factory = factory;
+		this.threadCount = Math.max(1, threadCount);
+	}
+
+	/**
+	 * Executes the specified scripts and returns their results in the same
+	 * order. The {@link Error} thrown by any of the scripts is rethrown after
+	 * the remaining scripts are cancelled.
+	 */
+	public List<Result> run(List<String> fileNames) throws InterruptedException {
+		final ExecutorService executor = Executors
+				.newFixedThreadPool(threadCount);
+		try {
+			final List<Future<Result>> futures = new ArrayList<Future<Result>>();
+			for (final String fileName : fileNames) {
+				futures.add(executor.submit(new Callable<Result>() {
+					public Result call() {
+						return execute(fileName);
+					}
+				}));
+			}
+			final List<Result> results = new ArrayList<Result>();
+			for (Future<Result> future : futures) {
+				try {
+					results.add(future.get());
+				} catch (ExecutionException e) {
+					final Throwable cause = e.getCause();
+					if (cause instanceof Error) {
+						throw (Error) cause;
+					}
+					// execute() catches the exceptions, should not happen
+					throw new IllegalStateException(cause);
+				}
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	Result execute(final String fileName) {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final PrintStream out = new PrintStream(buffer, true);
+		final long start = System.nanoTime();
+		Exception error = null;
+		try {
+			final String source = readFile(fileName);
+			error = (Exception) factory.call(new ContextAction() {
+				public Object run(Context cx) {
+					final Scriptable scope = SharedStandardObjects
+							.newExecutionScope(cx);
+					initScope(cx, scope, out);
+					try {
+						cx.evaluateString(scope, source, fileName, 1, null);
+						return null;
+					} catch (RhinoException e) {
+						// the thrown value is converted by its toString(),
+						// which requires the entered context
+						out.println(e.details());
+						out.print(e.getScriptStackTrace());
+						return e;
+					}
+				}
+			});
+		} catch (Exception e) {
+			error = e;
+			e.printStackTrace(out);
+		}
+		out.flush();
+		return new Result(fileName, buffer.toString(), error, System
+				.nanoTime()
+				- start);
+	}
+
+	/**
+	 * Initializes the execution scope of the script, defines the
+	 * <code>print</code> function writing to the specified output of the
+	 * script.
+	 */
+	protected void initScope(Context cx, Scriptable scope, PrintStream out) {
+		final PrintFunction print = new PrintFunction(out);
+		ScriptRuntime.setFunctionProtoAndParent(print, scope);
+		ScriptableObject.defineProperty(scope, "print", print, //$NON-NLS-1$
+				ScriptableObject.DONTENUM);
+	}
+
+	private static String readFile(String fileName) throws IOException {
+		final Reader reader = new FileReader(fileName);
+		try {
+			final StringBuilder sb = new StringBuilder();
+			final char[] buffer = new char[4096];
+			int len;
+			while ((len = reader.read(buffer)) != -1) {
+				sb.append(buffer, 0, len);
+			}
+			return sb.toString();
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Returns the exit status of the batch: 0 if all the scripts succeeded
+	 * and 1 otherwise.
+	 */
+	public static int getExitCode(List<Result> results) {
+		for (Result result : results) {
+			if (!result.isSuccess()) {
+				return 1;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Prints the output and the timing of each script followed by the
+	 * summary.
+	 */
+	public static void report(List<Result> results, PrintStream out) {
+		int failed = 0;
+		long total = 0;
+		for (Result result : results) {
+			out.println(result);
+			if (result.getOutput().length() != 0) {
+				out.print(result.getOutput());
+			}
+			if (!result.isSuccess()) {
+				++failed;
+			}
+			total += result.getElapsedNanos();
+		}
+		out.println(results.size() + " scripts, " + failed + " failed, " //$NON-NLS-1$ //$NON-NLS-2$
+				+ total / 1000000 + " ms total"); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,244 @@
+package org.eclipse.dltk.rhino.dbgp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.debug.DebugFrame;
+import org.mozilla.javascript.debug.DebuggableScript;
+import org.mozilla.javascript.debug.Debugger;
+
+/**
+ * Line coverage of the interpreted scripts.
+ *
+ * The collector is installed as the {@link Debugger} of the context. Every
+ * compiled function or script gets the bitset of its executed lines,
+ * allocated once for the range of the lines reported by
+ * {@link DebuggableScript#getLineNumbers()}, and
+ * {@link DebugFrame#onLineChange} only sets the bit of the line, so the cost
+ * per executed statement is a single array read after the line was hit for
+ * the first time.
+ *
+ * The results are written in the LCOV tracefile format, the line hit count is
+ * the number of the runs executing the line, so the reports of several runs
+ * are merged by {@link #read(Reader)} before {@link #write(Writer)}.
+ */
+public class CoverageCollector implements Debugger {
+
+	/**
+	 * The executed lines of the function or script
+	 */
+	private static class ScriptCoverage implements DebugFrame {
+		final String sourceName;
+		final int[] lines;
+		final int firstLine;
+		final AtomicLongArray executed;
+
+		ScriptCoverage(DebuggableScript script) {
+			this.sourceName = script.getSourceName();
+			final int[] lines = script.getLineNumbers();
+			this.lines = lines != null ? lines : new int[0];
+			int min = Integer.MAX_VALUE;
+			int max = Integer.MIN_VALUE;
+			for (int line : this.lines) {
+				min = Math.min(min, line);
+				max = Math.max(max, line);
+			}
+			this.firstLine = min <= max ? min : 0;
+			this.executed = new AtomicLongArray(min <= max ? ((max - min) >> 6) + 1
+					: 0);
+		}
+
+		public void onLineChange(Context cx, int lineNumber) {
+			final int bit = lineNumber - firstLine;
+			if (bit < 0 || (bit >> 6) >= executed.length()) {
+				return;
+			}
+			final long mask = 1L << bit;
+			final int word = bit >> 6;
+			long value;
+			while (((value = executed.get(word)) & mask) == 0) {
+				if (executed.compareAndSet(word, value, value | mask)) {
+					break;
+				}
+			}
+		}
+
+		boolean isExecuted(int line) {
+			final int bit = line - firstLine;
+			if (bit < 0 || (bit >> 6) >= executed.length()) {
+				return false;
+			}
+			return (executed.get(bit >> 6) & (1L << bit)) != 0;
+		}
+
+		public void onEnter(Context cx, Scriptable activation,
+				Scriptable thisObj, Object[] args) {
+		}
+
+		public void onExceptionThrown(Context cx, Throwable ex) {
+		}
+
+		public void onExit(Context cx, boolean byThrow,
+				Object resultOrException) {
+		}
+	}
+
+	private final Map<DebuggableScript, ScriptCoverage> scripts = new IdentityHashMap<DebuggableScript, ScriptCoverage>();
+
+	/**
+	 * The hit counts of the previous runs: source name -> line -> count
+	 */
+	private final Map<String, Map<Integer, Integer>> previous = new TreeMap<String, Map<Integer, Integer>>();
+
+	public void handleCompilationDone(Context cx, DebuggableScript fnOrScript,
+			String source) {
+		getCoverage(fnOrScript);
+	}
+
+	public DebugFrame getFrame(Context cx, DebuggableScript fnOrScript) {
+		return getCoverage(fnOrScript);
+	}
+
+	private ScriptCoverage getCoverage(DebuggableScript script) {
+		synchronized (scripts) {
+			ScriptCoverage coverage = scripts.get(script);
+			if (coverage == null) {
+				coverage = new ScriptCoverage(script);
+				scripts.put(script, coverage);
+			}
+			return coverage;
+		}
+	}
+
+	/**
+	 * Reads the report of the previous runs in the LCOV format, the line hit
+	 * counts are added to the ones of this run.
+	 */
+	public void read(Reader reader) throws IOException {
+		final BufferedReader in = new BufferedReader(reader);
+		Map<Integer, Integer> lines = null;
+		String line;
+		while ((line = in.readLine()) != null) {
+			if (line.startsWith("SF:")) { //$NON-NLS-1$
+				lines = getLines(previous, line.substring(3));
+			} else if (line.startsWith("DA:") && lines != null) { //$NON-NLS-1$
+				final String[] parts = line.substring(3).split(","); //$NON-NLS-1$
+				try {
+					add(lines, Integer.parseInt(parts[0]),
+							Integer.parseInt(parts[1]));
+				} catch (RuntimeException e) {
+					// ignore malformed entry
+				}
+			} else if (line.equals("end_of_record")) { //$NON-NLS-1$
+				lines = null;
+			}
+		}
+	}
+
+	/**
+	 * Writes the line coverage of this and the previous runs in the LCOV
+	 * format, the source files and the lines are sorted.
+	 */
+	public void write(Writer writer) throws IOException {
+		final Map<String, Map<Integer, Integer>> result = new TreeMap<String, Map<Integer, Integer>>();
+		for (Map.Entry<String, Map<Integer, Integer>> entry : previous
+				.entrySet()) {
+			result.put(entry.getKey(), new TreeMap<Integer, Integer>(entry
+					.getValue()));
+		}
+		final List<ScriptCoverage> coverages;
+		synchronized (scripts) {
+			coverages = new ArrayList<ScriptCoverage>(scripts.values());
+		}
+		final Map<String, Map<Integer, Integer>> current = new TreeMap<String, Map<Integer, Integer>>();
+		for (ScriptCoverage coverage : coverages) {
+			if (coverage.sourceName == null) {
+				continue;
+			}
+			final Map<Integer, Integer> lines = getLines(current,
+					coverage.sourceName);
+			for (int line : coverage.lines) {
+				final Integer key = Integer.valueOf(line);
+				final int hit = coverage.isExecuted(line) ? 1 : 0;
+				final Integer old = lines.get(key);
+				if (old == null || old.intValue() < hit) {
+					lines.put(key, Integer.valueOf(hit));
+				}
+			}
+		}
+		for (Map.Entry<String, Map<Integer, Integer>> entry : current
+				.entrySet()) {
+			final Map<Integer, Integer> lines = getLines(result, entry.getKey());
+			for (Map.Entry<Integer, Integer> line : entry.getValue()
+					.entrySet()) {
+				add(lines, line.getKey().intValue(), line.getValue().intValue());
+			}
+		}
+		for (Map.Entry<String, Map<Integer, Integer>> entry : result
+				.entrySet()) {
+			writer.write("SF:" + entry.getKey() + "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			int hit = 0;
+			for (Map.Entry<Integer, Integer> line : entry.getValue()
+					.entrySet()) {
+				writer.write("DA:" + line.getKey() + "," + line.getValue() //$NON-NLS-1$ //$NON-NLS-2$
+						+ "\n"); //$NON-NLS-1$
+				if (line.getValue().intValue() != 0) {
+					++hit;
+				}
+			}
+			writer.write("LF:" + entry.getValue().size() + "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			writer.write("LH:" + hit + "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			writer.write("end_of_record\n"); //$NON-NLS-1$
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Returns the executed lines of the specified source file, sorted.
+	 */
+	public List<Integer> getExecutedLines(String sourceName) {
+		final List<Integer> result = new ArrayList<Integer>();
+		synchronized (scripts) {
+			for (ScriptCoverage coverage : scripts.values()) {
+				if (sourceName.equals(coverage.sourceName)) {
+					for (int line : coverage.lines) {
+						if (coverage.isExecuted(line)
+								&& !result.contains(Integer.valueOf(line))) {
+							result.add(Integer.valueOf(line));
+						}
+					}
+				}
+			}
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+	private static Map<Integer, Integer> getLines(
+			Map<String, Map<Integer, Integer>> files, String sourceName) {
+		Map<Integer, Integer> lines = files.get(sourceName);
+		if (lines == null) {
+			lines = new TreeMap<Integer, Integer>();
+			files.put(sourceName, lines);
+		}
+		return lines;
+	}
+
+	private static void add(Map<Integer, Integer> lines, int line, int count) {
+		final Integer key = Integer.valueOf(line);
+		final Integer old = lines.get(key);
+		lines.put(key, Integer.valueOf(old != null ? old.intValue() + count
+				: count));
+	}
+}
@@ -13,6 +13,7 @@ import java.util.Observable;
 import java.util.Observer;
 import java.util.WeakHashMap;
 
+import org.mozilla.javascript.ConsString;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.Function;
 import org.mozilla.javascript.NativeArray;
@@ -122,6 +123,10 @@ public class DBGPDebugger extends Thread implements Debugger, Observer,
 		int numC = 0;
 		String vlEncoded;
 		String name_of_object_class = "";
+		if (value instanceof ConsString) {
+			// present the lazily concatenated strings as the plain ones
+			value = value.toString();
+		}
 		String data_type = getDataType(value);
 
 		if (value instanceof Scriptable) {
@@ -1,18 +1,51 @@
 package org.eclipse.dltk.rhino.dbgp;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.List;
 
+import org.mozilla.javascript.CompiledScriptCache;
 import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Script;
 import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.SharedStandardObjects;
 
 public class DefaultRhinoRunner {
 
+	public static final String SCRIPT_CACHE_PROPERTY = "rhino.scriptCache"; //$NON-NLS-1$
+
+	public static final String SHARED_SCOPE_PROPERTY = "rhino.sharedScope"; //$NON-NLS-1$
+
+	public static final String PROFILE_PROPERTY = "rhino.profile"; //$NON-NLS-1$
+
+	public static final String PROFILE_INTERVAL_PROPERTY = "rhino.profile.interval"; //$NON-NLS-1$
+
+	public static final String COVERAGE_PROPERTY = "rhino.coverage"; //$NON-NLS-1$
+
+	public static final String BATCH_OPTION = "-batch"; //$NON-NLS-1$
+
+	public static final String BATCH_THREADS_PROPERTY = "rhino.batch.threads"; //$NON-NLS-1$
+
 	public void run(String[] args) {
+		if (args.length > 0 && BATCH_OPTION.equals(args[0])) {
+			final int status = runBatch(Arrays.asList(args).subList(1,
+					args.length));
+			if (status != 0) {
+				System.exit(status);
+			}
+			return;
+		}
 		Context cx = Context.enter();
 		if (args.length > 1) {
 			String host = args[1];
@@ -63,17 +96,169 @@ public class DefaultRhinoRunner {
 				e.printStackTrace();
 			}
 		} else {
-			Scriptable scope = cx.initStandardObjects();
+			Scriptable scope = createScope(cx);
+			SamplingProfiler profiler = createProfiler();
+			if (profiler != null) {
+				cx.setDebugger(profiler, null);
+				cx.setGeneratingDebug(true);
+				cx.setOptimizationLevel(-1);
+				profiler.start();
+			}
+			CoverageCollector coverage = profiler == null ? createCoverage()
+					: null;
+			if (coverage != null) {
+				cx.setDebugger(coverage, null);
+				cx.setGeneratingDebug(true);
+				cx.setOptimizationLevel(-1);
+			}
 			try {
-				cx.evaluateReader(scope, new FileReader(args[0]), args[0], 0,
-						null);
+				CompiledScriptCache cache = profiler == null
+						&& coverage == null ? getScriptCache() : null;
+				if (cache != null) {
+					Script script = cache.compileReader(cx, new FileReader(
+							args[0]), args[0], 0);
+					script.exec(cx, scope);
+				} else {
+					// the profile and the coverage report expect the lines
+					// starting at 1
+					cx.evaluateReader(scope, new FileReader(args[0]), args[0],
+							profiler != null || coverage != null ? 1 : 0, null);
+				}
 			} catch (FileNotFoundException e) {
 				e.printStackTrace();
 			} catch (IOException e) {
 				e.printStackTrace();
+			} finally {
+				if (profiler != null) {
+					profiler.stop();
+					cx.setDebugger(null, null);
+					writeProfile(profiler);
+				}
+				if (coverage != null) {
+					cx.setDebugger(null, null);
+					writeCoverage(coverage);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Returns the profiler for the script run without a debugger or
+	 * <code>null</code> if profiling is disabled. The profiler is enabled by
+	 * pointing the {@value #PROFILE_PROPERTY} system property to the output
+	 * file, the sampling interval in milliseconds is specified by the
+	 * {@value #PROFILE_INTERVAL_PROPERTY} property.
+	 */
+	protected SamplingProfiler createProfiler() {
+		final String output = System.getProperty(PROFILE_PROPERTY);
+		if (output == null || output.length() == 0) {
+			return null;
+		}
+		return new SamplingProfiler(Integer.getInteger(
+				PROFILE_INTERVAL_PROPERTY, 5).intValue());
+	}
+
+	/**
+	 * Returns the coverage collector for the script run without a debugger or
+	 * <code>null</code> if the coverage is disabled. The coverage is enabled
+	 * by pointing the {@value #COVERAGE_PROPERTY} system property to the LCOV
+	 * report file, if the file exists the results of the run are added to it.
+	 * The profiling takes precedence if both are requested.
+	 */
+	protected CoverageCollector createCoverage() {
+		final String output = System.getProperty(COVERAGE_PROPERTY);
+		if (output == null || output.length() == 0) {
+			return null;
+		}
+		return new CoverageCollector();
+	}
+
+	private void writeCoverage(CoverageCollector coverage) {
+		final File output = new File(System.getProperty(COVERAGE_PROPERTY));
+		try {
+			if (output.isFile()) {
+				final Reader reader = new InputStreamReader(
+						new FileInputStream(output), "UTF-8"); //$NON-NLS-1$
+				try {
+					coverage.read(reader);
+				} finally {
+					reader.close();
+				}
 			}
+			final Writer writer = new OutputStreamWriter(new FileOutputStream(
+					output), "UTF-8"); //$NON-NLS-1$
+			try {
+				coverage.write(writer);
+			} finally {
+				writer.close();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
 		}
+	}
 
+	private void writeProfile(SamplingProfiler profiler) {
+		final String output = System.getProperty(PROFILE_PROPERTY);
+		try {
+			final Writer writer = new OutputStreamWriter(new FileOutputStream(
+					output), "UTF-8"); //$NON-NLS-1$
+			try {
+				profiler.write(writer);
+			} finally {
+				writer.close();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Executes the specified scripts concurrently, prints the output and the
+	 * timing of each of them and returns the exit status, which is non-zero
+	 * if any of the scripts failed or the batch was interrupted. The number of
+	 * the worker threads is specified by the {@value #BATCH_THREADS_PROPERTY}
+	 * system property, it defaults to the number of the available processors.
+	 */
+	protected int runBatch(List<String> fileNames) {
+		final BatchRhinoRunner runner = new BatchRhinoRunner(Integer
+				.getInteger(BATCH_THREADS_PROPERTY,
+						Runtime.getRuntime().availableProcessors()).intValue());
+		final List<BatchRhinoRunner.Result> results;
+		try {
+			results = runner.run(fileNames);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return 1;
+		}
+		BatchRhinoRunner.report(results, System.out);
+		return BatchRhinoRunner.getExitCode(results);
+	}
+
+	/**
+	 * Returns the cache of compiled scripts or <code>null</code> if caching
+	 * is disabled. The cache is enabled by pointing the
+	 * {@value #SCRIPT_CACHE_PROPERTY} system property to a directory.
+	 */
+	protected CompiledScriptCache getScriptCache() {
+		final String directory = System.getProperty(SCRIPT_CACHE_PROPERTY);
+		if (directory == null || directory.length() == 0) {
+			return null;
+		}
+		return new CompiledScriptCache(new File(directory));
+	}
+
+	/**
+	 * Creates the top-level scope for a script run without a debugger. When
+	 * the {@value #SHARED_SCOPE_PROPERTY} system property is <code>true</code>
+	 * the standard objects are shared in sealed form between all runs in this
+	 * JVM and every run gets its own lightweight scope on top of them.
+	 */
+	protected Scriptable createScope(Context cx) {
+		if (Boolean.getBoolean(SHARED_SCOPE_PROPERTY)) {
+			return SharedStandardObjects.newExecutionScope(cx);
+		}
+		return cx.initStandardObjects();
 	}
 
 	protected void extraInit(Scriptable scope, Context cx) {
@@ -0,0 +1,296 @@
+package org.eclipse.dltk.rhino.dbgp;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.debug.DebugFrame;
+import org.mozilla.javascript.debug.DebuggableScript;
+import org.mozilla.javascript.debug.Debugger;
+
+/**
+ * Sampling profiler of the interpreted scripts.
+ *
+ * The profiler is installed as the {@link Debugger} of the context and keeps
+ * a shadow stack of the script functions of each thread, updated from
+ * {@link DebugFrame#onEnter}, {@link DebugFrame#onLineChange} and
+ * {@link DebugFrame#onExit}. A background thread samples the shadow stacks
+ * with the fixed interval and counts the distinct stacks, which are written
+ * in the collapsed format (one <code>frame;frame;frame count</code> line per
+ * stack) understood by the flame graph tools. Each frame is labelled with the
+ * function name and the current source line, e.g.
+ * <code>render (report.js:42)</code>.
+ *
+ * The context should be interpreted (optimization level <code>-1</code>)
+ * with the debug information generated, otherwise the frames are not
+ * reported.
+ */
+public class SamplingProfiler implements Debugger {
+
+	/**
+	 * Function of the shadow stack
+	 */
+	private static class FunctionInfo {
+		final String name;
+		final String sourceName;
+
+		FunctionInfo(DebuggableScript script) {
+			String name = script.getFunctionName();
+			if (script.isTopLevel()) {
+				name = "module";
+			} else if (name == null || name.length() == 0) {
+				name = "anonymous";
+			}
+			this.name = escape(name);
+			final String sourceName = script.getSourceName();
+			this.sourceName = sourceName != null ? escape(sourceName)
+					: "unknown";
+		}
+
+		/**
+		 * Replaces the frame separator of the collapsed format
+		 */
+		private static String escape(String value) {
+			return value.replace(';', ',');
+		}
+
+		void append(StringBuffer sb, int line) {
+			sb.append(name).append(" (").append(sourceName).append(':')
+					.append(line).append(')');
+		}
+	}
+
+	/**
+	 * The stack of the script functions executed by the thread. It is
+	 * modified only by the owner thread and read without locking by the
+	 * sampler, the published depth guarantees the visibility of the frames
+	 * below it.
+	 */
+	private static class ShadowStack {
+		private volatile FunctionInfo[] functions = new FunctionInfo[32];
+		private volatile int[] lines = new int[32];
+		private volatile int depth;
+
+		void push(FunctionInfo function) {
+			final int d = depth;
+			if (d == functions.length) {
+				final FunctionInfo[] newFunctions = new FunctionInfo[d * 2];
+				System.arraycopy(functions, 0, newFunctions, 0, d);
+				final int[] newLines = new int[d * 2];
+				System.arraycopy(lines, 0, newLines, 0, d);
+				functions = newFunctions;
+				lines = newLines;
+			}
+			functions[d] = function;
+			lines[d] = 0;
+			depth = d + 1;
+		}
+
+		void setLine(int line) {
+			final int d = depth;
+			if (d > 0) {
+				lines[d - 1] = line;
+			}
+		}
+
+		void pop() {
+			final int d = depth;
+			if (d > 0) {
+				depth = d - 1;
+			}
+		}
+
+		/**
+		 * Returns the collapsed representation of the current stack or
+		 * <code>null</code> if the thread does not execute scripts.
+		 */
+		String sample() {
+			final int d = depth;
+			if (d == 0) {
+				return null;
+			}
+			final FunctionInfo[] functions = this.functions;
+			final int[] lines = this.lines;
+			final StringBuffer sb = new StringBuffer();
+			for (int i = 0; i < d && i < functions.length; ++i) {
+				final FunctionInfo function = functions[i];
+				if (function == null) {
+					continue;
+				}
+				if (sb.length() != 0) {
+					sb.append(';');
+				}
+				function.append(sb, lines[i]);
+			}
+			return sb.length() != 0 ? sb.toString() : null;
+		}
+	}
+
+	private static class ProfilerFrame implements DebugFrame {
+		private final ShadowStack stack;
+		private final FunctionInfo function;
+
+		ProfilerFrame(ShadowStack stack, FunctionInfo function) {
+			this.stack = stack;
+			this.function = function;
+		}
+
+		public void onEnter(Context cx, Scriptable activation,
+				Scriptable thisObj, Object[] args) {
+			stack.push(function);
+		}
+
+		public void onLineChange(Context cx, int lineNumber) {
+			stack.setLine(lineNumber);
+		}
+
+		public void onExceptionThrown(Context cx, Throwable ex) {
+		}
+
+		public void onExit(Context cx, boolean byThrow,
+				Object resultOrException) {
+			stack.pop();
+		}
+	}
+
+	private final int interval;
+	private final List<ShadowStack> allStacks = new CopyOnWriteArrayList<ShadowStack>();
+	private final ThreadLocal<ShadowStack> stacks = new ThreadLocal<ShadowStack>() {
+		@Override
+		protected ShadowStack initialValue() {
+			final ShadowStack stack = new ShadowStack();
+			allStacks.add(stack);
+			return stack;
+		}
+	};
+	private final Map<DebuggableScript, FunctionInfo> functions = new IdentityHashMap<DebuggableScript, FunctionInfo>();
+	private final Map<String, long[]> samples = new HashMap<String, long[]>();
+	private Thread sampler;
+	private volatile boolean running;
+
+	/**
+	 * @param interval
+	 *            the sampling interval in milliseconds
+	 */
+	public SamplingProfiler(int interval) {
+		this.interval = Math.max(1, interval);
+	}
+
+	public void handleCompilationDone(Context cx, DebuggableScript fnOrScript,
+			String source) {
+	}
+
+	public DebugFrame getFrame(Context cx, DebuggableScript fnOrScript) {
+		FunctionInfo function;
+		synchronized (functions) {
+			function = functions.get(fnOrScript);
+			if (function == null) {
+				function = new FunctionInfo(fnOrScript);
+				functions.put(fnOrScript, function);
+			}
+		}
+		return new ProfilerFrame(stacks.get(), function);
+	}
+
+	/**
+	 * Starts the sampling thread.
+	 */
+	public synchronized void start() {
+		if (sampler != null) {
+			return;
+		}
+		running = true;
+		sampler = new Thread("Rhino Sampling Profiler") { //$NON-NLS-1$
+			@Override
+			public void run() {
+				while (running) {
+					try {
+						Thread.sleep(interval);
+					} catch (InterruptedException e) {
+						break;
+					}
+					sample();
+				}
+			}
+		};
+		sampler.setDaemon(true);
+		sampler.start();
+	}
+
+	/**
+	 * Stops the sampling thread and waits for its termination.
+	 */
+	public synchronized void stop() {
+		if (sampler == null) {
+			return;
+		}
+		running = false;
+		sampler.interrupt();
+		try {
+			sampler.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		sampler = null;
+	}
+
+	void sample() {
+		for (ShadowStack stack : allStacks) {
+			final String key = stack.sample();
+			if (key != null) {
+				synchronized (samples) {
+					final long[] count = samples.get(key);
+					if (count != null) {
+						++count[0];
+					} else {
+						samples.put(key, new long[] { 1 });
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the total number of the collected samples.
+	 */
+	public long getSampleCount() {
+		long total = 0;
+		synchronized (samples) {
+			for (long[] count : samples.values()) {
+				total += count[0];
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Writes the collected samples in the collapsed stack format, the stacks
+	 * are sorted, so the output of the same profile is stable.
+	 */
+	public void write(Writer writer) throws IOException {
+		final List<String> keys;
+		synchronized (samples) {
+			keys = new ArrayList<String>(samples.keySet());
+		}
+		Collections.sort(keys);
+		for (String key : keys) {
+			final long count;
+			synchronized (samples) {
+				count = samples.get(key)[0];
+			}
+			writer.write(key);
+			writer.write(' ');
+			writer.write(String.valueOf(count));
+			writer.write('\n');
+		}
+		writer.flush();
+	}
+}
@@ -38,7 +38,8 @@
 
 package org.mozilla.javascript;
 
-import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Cache of generated classes and data structures to access Java runtime
@@ -54,13 +55,13 @@ public class ClassCache
 
     private volatile boolean cachingIsEnabled = true;
 
-    Hashtable classTable = new Hashtable();
+    volatile Map classTable = new ConcurrentHashMap();
 
-    Hashtable javaAdapterGeneratedClasses = new Hashtable();
+    volatile Map javaAdapterGeneratedClasses = new ConcurrentHashMap();
 
     ScriptableObject scope;
 
-    private Hashtable interfaceAdapterCache;
+    private volatile Map interfaceAdapterCache;
 
     private int generatedClassSerial;
 
@@ -117,8 +118,8 @@ public class ClassCache
      */
     public synchronized void clearCaches()
     {
-        classTable = new Hashtable();
-        javaAdapterGeneratedClasses = new Hashtable();
+        classTable = new ConcurrentHashMap();
+        javaAdapterGeneratedClasses = new ConcurrentHashMap();
         interfaceAdapterCache = null;
     }
 
@@ -193,7 +194,7 @@ public class ClassCache
     Object getInterfaceAdapter(Class cl)
     {
         Object result;
-        Hashtable cache = interfaceAdapterCache;
+        Map cache = interfaceAdapterCache;
         if (cache == null) {
             result = null;
         } else {
@@ -206,7 +207,7 @@ public class ClassCache
     {
         if (cachingIsEnabled) {
             if (interfaceAdapterCache == null) {
-                interfaceAdapterCache = new Hashtable();
+                interfaceAdapterCache = new ConcurrentHashMap();
             }
             interfaceAdapterCache.put(cl, iadapter);
         }
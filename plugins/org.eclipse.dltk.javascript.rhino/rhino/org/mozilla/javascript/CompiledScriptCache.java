@@ -0,0 +1,328 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Rhino code, released
+ * May 6, 1999.
+ *
+ * The Initial Developer of the Original Code is
+ * Netscape Communications Corporation.
+ * Portions created by the Initial Developer are Copyright (C) 1997-1999
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * the GNU General Public License Version 2 or later (the "GPL"), in which
+ * case the provisions of the GPL are applicable instead of those above. If
+ * you wish to allow use of your version of this file only under the terms of
+ * the GPL and not to allow others to use your version of this file under the
+ * MPL, indicate your decision by deleting the provisions above and replacing
+ * them with the notice and other provisions required by the GPL. If you do
+ * not delete the provisions above, a recipient may use your version of this
+ * file under either the MPL or the GPL.
+ *
+ * ***** END LICENSE BLOCK ***** */
+
+package org.mozilla.javascript;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.mozilla.javascript.optimizer.ClassCompiler;
+
+/**
+ * On-disk cache of compiled scripts.
+ * <p>
+ * Entries are keyed by a digest of the script source, its name and line
+ * number, the compiler settings of the context (optimization level,
+ * language version, strict mode, dynamic scope, warnings as errors and the
+ * other features affecting the generated code) and the Rhino implementation
+ * version, so a stale entry is never picked up after any of them changes.  With an optimization level of 0 or more the cache stores
+ * the class files produced by {@link ClassCompiler#compileToClassFiles} and
+ * loads them through a {@link GeneratedClassLoader}; in interpreted mode it
+ * stores the serialized interpreter bytecode.
+ * <p>
+ * Scripts are compiled without caching when the context has a debugger or a
+ * security controller, since cached code carries neither debug notifications
+ * nor a security domain.  A damaged or unreadable entry, including class
+ * files rejected by the class loader or the verifier, is silently deleted,
+ * recompiled and replaced.
+ */
+public class CompiledScriptCache
+{
+    private static final int MAGIC = 0x52684343;  // "RhCC"
+    private static final int KIND_INTERPRETED = 1;
+    private static final int KIND_CLASSES = 2;
+
+    private static final String CLASS_PREFIX
+        = "org.mozilla.javascript.gen.cached_";
+
+    private final File directory;
+    private int hitCount;
+    private int missCount;
+
+    public CompiledScriptCache(File directory)
+    {
+        if (directory == null) throw new IllegalArgumentException();
+        this.directory = directory;
+    }
+
+    public File getDirectory()
+    {
+        return directory;
+    }
+
+    public synchronized int getHitCount()
+    {
+        return hitCount;
+    }
+
+    public synchronized int getMissCount()
+    {
+        return missCount;
+    }
+
+    /**
+     * Same as {@link Context#compileReader(Reader, String, int, Object)}
+     * with a <code>null</code> security domain, but consults the cache first.
+     */
+    public Script compileReader(Context cx, Reader in, String sourceName,
+                                int lineno)
+        throws IOException
+    {
+        return compileString(cx, Kit.readReader(in), sourceName, lineno);
+    }
+
+    /**
+     * Same as {@link Context#compileString(String, String, int, Object)}
+     * with a <code>null</code> security domain, but consults the cache first.
+     */
+    public Script compileString(Context cx, String source, String sourceName,
+                                int lineno)
+    {
+        if (cx.getDebugger() != null || cx.getSecurityController() != null) {
+            return cx.compileString(source, sourceName, lineno, null);
+        }
+        CompilerEnvirons compilerEnv = new CompilerEnvirons();
+        compilerEnv.initFromContext(cx);
+        String key = computeKey(cx, compilerEnv, source, sourceName, lineno);
+        File file = new File(directory, key + ".bin");
+        Script script = null;
+        if (file.isFile()) {
+            try {
+                script = load(cx, file, key);
+            } catch (Exception ex) {
+                // damaged or incompatible entry, recompile it below
+                file.delete();
+                script = null;
+            } catch (LinkageError ex) {
+                // damaged class files rejected by the class loader or the
+                // verifier, recompile them below
+                file.delete();
+                script = null;
+            }
+        }
+        if (script != null) {
+            synchronized (this) { ++hitCount; }
+            return script;
+        }
+        synchronized (this) { ++missCount; }
+
+        if (compilerEnv.getOptimizationLevel() >= 0) {
+            ClassCompiler compiler = new ClassCompiler(compilerEnv);
+            Object[] classes = compiler.compileToClassFiles(
+                source, sourceName, lineno, CLASS_PREFIX + key);
+            store(file, KIND_CLASSES, classes);
+            return defineScript(cx, classes);
+        } else {
+            Parser p = new Parser(compilerEnv, compilerEnv.getErrorReporter());
+            ScriptOrFnNode tree = p.parse(source, sourceName, lineno);
+            Interpreter compiler = new Interpreter();
+            InterpreterData idata = (InterpreterData)compiler.compile(
+                compilerEnv, tree, p.getEncodedSource(), false);
+            store(file, KIND_INTERPRETED, idata);
+            return InterpretedFunction.createScript(idata, null);
+        }
+    }
+
+    private static String computeKey(Context cx, CompilerEnvirons compilerEnv,
+                                     String source, String sourceName,
+                                     int lineno)
+    {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException ex) {
+            throw Kit.initCause(new IllegalStateException(), ex);
+        }
+        StringBuffer header = new StringBuffer();
+        header.append(cx.getImplementationVersion()).append('\n');
+        header.append(compilerEnv.getOptimizationLevel()).append('\n');
+        header.append(compilerEnv.getLanguageVersion()).append('\n');
+        header.append(compilerEnv.isGenerateDebugInfo()).append('\n');
+        header.append(compilerEnv.isGeneratingSource()).append('\n');
+        header.append(compilerEnv.isStrictMode()).append('\n');
+        header.append(compilerEnv.isUseDynamicScope()).append('\n');
+        header.append(compilerEnv.reportWarningAsError()).append('\n');
+        header.append(compilerEnv.isReservedKeywordAsIdentifier()).append('\n');
+        header.append(compilerEnv.isAllowMemberExprAsFunctionName())
+            .append('\n');
+        header.append(compilerEnv.isXmlAvailable()).append('\n');
+        header.append(sourceName).append('\n');
+        header.append(lineno).append('\n');
+        try {
+            digest.update(header.toString().getBytes("UTF-8"));
+            digest.update(source.getBytes("UTF-8"));
+        } catch (java.io.UnsupportedEncodingException ex) {
+            throw Kit.initCause(new IllegalStateException(), ex);
+        }
+        byte[] hash = digest.digest();
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i != hash.length; ++i) {
+            int b = hash[i] & 0xFF;
+            hex[i * 2] = Character.forDigit(b >>> 4, 16);
+            hex[i * 2 + 1] = Character.forDigit(b & 0xF, 16);
+        }
+        return new String(hex);
+    }
+
+    private static Script load(Context cx, File file, String key)
+        throws IOException, ClassNotFoundException
+    {
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try {
+            DataInputStream data = new DataInputStream(in);
+            if (data.readInt() != MAGIC) {
+                return null;
+            }
+            int kind = data.readInt();
+            if (kind == KIND_CLASSES) {
+                if (cx.getOptimizationLevel() < 0) {
+                    return null;
+                }
+                int count = data.readInt();
+                Object[] classes = new Object[count * 2];
+                for (int i = 0; i != count; ++i) {
+                    classes[i * 2] = data.readUTF();
+                    byte[] bytes = new byte[data.readInt()];
+                    data.readFully(bytes);
+                    classes[i * 2 + 1] = bytes;
+                }
+                if (count == 0
+                    || !(CLASS_PREFIX + key).equals(classes[0]))
+                {
+                    return null;
+                }
+                return defineScript(cx, classes);
+            } else if (kind == KIND_INTERPRETED) {
+                if (cx.getOptimizationLevel() >= 0) {
+                    return null;
+                }
+                ObjectInputStream objects = new ObjectInputStream(data);
+                InterpreterData idata = (InterpreterData)objects.readObject();
+                return InterpretedFunction.createScript(idata, null);
+            }
+            return null;
+        } finally {
+            in.close();
+        }
+    }
+
+    private static Script defineScript(Context cx, Object[] classes)
+    {
+        GeneratedClassLoader loader = cx.createClassLoader(
+            cx.getApplicationClassLoader());
+        Class mainClass = null;
+        for (int i = 0; i != classes.length; i += 2) {
+            Class c = loader.defineClass((String)classes[i],
+                                         (byte[])classes[i + 1]);
+            if (i == 0) {
+                mainClass = c;
+            }
+        }
+        loader.linkClass(mainClass);
+        try {
+            return (Script)mainClass.newInstance();
+        } catch (Exception ex) {
+            throw new RuntimeException
+                ("Unable to instantiate compiled class:"+ex.toString());
+        }
+    }
+
+    /**
+     * Write the entry to a temporary file first and rename it, so concurrent
+     * runs never observe a partially written entry.  Failures to write are
+     * ignored: the cache is only an optimization.
+     */
+    private void store(File file, int kind, Object content)
+    {
+        File temp = null;
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                return;
+            }
+            temp = File.createTempFile("rhino", ".tmp", directory);
+            OutputStream out = new BufferedOutputStream(
+                new FileOutputStream(temp));
+            try {
+                DataOutputStream data = new DataOutputStream(out);
+                data.writeInt(MAGIC);
+                data.writeInt(kind);
+                if (kind == KIND_CLASSES) {
+                    Object[] classes = (Object[])content;
+                    data.writeInt(classes.length / 2);
+                    for (int i = 0; i != classes.length; i += 2) {
+                        byte[] bytes = (byte[])classes[i + 1];
+                        data.writeUTF((String)classes[i]);
+                        data.writeInt(bytes.length);
+                        data.write(bytes);
+                    }
+                    data.flush();
+                } else {
+                    ObjectOutputStream objects = new ObjectOutputStream(data);
+                    objects.writeObject(content);
+                    objects.flush();
+                }
+            } finally {
+                out.close();
+            }
+            if (file.exists()) {
+                file.delete();
+            }
+            if (temp.renameTo(file)) {
+                temp = null;
+            }
+        } catch (IOException ex) {
+            // caching is best effort
+        } finally {
+            if (temp != null) {
+                temp.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Rhino code, released
+ * May 6, 1999.
+ *
+ * The Initial Developer of the Original Code is
+ * Netscape Communications Corporation.
+ * Portions created by the Initial Developer are Copyright (C) 1997-1999
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * the GNU General Public License Version 2 or later (the "GPL"), in which
+ * case the provisions of the GPL are applicable instead of those above. If
+ * you wish to allow use of your version of this file only under the terms of
+ * the GPL and not to allow others to use your version of this file under the
+ * MPL, indicate your decision by deleting the provisions above and replacing
+ * them with the notice and other provisions required by the GPL. If you do
+ * not delete the provisions above, a recipient may use your version of this
+ * file under either the MPL or the GPL.
+ *
+ * ***** END LICENSE BLOCK ***** */
+
+package org.mozilla.javascript;
+
+import java.io.Serializable;
+
+/**
+ * Lazily concatenated string value produced by the <code>+</code> operator.
+ * <p>
+ * Building a string with repeated <code>s += piece</code> copies the whole
+ * accumulated string on every step when plain {@link String#concat} is
+ * used, which is quadratic in time and allocation.  A <code>ConsString</code>
+ * only links the two operands and remembers the total length, so appending
+ * is constant time; the characters are copied once, when the value is used
+ * for anything but further concatenation, and the flat string is kept from
+ * then on.
+ * <p>
+ * Instances are primitive JavaScript strings: {@link ScriptRuntime} treats
+ * any {@link CharSequence} value as a string in <code>typeof</code>,
+ * comparisons and conversions, and the values are flattened to
+ * {@link String} before they are passed to Java methods.  Embeddings that
+ * inspect the values returned by scripts should use
+ * {@link Context#toString(Object)} rather than test for
+ * <code>instanceof String</code>.
+ */
+public final class ConsString implements CharSequence, Serializable
+{
+    static final long serialVersionUID = 3591651542937548101L;
+
+    /**
+     * Results shorter than this are concatenated eagerly, a short copy is
+     * cheaper than the extra object and the later flattening.
+     */
+    private static final int MIN_LENGTH = 64;
+
+    private CharSequence left;
+    private CharSequence right;
+    private final int length;
+    private String flat;
+
+    private ConsString(CharSequence left, CharSequence right, int length)
+    {
+        this.left = left;
+        this.right = right;
+        this.length = length;
+    }
+
+    /**
+     * Returns the concatenation of the specified strings, either a
+     * {@link String} or a <code>ConsString</code>.
+     */
+    public static CharSequence concat(CharSequence left, CharSequence right)
+    {
+        int leftLength = left.length();
+        if (leftLength == 0) {
+            return right;
+        }
+        int rightLength = right.length();
+        if (rightLength == 0) {
+            return left;
+        }
+        int length = leftLength + rightLength;
+        if (length < 0) {
+            throw Context.reportRuntimeError("String length overflow");
+        }
+        if (length < MIN_LENGTH) {
+            return left.toString().concat(right.toString());
+        }
+        return new ConsString(left, right, length);
+    }
+
+    public int length()
+    {
+        return length;
+    }
+
+    public char charAt(int index)
+    {
+        return toString().charAt(index);
+    }
+
+    public CharSequence subSequence(int start, int end)
+    {
+        return toString().substring(start, end);
+    }
+
+    public synchronized String toString()
+    {
+        if (flat == null) {
+            flat = flatten();
+            left = null;
+            right = null;
+        }
+        return flat;
+    }
+
+    /**
+     * Copies the characters of the tree from the right to the left, the
+     * pending left branches are kept on an explicit stack, so chains built by
+     * repeated appends do not recurse.
+     */
+    private String flatten()
+    {
+        char[] chars = new char[length];
+        int end = length;
+        ObjArray pending = new ObjArray();
+        pending.push(left);
+        CharSequence current = right;
+        for (;;) {
+            if (current instanceof ConsString) {
+                ConsString cons = (ConsString)current;
+                CharSequence consLeft, consRight;
+                String consFlat;
+                synchronized (cons) {
+                    consFlat = cons.flat;
+                    consLeft = cons.left;
+                    consRight = cons.right;
+                }
+                if (consFlat == null) {
+                    pending.push(consLeft);
+                    current = consRight;
+                    continue;
+                }
+                current = consFlat;
+            }
+            String s = current.toString();
+            end -= s.length();
+            s.getChars(0, s.length(), chars, end);
+            if (pending.isEmpty()) {
+                break;
+            }
+            current = (CharSequence)pending.pop();
+        }
+        return new String(chars);
+    }
+
+    private Object writeReplace()
+    {
+        return toString();
+    }
+}
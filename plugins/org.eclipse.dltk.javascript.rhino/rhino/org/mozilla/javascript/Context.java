@@ -288,6 +288,19 @@ public class Context
      */
     public static final int FEATURE_WARNING_AS_ERROR = 12;
 
+    /**
+     * Controls tiered execution of interpreted code.
+     * When the feature is on and the optimization level is -1, functions
+     * that are invoked or loop often enough are compiled to JVM bytecode in
+     * a background thread and later calls use the compiled version.  The
+     * threshold is given by
+     * {@link ContextFactory#getTieredCompilationThreshold()}.
+     * Tiering is never applied while a debugger is attached.
+     * <p>
+     * By default {@link #hasFeature(int)} returns false.
+     */
+    public static final int FEATURE_TIERED_COMPILATION = 13;
+
     public static final String languageVersionProperty = "language version";
     public static final String errorReporterProperty   = "error reporter";
 
@@ -1680,6 +1693,8 @@ public class Context
             || value instanceof Boolean || value instanceof Scriptable)
         {
             return value;
+        } else if (value instanceof ConsString) {
+            return value.toString();
         } else if (value instanceof Character) {
             return String.valueOf(((Character)value).charValue());
         } else {
@@ -2136,6 +2151,7 @@ public class Context
      * @see #FEATURE_LOCATION_INFORMATION_IN_ERROR
      * @see #FEATURE_STRICT_MODE
      * @see #FEATURE_WARNING_AS_ERROR
+     * @see #FEATURE_TIERED_COMPILATION
      */
     public boolean hasFeature(int featureIndex)
     {
@@ -285,10 +285,23 @@ public class ContextFactory
           
           case Context.FEATURE_WARNING_AS_ERROR:
             return false;
+
+          case Context.FEATURE_TIERED_COMPILATION:
+            return false;
         }
         // It is a bug to call the method with unknown featureIndex
         throw new IllegalArgumentException(String.valueOf(featureIndex));
     }
+
+    /**
+     * Returns the number of invocations plus backward jumps after which an
+     * interpreted function is scheduled for compilation to JVM bytecode when
+     * {@link Context#FEATURE_TIERED_COMPILATION} is enabled.
+     */
+    protected int getTieredCompilationThreshold()
+    {
+        return 1000;
+    }
 	
 	private boolean isDom3Present() {
 		Class nodeClass = Kit.classOrNull("org.w3c.dom.Node");
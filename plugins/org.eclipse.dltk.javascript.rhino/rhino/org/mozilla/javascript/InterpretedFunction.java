@@ -50,6 +50,9 @@ final class InterpretedFunction extends NativeFunction implements Script
     SecurityController securityController;
     Object securityDomain;
     Scriptable[] functionRegExps;
+    // 0 if the function is never compiled, see TieredCompiler
+    int tierThreshold;
+    private Function compiledTier;
 
     private InterpretedFunction(InterpreterData idata,
                                 Object staticSecurityDomain)
@@ -137,6 +140,33 @@ final class InterpretedFunction extends NativeFunction implements Script
         if (idata.itsRegExpLiterals != null) {
             functionRegExps = createRegExpWraps(cx, scope);
         }
+        tierThreshold = TieredCompiler.getThreshold(cx, this);
+    }
+
+    /**
+     * Count the invocation for tiered execution and return the compiled
+     * version of this function if one is available, null otherwise.
+     */
+    final Function getCompiledTier(Context cx)
+    {
+        if (tierThreshold == 0) {
+            return null;
+        }
+        if (compiledTier == null) {
+            TieredCompiler.count(cx, this, 1);
+            compiledTier = TieredCompiler.instantiate(cx, this);
+        }
+        return compiledTier;
+    }
+
+    /**
+     * Count a backward jump taken while interpreting this function.
+     */
+    final void countBackEdge(Context cx)
+    {
+        if (tierThreshold != 0 && compiledTier == null) {
+            TieredCompiler.count(cx, this, 1);
+        }
     }
 
     public String getFunctionName()
@@ -159,6 +189,10 @@ final class InterpretedFunction extends NativeFunction implements Script
         if (!ScriptRuntime.hasTopCall(cx)) {
             return ScriptRuntime.doTopCall(this, cx, scope, thisObj, args);
         }
+        Function compiled = getCompiledTier(cx);
+        if (compiled != null) {
+            return compiled.call(cx, scope, thisObj, args);
+        }
         return Interpreter.interpret(this, cx, scope, thisObj, args);
     }
 
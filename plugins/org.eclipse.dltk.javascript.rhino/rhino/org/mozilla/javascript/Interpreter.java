@@ -552,7 +552,11 @@ public class Interpreter
                 String str = (String)iter.getKey();
                 int index = iter.getValue();
                 if (itsData.itsStringTable[index] != null) Kit.codeBug();
-                itsData.itsStringTable[index] = str;
+                // Interned, so the property names of all the functions and
+                // scripts share the same String instances with each other
+                // and with the names of the standard objects, see
+                // ScriptableObject.accessSlot
+                itsData.itsStringTable[index] = str.intern();
             }
         }
         if (itsDoubleTableTop == 0) {
@@ -2995,6 +2999,16 @@ switch (op) {
             value = ScriptRuntime.getObjectElem(lhs, id, cx);
         } else {
             double d = sDbl[stackTop + 1];
+            if (lhs instanceof NativeArray) {
+                // read numeric array elements without wrapping them
+                NativeArray array = (NativeArray)lhs;
+                int index = (int)d;
+                if (index == d && array.hasDenseNumber(index)) {
+                    stack[stackTop] = DBL_MRK;
+                    sDbl[stackTop] = array.getDenseNumber(index);
+                    continue Loop;
+                }
+            }
             value = ScriptRuntime.getObjectIndex(lhs, d, cx);
         }
         stack[stackTop] = value;
@@ -3004,6 +3018,22 @@ switch (op) {
         stackTop -= 2;
         Object rhs = stack[stackTop + 2];
         if (rhs == DBL_MRK) {
+            Object lhs = stack[stackTop];
+            if (lhs instanceof NativeArray
+                && stack[stackTop + 1] == DBL_MRK)
+            {
+                // store numbers into numeric arrays without wrapping them
+                double d = sDbl[stackTop + 1];
+                int index = (int)d;
+                double value = sDbl[stackTop + 2];
+                if (index == d
+                    && ((NativeArray)lhs).setDenseNumber(index, value))
+                {
+                    stack[stackTop] = DBL_MRK;
+                    sDbl[stackTop] = value;
+                    continue Loop;
+                }
+            }
             rhs = ScriptRuntime.wrapNumber(sDbl[stackTop + 2]);
         }
         Object lhs = stack[stackTop];
@@ -3166,7 +3196,10 @@ switch (op) {
         }
         if (fun instanceof InterpretedFunction) {
             InterpretedFunction ifun = (InterpretedFunction)fun;
-            if (frame.fnOrScript.securityDomain == ifun.securityDomain) {
+            Function compiled = ifun.getCompiledTier(cx);
+            if (compiled != null) {
+                fun = compiled;
+            } else if (frame.fnOrScript.securityDomain == ifun.securityDomain) {
                 CallFrame callParentFrame = frame;
                 CallFrame calleeFrame = new CallFrame();
                 if (op == Icode_TAIL_CALL) {
@@ -3249,6 +3282,17 @@ switch (op) {
         Object lhs = stack[stackTop];
         if (lhs instanceof InterpretedFunction) {
             InterpretedFunction f = (InterpretedFunction)lhs;
+            Function compiled = f.getCompiledTier(cx);
+            if (compiled != null) {
+                Scriptable newInstance = f.createObject(cx, frame.scope);
+                Object[] outArgs = getArgsArray(stack, sDbl, stackTop + 1,
+                                                indexReg);
+                Object result = compiled.call(cx, frame.scope, newInstance,
+                                              outArgs);
+                stack[stackTop] = (result instanceof Scriptable)
+                                  ? result : newInstance;
+                continue Loop;
+            }
             if (frame.fnOrScript.securityDomain == f.securityDomain) {
                 Scriptable newInstance = f.createObject(cx, frame.scope);
                 CallFrame calleeFrame = new CallFrame();
@@ -3720,6 +3764,10 @@ switch (op) {
                         addInstructionCount(cx, frame, 2);
                     }
                     int offset = getShort(iCode, frame.pc);
+                    if (offset < 0) {
+                        // backward jump: count loop iterations for tiering
+                        frame.fnOrScript.countBackEdge(cx);
+                    }
                     if (offset != 0) {
                         // -1 accounts for pc pointing to jump opcode + 1
                         frame.pc += offset - 1;
@@ -4258,14 +4306,14 @@ switch (op) {
         } else {
             if (lhs instanceof Scriptable || rhs instanceof Scriptable) {
                 stack[stackTop] = ScriptRuntime.add(lhs, rhs, cx);
-            } else if (lhs instanceof String) {
-                String lstr = (String)lhs;
-                String rstr = ScriptRuntime.toString(rhs);
-                stack[stackTop] = lstr.concat(rstr);
-            } else if (rhs instanceof String) {
-                String lstr = ScriptRuntime.toString(lhs);
-                String rstr = (String)rhs;
-                stack[stackTop] = lstr.concat(rstr);
+            } else if (lhs instanceof CharSequence) {
+                CharSequence lstr = (CharSequence)lhs;
+                CharSequence rstr = ScriptRuntime.toCharSequence(rhs);
+                stack[stackTop] = ConsString.concat(lstr, rstr);
+            } else if (rhs instanceof CharSequence) {
+                CharSequence lstr = ScriptRuntime.toCharSequence(lhs);
+                CharSequence rstr = (CharSequence)rhs;
+                stack[stackTop] = ConsString.concat(lstr, rstr);
             } else {
                 double lDbl = (lhs instanceof Number)
                     ? ((Number)lhs).doubleValue() : ScriptRuntime.toNumber(lhs);
@@ -4286,13 +4334,13 @@ switch (op) {
                 rhs = tmp;
             }
             stack[stackTop] = ScriptRuntime.add(lhs, rhs, cx);
-        } else if (lhs instanceof String) {
-            String lstr = (String)lhs;
-            String rstr = ScriptRuntime.toString(d);
+        } else if (lhs instanceof CharSequence) {
+            CharSequence lstr = (CharSequence)lhs;
+            CharSequence rstr = ScriptRuntime.toString(d);
             if (leftRightOrder) {
-                stack[stackTop] = lstr.concat(rstr);
+                stack[stackTop] = ConsString.concat(lstr, rstr);
             } else {
-                stack[stackTop] = rstr.concat(lstr);
+                stack[stackTop] = ConsString.concat(rstr, lstr);
             }
         } else {
             double lDbl = (lhs instanceof Number)
@@ -40,6 +40,8 @@
 
 package org.mozilla.javascript;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 import org.mozilla.javascript.debug.DebuggableScript;
@@ -124,6 +126,11 @@ final class InterpreterData implements Serializable, DebuggableScript
 
     boolean evalScriptFlag; // true if script corresponds to eval() code
 
+    // Tiered execution state, see TieredCompiler
+    transient int tierCounter;
+    transient volatile int tierState;
+    transient volatile Object tierBytecode;
+
     public boolean isTopLevel()
     {
         return topLevel;
@@ -189,4 +196,19 @@ final class InterpreterData implements Serializable, DebuggableScript
          return parentData;
     }
 
+    private void readObject(ObjectInputStream in)
+        throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        // Restore the identity of the property names, see
+        // Interpreter.generateICodeFromTree
+        if (itsStringTable != null) {
+            for (int i = 0; i != itsStringTable.length; ++i) {
+                if (itsStringTable[i] != null) {
+                    itsStringTable[i] = itsStringTable[i].intern();
+                }
+            }
+        }
+    }
+
 }
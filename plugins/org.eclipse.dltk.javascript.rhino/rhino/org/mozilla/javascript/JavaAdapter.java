@@ -302,7 +302,7 @@ public final class JavaAdapter implements IdFunctionCall
                                          Class[] interfaces, Scriptable obj)
     {
         ClassCache cache = ClassCache.get(scope);
-        Hashtable generated = cache.javaAdapterGeneratedClasses;
+        Map generated = cache.javaAdapterGeneratedClasses;
 
         ObjToIntMap names = getObjectFunctionNames(obj);
         JavaAdapterSignature sig;
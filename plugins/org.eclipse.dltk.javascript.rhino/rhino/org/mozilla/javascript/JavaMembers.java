@@ -46,8 +46,10 @@ import java.lang.reflect.*;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.Iterator;
 import java.util.Enumeration;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  *
@@ -71,15 +73,15 @@ class JavaMembers
             throw Context.reportRuntimeError1("msg.access.prohibited",
                                               cl.getName());
         }
-        this.members = new Hashtable(23);
-        this.staticMembers = new Hashtable(7);
+        this.members = new ConcurrentHashMap(23);
+        this.staticMembers = new ConcurrentHashMap(7);
         this.cl = cl;
         reflect(scope, includeProtected);
     }
 
     boolean has(String name, boolean isStatic)
     {
-        Hashtable ht = isStatic ? staticMembers : members;
+        Map ht = isStatic ? staticMembers : members;
         Object obj = ht.get(name);
         if (obj != null) {
             return true;
@@ -91,7 +93,7 @@ class JavaMembers
     Object get(Scriptable scope, String name, Object javaObject,
                boolean isStatic)
     {
-        Hashtable ht = isStatic ? staticMembers : members;
+        Map ht = isStatic ? staticMembers : members;
         Object member = ht.get(name);
         if (!isStatic && member == null) {
             // Try to get static member from instance (LC3)
@@ -132,7 +134,7 @@ class JavaMembers
     void put(Scriptable scope, String name, Object javaObject,
              Object value, boolean isStatic)
     {
-        Hashtable ht = isStatic ? staticMembers : members;
+        Map ht = isStatic ? staticMembers : members;
         Object member = ht.get(name);
         if (!isStatic && member == null) {
             // Try to get static member from instance (LC3)
@@ -193,13 +195,8 @@ class JavaMembers
 
     Object[] getIds(boolean isStatic)
     {
-        Hashtable ht = isStatic ? staticMembers : members;
-        int len = ht.size();
-        Object[] result = new Object[len];
-        Enumeration keys = ht.keys();
-        for (int i=0; i < len; i++)
-            result[i] = keys.nextElement();
-        return result;
+        Map ht = isStatic ? staticMembers : members;
+        return ht.keySet().toArray();
     }
 
     static String javaSignature(Class type)
@@ -250,7 +247,7 @@ class JavaMembers
         int sigStart = name.indexOf('(');
         if (sigStart < 0) { return null; }
 
-        Hashtable ht = isStatic ? staticMembers : members;
+        Map ht = isStatic ? staticMembers : members;
         MemberBox[] methodsOrCtors = null;
         boolean isCtor = (isStatic && sigStart == 0);
 
@@ -289,7 +286,7 @@ class JavaMembers
     private Object getExplicitFunction(Scriptable scope, String name,
                                        Object javaObject, boolean isStatic)
     {
-        Hashtable ht = isStatic ? staticMembers : members;
+        Map ht = isStatic ? staticMembers : members;
         Object member = null;
         MemberBox methodOrCtor = findExplicitFunction(name, isStatic);
 
@@ -430,7 +427,7 @@ class JavaMembers
             Method method = methods[i];
             int mods = method.getModifiers();
             boolean isStatic = Modifier.isStatic(mods);
-            Hashtable ht = isStatic ? staticMembers : members;
+            Map ht = isStatic ? staticMembers : members;
             String name = method.getName();
             Object value = ht.get(name);
             if (value == null) {
@@ -455,10 +452,10 @@ class JavaMembers
         // first in staticMembers and then in members
         for (int tableCursor = 0; tableCursor != 2; ++tableCursor) {
             boolean isStatic = (tableCursor == 0);
-            Hashtable ht = (isStatic) ? staticMembers : members;
-            Enumeration e = ht.keys();
-            while (e.hasMoreElements()) {
-                String name = (String)e.nextElement();
+            Map ht = (isStatic) ? staticMembers : members;
+            Iterator e = ht.keySet().iterator();
+            while (e.hasNext()) {
+                String name = (String)e.next();
                 MemberBox[] methodBoxes;
                 Object value = ht.get(name);
                 if (value instanceof Method) {
@@ -491,7 +488,7 @@ class JavaMembers
                 continue;
             }
             boolean isStatic = Modifier.isStatic(mods);
-            Hashtable ht = isStatic ? staticMembers : members;
+            Map ht = isStatic ? staticMembers : members;
             String name = field.getName();
             Object member = ht.get(name);
             if (member == null) {
@@ -500,10 +497,10 @@ class JavaMembers
                 NativeJavaMethod method = (NativeJavaMethod) member;
                 FieldAndMethods fam
                     = new FieldAndMethods(scope, method.methods, field);
-                Hashtable fmht = isStatic ? staticFieldAndMethods
-                                          : fieldAndMethods;
+                Map fmht = isStatic ? staticFieldAndMethods
+                                    : fieldAndMethods;
                 if (fmht == null) {
-                    fmht = new Hashtable(4);
+                    fmht = new ConcurrentHashMap(4);
                     if (isStatic) {
                         staticFieldAndMethods = fmht;
                     } else {
@@ -534,15 +531,15 @@ class JavaMembers
         // static members and then for instance members
         for (int tableCursor = 0; tableCursor != 2; ++tableCursor) {
             boolean isStatic = (tableCursor == 0);
-            Hashtable ht = (isStatic) ? staticMembers : members;
+            Map ht = (isStatic) ? staticMembers : members;
 
             Hashtable toAdd = new Hashtable();
 
             // Now, For each member, make "bean" properties.
-            for (Enumeration e = ht.keys(); e.hasMoreElements(); ) {
+            for (Iterator e = ht.keySet().iterator(); e.hasNext(); ) {
 
                 // Is this a getter?
-                String name = (String) e.nextElement();
+                String name = (String) e.next();
                 boolean memberIsGetMethod = name.startsWith("get");
                 boolean memberIsSetMethod = name.startsWith("set");
                 boolean memberIsIsMethod = name.startsWith("is");
@@ -634,7 +631,7 @@ class JavaMembers
         }
     }
 
-    private MemberBox findGetter(boolean isStatic, Hashtable ht, String prefix, String propertyName)
+    private MemberBox findGetter(boolean isStatic, Map ht, String prefix, String propertyName)
     {
         String getterName = prefix.concat(propertyName);
         if (ht.containsKey(getterName)) {
@@ -726,14 +723,14 @@ class JavaMembers
     Hashtable getFieldAndMethodsObjects(Scriptable scope, Object javaObject,
                                         boolean isStatic)
     {
-        Hashtable ht = isStatic ? staticFieldAndMethods : fieldAndMethods;
+        Map ht = isStatic ? staticFieldAndMethods : fieldAndMethods;
         if (ht == null)
             return null;
         int len = ht.size();
         Hashtable result = new Hashtable(len);
-        Enumeration e = ht.elements();
-        while (len-- > 0) {
-            FieldAndMethods fam = (FieldAndMethods) e.nextElement();
+        Iterator e = ht.values().iterator();
+        while (e.hasNext()) {
+            FieldAndMethods fam = (FieldAndMethods) e.next();
             FieldAndMethods famNew = new FieldAndMethods(scope, fam.methods,
                                                          fam.field);
             famNew.javaObject = javaObject;
@@ -747,7 +744,7 @@ class JavaMembers
     {
         JavaMembers members;
         ClassCache cache = ClassCache.get(scope);
-        Hashtable ct = cache.classTable;
+        Map ct = cache.classTable;
 
         Class cl = dynamicType;
         for (;;) {
@@ -793,10 +790,10 @@ class JavaMembers
     }
 
     private Class cl;
-    private Hashtable members;
-    private Hashtable fieldAndMethods;
-    private Hashtable staticMembers;
-    private Hashtable staticFieldAndMethods;
+    private Map members;
+    private Map fieldAndMethods;
+    private Map staticMembers;
+    private Map staticFieldAndMethods;
     MemberBox[] ctors;
 }
 
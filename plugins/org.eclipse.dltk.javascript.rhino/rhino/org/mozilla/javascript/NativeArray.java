@@ -90,9 +90,7 @@ public class NativeArray extends IdScriptableObject
         if (intLength == length && intLength > 0) {
             if (intLength > maximumDenseLength)
                 intLength = maximumDenseLength;
-            dense = new Object[intLength];
-            for (int i=0; i < intLength; i++)
-                dense[i] = NOT_FOUND;
+            denseNumbers = newDenseNumbers(intLength);
         }
         this.length = length;
     }
@@ -253,15 +251,31 @@ public class NativeArray extends IdScriptableObject
 
     public Object get(int index, Scriptable start)
     {
-        if (dense != null && 0 <= index && index < dense.length)
-            return dense[index];
+        double[] numbers = denseNumbers;
+        if (numbers != null) {
+            if (0 <= index && index < numbers.length) {
+                double d = numbers[index];
+                return isHole(d) ? NOT_FOUND : ScriptRuntime.wrapNumber(d);
+            }
+        } else {
+            Object[] objects = dense;
+            if (objects != null && 0 <= index && index < objects.length)
+                return objects[index];
+        }
         return super.get(index, start);
     }
 
     public boolean has(int index, Scriptable start)
     {
-        if (dense != null && 0 <= index && index < dense.length)
-            return dense[index] != NOT_FOUND;
+        double[] numbers = denseNumbers;
+        if (numbers != null) {
+            if (0 <= index && index < numbers.length)
+                return !isHole(numbers[index]);
+        } else {
+            Object[] objects = dense;
+            if (objects != null && 0 <= index && index < objects.length)
+                return objects[index] != NOT_FOUND;
+        }
         return super.has(index, start);
     }
 
@@ -297,12 +311,8 @@ public class NativeArray extends IdScriptableObject
 
     public void put(int index, Scriptable start, Object value)
     {
-        if (start == this && !isSealed()
-            && dense != null && 0 <= index && index < dense.length)
-        {
-            // If start == this && sealed, super will throw exception
-            dense[index] = value;
-        } else {
+        // If start == this && sealed, super will throw exception
+        if (start != this || isSealed() || !putDense(index, value)) {
             super.put(index, start, value);
         }
         if (start == this) {
@@ -317,10 +327,12 @@ public class NativeArray extends IdScriptableObject
 
     public void delete(int index)
     {
-        if (!isSealed()
-            && dense != null && 0 <= index && index < dense.length)
-        {
-            dense[index] = NOT_FOUND;
+        if (!isSealed() && 0 <= index && index < getDenseCapacity()) {
+            if (denseNumbers != null) {
+                denseNumbers[index] = HOLE;
+            } else {
+                dense[index] = NOT_FOUND;
+            }
         } else {
             super.delete(index);
         }
@@ -329,8 +341,10 @@ public class NativeArray extends IdScriptableObject
     public Object[] getIds()
     {
         Object[] superIds = super.getIds();
-        if (dense == null) { return superIds; }
-        int N = dense.length;
+        double[] numbers = denseNumbers;
+        Object[] objects = dense;
+        if (numbers == null && objects == null) { return superIds; }
+        int N = numbers != null ? numbers.length : objects.length;
         long currentLength = length;
         if (N > currentLength) {
             N = (int)currentLength;
@@ -338,15 +352,24 @@ public class NativeArray extends IdScriptableObject
         if (N == 0) { return superIds; }
         int superLength = superIds.length;
         Object[] ids = new Object[N + superLength];
-        // Make a copy of dense to be immune to removing
-        // of array elems from other thread when calculating presentCount
-        System.arraycopy(dense, 0, ids, 0, N);
         int presentCount = 0;
-        for (int i = 0; i != N; ++i) {
-            // Replace existing elements by their indexes
-            if (ids[i] != NOT_FOUND) {
-                ids[presentCount] = new Integer(i);
-                ++presentCount;
+        if (numbers != null) {
+            for (int i = 0; i != N; ++i) {
+                if (!isHole(numbers[i])) {
+                    ids[presentCount] = new Integer(i);
+                    ++presentCount;
+                }
+            }
+        } else {
+            // Make a copy of dense to be immune to removing
+            // of array elems from other thread when calculating presentCount
+            System.arraycopy(objects, 0, ids, 0, N);
+            for (int i = 0; i != N; ++i) {
+                // Replace existing elements by their indexes
+                if (ids[i] != NOT_FOUND) {
+                    ids[presentCount] = new Integer(i);
+                    ++presentCount;
+                }
             }
         }
         if (presentCount != N) {
@@ -400,6 +423,148 @@ public class NativeArray extends IdScriptableObject
         return length;
     }
 
+    /*
+     * Dense storage.  Elements with indexes below the dense capacity are kept
+     * either in denseNumbers, as long as only numbers were stored there, or
+     * in dense, never in both.  The numeric representation avoids a wrapper
+     * object per element; it is converted to the Object[] one the first time
+     * a non-numeric value is stored.  Holes are marked with a NaN carrying a
+     * private payload, NaN values themselves are stored in canonical form.
+     */
+
+    private static double[] newDenseNumbers(int capacity)
+    {
+        double[] numbers = new double[capacity];
+        for (int i = 0; i != capacity; ++i) {
+            numbers[i] = HOLE;
+        }
+        return numbers;
+    }
+
+    private static boolean isHole(double d)
+    {
+        return Double.doubleToRawLongBits(d) == HOLE_BITS;
+    }
+
+    private static boolean isDenseNumber(Object value)
+    {
+        return value instanceof Double || value instanceof Integer;
+    }
+
+    private int getDenseCapacity()
+    {
+        if (denseNumbers != null) {
+            return denseNumbers.length;
+        }
+        return dense != null ? dense.length : 0;
+    }
+
+    private void convertToObjectDense()
+    {
+        double[] numbers = denseNumbers;
+        Object[] objects = new Object[numbers.length];
+        for (int i = 0; i != numbers.length; ++i) {
+            double d = numbers[i];
+            objects[i] = isHole(d) ? NOT_FOUND : ScriptRuntime.wrapNumber(d);
+        }
+        dense = objects;
+        denseNumbers = null;
+    }
+
+    /**
+     * Make room for the element at index when it is appended right after the
+     * end of dense storage.  Returns false when the element must be kept in
+     * the ordinary property slots.
+     */
+    private boolean ensureDenseCapacity(int index, boolean number)
+    {
+        int capacity = getDenseCapacity();
+        if (index < capacity) {
+            return true;
+        }
+        // Only grow when every element below index is already kept in dense
+        // storage, so no slot can be shadowed.
+        if (index != capacity || length != capacity
+            || index >= maximumDenseLength)
+        {
+            return false;
+        }
+        int newCapacity = capacity < 8 ? 8 : capacity * 2;
+        if (newCapacity > maximumDenseLength) {
+            newCapacity = maximumDenseLength;
+        }
+        if (denseNumbers != null || (dense == null && number)) {
+            double[] numbers = newDenseNumbers(newCapacity);
+            if (denseNumbers != null) {
+                System.arraycopy(denseNumbers, 0, numbers, 0, capacity);
+            }
+            denseNumbers = numbers;
+        } else {
+            Object[] objects = new Object[newCapacity];
+            if (dense != null) {
+                System.arraycopy(dense, 0, objects, 0, capacity);
+            }
+            for (int i = capacity; i != newCapacity; ++i) {
+                objects[i] = NOT_FOUND;
+            }
+            dense = objects;
+        }
+        return true;
+    }
+
+    private boolean putDense(int index, Object value)
+    {
+        if (index < 0 || !ensureDenseCapacity(index, isDenseNumber(value))) {
+            return false;
+        }
+        if (denseNumbers != null) {
+            if (isDenseNumber(value)) {
+                double d = ((Number)value).doubleValue();
+                denseNumbers[index] = d == d ? d : ScriptRuntime.NaN;
+                return true;
+            }
+            convertToObjectDense();
+        }
+        dense[index] = value;
+        return true;
+    }
+
+    /**
+     * Unboxed element access for the interpreter and builtins.  Since these
+     * bypass {@link #get(int, Scriptable)} and {@link #put(int, Scriptable,
+     * Object)} they never apply to subclasses.
+     */
+    final boolean hasDenseNumber(int index)
+    {
+        double[] numbers = denseNumbers;
+        return numbers != null && 0 <= index && index < numbers.length
+               && !isHole(numbers[index]) && getClass() == NativeArray.class;
+    }
+
+    final double getDenseNumber(int index)
+    {
+        return denseNumbers[index];
+    }
+
+    /**
+     * Store a number without wrapping it, returns false if the value must
+     * be stored with the generic {@link #put(int, Scriptable, Object)}.
+     */
+    final boolean setDenseNumber(int index, double value)
+    {
+        if (denseNumbers == null || index < 0 || isSealed()
+            || getClass() != NativeArray.class
+            || !ensureDenseCapacity(index, true))
+        {
+            return false;
+        }
+        denseNumbers[index] = value == value ? value : ScriptRuntime.NaN;
+        if (length <= index) {
+            length = (long)index + 1;
+        }
+        return true;
+    }
+
     /** @deprecated Use {@link #getLength()} instead. */
     public long jsGet_length() {
         return getLength();
@@ -555,8 +720,8 @@ public class NativeArray extends IdScriptableObject
                     if (toSource) {
                         result.append(ScriptRuntime.uneval(cx, scope, elem));
 
-                    } else if (elem instanceof String) {
-                        String s = (String)elem;
+                    } else if (elem instanceof CharSequence) {
+                        String s = elem.toString();
                         if (toSource) {
                             result.append('\"');
                             result.append(ScriptRuntime.escapeString(s));
@@ -619,9 +784,19 @@ public class NativeArray extends IdScriptableObject
         if (length == 0) {
             return "";
         }
+        NativeArray array = thisObj instanceof NativeArray
+                            ? (NativeArray)thisObj : null;
         String[] buf = new String[length];
         int total_size = 0;
         for (int i = 0; i != length; i++) {
+            if (array != null && array.hasDenseNumber(i)) {
+                // numbers are converted without wrapping them first
+                String str = ScriptRuntime.numberToString(
+                                 array.getDenseNumber(i), 10);
+                total_size += str.length();
+                buf[i] = str;
+                continue;
+            }
             Object temp = getElem(cx, thisObj, i);
             if (temp != null && temp != Undefined.instance) {
                 String str = ScriptRuntime.toString(temp);
@@ -687,7 +862,11 @@ public class NativeArray extends IdScriptableObject
         }
 
         // Should we use the extended sort function, or the faster one?
-        if (length >= Integer.MAX_VALUE) {
+        if (compare == null && thisObj instanceof NativeArray
+            && ((NativeArray)thisObj).sortDenseNumbers())
+        {
+            return thisObj;
+        } else if (length >= Integer.MAX_VALUE) {
             heapsort_extended(cx, scope, thisObj, length, compare, cmpBuf);
         }
         else {
@@ -709,6 +888,54 @@ public class NativeArray extends IdScriptableObject
         return thisObj;
     }
 
+    /**
+     * Default sort of an array kept in numeric dense storage without holes.
+     * The string form of each element is computed once instead of on every
+     * comparison.  Returns false if the generic sort must be used.
+     */
+    private boolean sortDenseNumbers()
+    {
+        if (denseNumbers == null || isSealed()
+            || getClass() != NativeArray.class
+            || length > denseNumbers.length)
+        {
+            return false;
+        }
+        int len = (int)length;
+        double[] numbers = denseNumbers;
+        for (int i = 0; i != len; ++i) {
+            if (isHole(numbers[i])) {
+                return false;
+            }
+        }
+        NumberSortKey[] keys = new NumberSortKey[len];
+        for (int i = 0; i != len; ++i) {
+            keys[i] = new NumberSortKey(numbers[i]);
+        }
+        java.util.Arrays.sort(keys);
+        for (int i = 0; i != len; ++i) {
+            numbers[i] = keys[i].value;
+        }
+        return true;
+    }
+
+    private static final class NumberSortKey implements Comparable
+    {
+        final double value;
+        final String key;
+
+        NumberSortKey(double value)
+        {
+            this.value = value;
+            this.key = ScriptRuntime.numberToString(value, 10);
+        }
+
+        public int compareTo(Object other)
+        {
+            return key.compareTo(((NumberSortKey)other).key);
+        }
+    }
+
     // Return true only if x > y
     private static boolean isBigger(Context cx, Scriptable scope,
                                     Object x, Object y,
@@ -869,12 +1096,27 @@ public class NativeArray extends IdScriptableObject
                                   Object[] args)
     {
         long length = getLengthProperty(cx, thisObj);
-        for (int i = 0; i < args.length; i++) {
-            setElem(cx, thisObj, length + i, args[i]);
-        }
+        Object lengthObj;
+        if (thisObj instanceof NativeArray
+            && thisObj.getClass() == NativeArray.class
+            && length + args.length <= Integer.MAX_VALUE)
+        {
+            // append directly so new elements stay in dense storage
+            NativeArray array = (NativeArray)thisObj;
+            for (int i = 0; i < args.length; i++) {
+                array.put((int)length + i, array, args[i]);
+            }
+            length += args.length;
+            array.length = length;
+            lengthObj = ScriptRuntime.wrapNumber(length);
+        } else {
+            for (int i = 0; i < args.length; i++) {
+                setElem(cx, thisObj, length + i, args[i]);
+            }
 
-        length += args.length;
-        Object lengthObj = setLengthProperty(cx, thisObj, length);
+            length += args.length;
+            lengthObj = setLengthProperty(cx, thisObj, length);
+        }
 
         /*
          * If JS1.2, follow Perl4 by returning the last thing pushed.
@@ -1129,6 +1371,13 @@ public class NativeArray extends IdScriptableObject
             }
         }
 
+        if (thisObj instanceof NativeArray && result instanceof NativeArray
+            && ((NativeArray)result).sliceDenseNumbers(
+                   (NativeArray)thisObj, begin, end))
+        {
+            return result;
+        }
+
         for (long slot = begin; slot < end; slot++) {
             Object temp = getElem(cx, thisObj, slot);
             setElem(cx, result, slot - begin, temp);
@@ -1137,6 +1386,35 @@ public class NativeArray extends IdScriptableObject
         return result;
     }
 
+    /**
+     * Initialize this freshly created array with a copy of the numeric dense
+     * storage of source between begin and end.  Returns false if source is
+     * not in that form or the range contains holes.
+     */
+    private boolean sliceDenseNumbers(NativeArray source, long begin, long end)
+    {
+        double[] numbers = source.denseNumbers;
+        if (numbers == null || end > numbers.length || begin >= end
+            || length != 0 || getClass() != NativeArray.class
+            || source.getClass() != NativeArray.class)
+        {
+            return false;
+        }
+        int from = (int)begin;
+        int count = (int)(end - begin);
+        for (int i = from; i != from + count; ++i) {
+            if (isHole(numbers[i])) {
+                return false;
+            }
+        }
+        double[] copy = new double[count];
+        System.arraycopy(numbers, from, copy, 0, count);
+        denseNumbers = copy;
+        dense = null;
+        length = count;
+        return true;
+    }
+
     private static long toSliceIndex(double value, long length) {
         long result;
         if (value < 0.0) {
@@ -1330,5 +1608,8 @@ public class NativeArray extends IdScriptableObject
 
     private long length;
     private Object[] dense;
+    private double[] denseNumbers;
+    private static final long HOLE_BITS = 0x7ff8dead0000beefL;
+    private static final double HOLE = Double.longBitsToDouble(HOLE_BITS);
     private static final int maximumDenseLength = 10000;
 }
@@ -42,6 +42,8 @@
 package org.mozilla.javascript;
 
 import java.lang.reflect.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class reflects Java methods into the JavaScript environment and
@@ -90,7 +92,7 @@ public class NativeJavaMethod extends BaseFunction
                 s = "null";
             } else if (value instanceof Boolean) {
                 s = "boolean";
-            } else if (value instanceof String) {
+            } else if (value instanceof CharSequence) {
                 s = "string";
             } else if (value instanceof Number) {
                 s = "number";
@@ -154,15 +156,15 @@ public class NativeJavaMethod extends BaseFunction
             throw new RuntimeException("No methods defined for call");
         }
 
-        int index = findFunction(cx, methods, args);
-        if (index < 0) {
+        ResolvedOverload resolved = findCachedFunction(cx, args);
+        if (resolved == null) {
             Class c = methods[0].method().getDeclaringClass();
             String sig = c.getName() + '.' + getFunctionName() + '(' +
                          scriptSignature(args) + ')';
             throw Context.reportRuntimeError1("msg.java.no_such_method", sig);
         }
 
-        MemberBox meth = methods[index];
+        MemberBox meth = methods[resolved.index];
         Class[] argTypes = meth.argTypes;
       
         if (meth.vararg) {
@@ -204,7 +206,12 @@ public class NativeJavaMethod extends BaseFunction
         } else {  
             // First, we marshall the args.
             Object[] origArgs = args;
+            boolean[] passThrough = resolved.passThrough;
             for (int i = 0; i < args.length; i++) {
+                if (passThrough != null && passThrough[i]) {
+                    // already an instance of the parameter type
+                    continue;
+                }
                 Object arg = args[i];
                 Object coerced = Context.jsToJava(arg, argTypes[i]);
                 if (coerced != arg) {
@@ -266,6 +273,40 @@ public class NativeJavaMethod extends BaseFunction
         return wrapped;
     }
 
+    /**
+     * Same as {@link #findFunction(Context, MemberBox[], Object[])} for the
+     * methods of this object, but the outcome is remembered for the runtime
+     * types of the arguments, so repeated calls with arguments of the same
+     * types skip overload resolution.  Returns null if no method applies.
+     */
+    private ResolvedOverload findCachedFunction(Context cx, Object[] args)
+    {
+        ArgTypesKey key = ArgTypesKey.create(args);
+        Map cache = overloadCache;
+        if (key != null && cache != null) {
+            ResolvedOverload resolved = (ResolvedOverload)cache.get(key);
+            if (resolved != null) {
+                return resolved;
+            }
+        }
+        int index = findFunction(cx, methods, args);
+        if (index < 0) {
+            return null;
+        }
+        ResolvedOverload resolved
+            = new ResolvedOverload(index, methods[index], args);
+        if (key != null) {
+            if (cache == null) {
+                cache = new ConcurrentHashMap(4);
+                overloadCache = cache;
+            }
+            if (cache.size() < MAX_CACHED_OVERLOADS) {
+                cache.put(key, resolved);
+            }
+        }
+        return resolved;
+    }
+
     /**
      * Find the index of the correct function to call given the set of methods
      * or constructors and the arguments.
@@ -558,6 +599,136 @@ public class NativeJavaMethod extends BaseFunction
     }
 
     MemberBox[] methods;
+    private transient volatile Map overloadCache;
+
+    private static final int MAX_CACHED_OVERLOADS = 32;
+
+    /**
+     * Outcome of overload resolution: the selected method and, for each
+     * argument, whether it can be passed to Java without conversion.
+     */
+    private static final class ResolvedOverload
+    {
+        final int index;
+        final boolean[] passThrough;
+
+        ResolvedOverload(int index, MemberBox member, Object[] args)
+        {
+            this.index = index;
+            boolean[] plan = null;
+            if (!member.vararg) {
+                Class[] argTypes = member.argTypes;
+                for (int i = 0; i != args.length; ++i) {
+                    Object arg = args[i];
+                    // Scriptable, Number and string values always go
+                    // through Context.jsToJava (which flattens ConsString),
+                    // anything else already of the parameter type is
+                    // passed as is.
+                    if (arg != null && !(arg instanceof Scriptable)
+                        && !(arg instanceof Number)
+                        && !(arg instanceof CharSequence)
+                        && !argTypes[i].isPrimitive()
+                        && argTypes[i].isInstance(arg))
+                    {
+                        if (plan == null) {
+                            plan = new boolean[args.length];
+                        }
+                        plan[i] = true;
+                    }
+                }
+            }
+            this.passThrough = plan;
+        }
+    }
+
+    /**
+     * Runtime types of call arguments as far as overload resolution can
+     * tell them apart, see NativeJavaObject.getConversionWeight().
+     */
+    private static final class ArgTypesKey
+    {
+        private static final Object NULL = new Object();
+        private static final Object UNDEFINED = new Object();
+        private static final Object NUMBER = new Object();
+        private static final Object JAVA_CLASS = new Object();
+
+        private final Object[] types;
+        private final int hash;
+
+        private ArgTypesKey(Object[] types)
+        {
+            this.types = types;
+            int h = types.length;
+            for (int i = 0; i != types.length; ++i) {
+                h = h * 31 + System.identityHashCode(types[i]);
+            }
+            this.hash = h;
+        }
+
+        /**
+         * Returns null if the arguments can not be described by their types.
+         */
+        static ArgTypesKey create(Object[] args)
+        {
+            Object[] types = new Object[args.length];
+            for (int i = 0; i != args.length; ++i) {
+                Object arg = args[i];
+                Object type;
+                if (arg == null) {
+                    type = NULL;
+                } else if (arg == Undefined.instance) {
+                    type = UNDEFINED;
+                } else if (arg instanceof Number) {
+                    type = NUMBER;
+                } else if (arg instanceof NativeJavaClass
+                           || arg instanceof Class)
+                {
+                    type = JAVA_CLASS;
+                } else if (arg instanceof Wrapper) {
+                    Object javaObject = ((Wrapper)arg).unwrap();
+                    if (javaObject == null) {
+                        return null;
+                    }
+                    type = javaObject.getClass();
+                    // wrapped strings, booleans and arrays convert unlike
+                    // their unwrapped counterparts
+                    if (type == ScriptRuntime.StringClass
+                        || type == ScriptRuntime.BooleanClass
+                        || (((Class)type).isArray()
+                            && !(arg instanceof NativeJavaArray)))
+                    {
+                        return null;
+                    }
+                } else {
+                    type = arg.getClass();
+                }
+                types[i] = type;
+            }
+            return new ArgTypesKey(types);
+        }
+
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof ArgTypesKey)) {
+                return false;
+            }
+            Object[] other = ((ArgTypesKey)obj).types;
+            if (other.length != types.length) {
+                return false;
+            }
+            for (int i = 0; i != types.length; ++i) {
+                if (other[i] != types[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
     private String functionName;
 
 	/**
@@ -449,7 +449,7 @@ WrapFactory#wrap(Context cx, Scriptable scope, Object obj, Class)}
         else if (value == Undefined.instance) {
             return JSTYPE_UNDEFINED;
         }
-        else if (value instanceof String) {
+        else if (value instanceof String || value instanceof ConsString) {
             return JSTYPE_STRING;
         }
         else if (value instanceof Number) {
@@ -503,6 +503,10 @@ WrapFactory#wrap(Context cx, Scriptable scope, Object obj, Class)}
      */
     static Object coerceTypeImpl(Class type, Object value)
     {
+        if (value instanceof ConsString) {
+            // Java code gets the flat string
+            value = value.toString();
+        }
         if (value != null && value.getClass() == type) {
             return value;
         }
@@ -270,8 +270,8 @@ public class ScriptRuntime {
                 return ((Boolean) val).booleanValue();
             if (val == null || val == Undefined.instance)
                 return false;
-            if (val instanceof String)
-                return ((String) val).length() != 0;
+            if (val instanceof CharSequence)
+                return ((CharSequence) val).length() != 0;
             if (val instanceof Number) {
                 double d = ((Number) val).doubleValue();
                 return (d == d && d != 0.0);
@@ -310,8 +310,8 @@ public class ScriptRuntime {
                 return +0.0;
             if (val == Undefined.instance)
                 return NaN;
-            if (val instanceof String)
-                return toNumber((String) val);
+            if (val instanceof CharSequence)
+                return toNumber(val.toString());
             if (val instanceof Boolean)
                 return ((Boolean) val).booleanValue() ? 1 : +0.0;
             if (val instanceof Scriptable) {
@@ -695,8 +695,8 @@ public class ScriptRuntime {
             if (val == Undefined.instance) {
                 return "undefined";
             }
-            if (val instanceof String) {
-                return (String)val;
+            if (val instanceof CharSequence) {
+                return val.toString();
             }
             if (val instanceof Number) {
                 // XXX should we just teach NativeNumber.stringValue()
@@ -764,8 +764,8 @@ public class ScriptRuntime {
         if (value == Undefined.instance) {
             return "undefined";
         }
-        if (value instanceof String) {
-            String escaped = escapeString((String)value);
+        if (value instanceof CharSequence) {
+            String escaped = escapeString(value.toString());
             StringBuffer sb = new StringBuffer(escaped.length() + 2);
             sb.append('\"');
             sb.append(escaped);
@@ -910,6 +910,9 @@ public class ScriptRuntime {
         if (val == Undefined.instance) {
             throw typeError0("msg.undef.to.object");
         }
+        if (val instanceof ConsString) {
+            val = val.toString();
+        }
         String className = val instanceof String ? "String" :
                            val instanceof Number ? "Number" :
                            val instanceof Boolean ? "Boolean" :
@@ -2246,6 +2249,9 @@ public class ScriptRuntime {
         if (args.length < 1)
             return Undefined.instance;
         Object x = args[0];
+        if (x instanceof ConsString) {
+            x = x.toString();
+        }
         if (!(x instanceof String)) {
             if (cx.hasFeature(Context.FEATURE_STRICT_MODE) ||
                 cx.hasFeature(Context.FEATURE_STRICT_EVAL))
@@ -2296,7 +2302,7 @@ public class ScriptRuntime {
 
             return (value instanceof Callable) ? "function" : "object";
         }
-        if (value instanceof String)
+        if (value instanceof CharSequence)
             return "string";
         if (value instanceof Number)
             return "number";
@@ -2351,13 +2357,25 @@ public class ScriptRuntime {
             val1 = ((Scriptable) val1).getDefaultValue(null);
         if (val2 instanceof Scriptable)
             val2 = ((Scriptable) val2).getDefaultValue(null);
-        if (!(val1 instanceof String) && !(val2 instanceof String))
+        if (!(val1 instanceof CharSequence) && !(val2 instanceof CharSequence))
             if ((val1 instanceof Number) && (val2 instanceof Number))
                 return wrapNumber(((Number)val1).doubleValue() +
                                   ((Number)val2).doubleValue());
             else
                 return wrapNumber(toNumber(val1) + toNumber(val2));
-        return toString(val1).concat(toString(val2));
+        return ConsString.concat(toCharSequence(val1), toCharSequence(val2));
+    }
+
+    /**
+     * Same as {@link #toString(Object)}, but keeps the lazily concatenated
+     * strings as is, so they could be appended to without flattening.
+     */
+    public static CharSequence toCharSequence(Object val)
+    {
+        if (val instanceof CharSequence) {
+            return (CharSequence)val;
+        }
+        return toString(val);
     }
 
     /**
@@ -2540,8 +2558,8 @@ public class ScriptRuntime {
             return false;
         } else if (x instanceof Number) {
             return eqNumber(((Number)x).doubleValue(), y);
-        } else if (x instanceof String) {
-            return eqString((String)x, y);
+        } else if (x instanceof CharSequence) {
+            return eqString(x.toString(), y);
         } else if (x instanceof Boolean) {
             boolean b = ((Boolean)x).booleanValue();
             if (y instanceof Boolean) {
@@ -2586,8 +2604,8 @@ public class ScriptRuntime {
                 return eqNumber(d, x);
             } else if (y instanceof Number) {
                 return eqNumber(((Number)y).doubleValue(), x);
-            } else if (y instanceof String) {
-                return eqString((String)y, x);
+            } else if (y instanceof CharSequence) {
+                return eqString(y.toString(), x);
             }
             // covers the case when y == Undefined.instance as well
             return false;
@@ -2604,7 +2622,7 @@ public class ScriptRuntime {
                 return false;
             } else if (y instanceof Number) {
                 return x == ((Number)y).doubleValue();
-            } else if (y instanceof String) {
+            } else if (y instanceof CharSequence) {
                 return x == toNumber(y);
             } else if (y instanceof Boolean) {
                 return x == (((Boolean)y).booleanValue() ? 1.0 : +0.0);
@@ -2629,8 +2647,8 @@ public class ScriptRuntime {
         for (;;) {
             if (y == null || y == Undefined.instance) {
                 return false;
-            } else if (y instanceof String) {
-                return x.equals(y);
+            } else if (y instanceof CharSequence) {
+                return x.equals(y.toString());
             } else if (y instanceof Number) {
                 return toNumber(x) == ((Number)y).doubleValue();
             } else if (y instanceof Boolean) {
@@ -2666,9 +2684,9 @@ public class ScriptRuntime {
             if (y instanceof Number) {
                 return ((Number)x).doubleValue() == ((Number)y).doubleValue();
             }
-        } else if (x instanceof String) {
-            if (y instanceof String) {
-                return x.equals(y);
+        } else if (x instanceof CharSequence) {
+            if (y instanceof CharSequence) {
+                return x.toString().equals(y.toString());
             }
         } else if (x instanceof Boolean) {
             if (y instanceof Boolean) {
@@ -2756,8 +2774,8 @@ public class ScriptRuntime {
                 val1 = ((Scriptable) val1).getDefaultValue(NumberClass);
             if (val2 instanceof Scriptable)
                 val2 = ((Scriptable) val2).getDefaultValue(NumberClass);
-            if (val1 instanceof String && val2 instanceof String) {
-                return ((String)val1).compareTo((String)val2) < 0;
+            if (val1 instanceof CharSequence && val2 instanceof CharSequence) {
+                return val1.toString().compareTo(val2.toString()) < 0;
             }
             d1 = toNumber(val1);
             d2 = toNumber(val2);
@@ -2776,8 +2794,8 @@ public class ScriptRuntime {
                 val1 = ((Scriptable) val1).getDefaultValue(NumberClass);
             if (val2 instanceof Scriptable)
                 val2 = ((Scriptable) val2).getDefaultValue(NumberClass);
-            if (val1 instanceof String && val2 instanceof String) {
-                return ((String)val1).compareTo((String)val2) <= 0;
+            if (val1 instanceof CharSequence && val2 instanceof CharSequence) {
+                return val1.toString().compareTo(val2.toString()) <= 0;
             }
             d1 = toNumber(val1);
             d2 = toNumber(val2);
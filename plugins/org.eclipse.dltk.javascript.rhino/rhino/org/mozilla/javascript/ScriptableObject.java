@@ -172,6 +172,7 @@ public abstract class ScriptableObject implements Scriptable, Serializable,
         {
             in.defaultReadObject();
             if (name != null) {
+                name = name.intern();
                 indexOrHash = name.hashCode();
             }
         }
@@ -2126,7 +2127,9 @@ public abstract class ScriptableObject implements Scriptable, Serializable,
                             if (name.equals(sname)) {
                                 // This will avoid calling String.equals when
                                 // slot is accessed with same string object
-                                // next time.
+                                // next time. With the property name constants
+                                // interned the name converges to the interned
+                                // instance.
                                 slot.name = name;
                                 break;
                             }
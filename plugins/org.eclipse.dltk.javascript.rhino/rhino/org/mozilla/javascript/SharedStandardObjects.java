@@ -0,0 +1,101 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Rhino code, released
+ * May 6, 1999.
+ *
+ * The Initial Developer of the Original Code is
+ * Netscape Communications Corporation.
+ * Portions created by the Initial Developer are Copyright (C) 1997-1999
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * the GNU General Public License Version 2 or later (the "GPL"), in which
+ * case the provisions of the GPL are applicable instead of those above. If
+ * you wish to allow use of your version of this file only under the terms of
+ * the GPL and not to allow others to use your version of this file under the
+ * MPL, indicate your decision by deleting the provisions above and replacing
+ * them with the notice and other provisions required by the GPL. If you do
+ * not delete the provisions above, a recipient may use your version of this
+ * file under either the MPL or the GPL.
+ *
+ * ***** END LICENSE BLOCK ***** */
+
+package org.mozilla.javascript;
+
+/**
+ * Sealed standard objects shared by all executions in the JVM.
+ * <p>
+ * The shared scope is built once by the first call to
+ * {@link #getSharedScope(Context)} and is sealed afterwards, so it can be
+ * used from any number of threads without further synchronization.  Each
+ * execution runs in its own lightweight scope returned by
+ * {@link #newExecutionScope(Context)}: the shared scope is its prototype, so
+ * the builtins are found through it, while global variables and assignments
+ * to the standard names land in the execution scope and are never seen by
+ * other executions.  Attempts to modify the builtins themselves, for example
+ * <code>Array.prototype.foo = 1</code>, fail with an error about a sealed
+ * object.
+ * <p>
+ * The lazily loaded constructors (<code>RegExp</code>, the Java packages,
+ * <code>JavaAdapter</code>, <code>JavaImporter</code> and the E4X classes)
+ * are resolved while the shared scope is built, since a sealed scope can not
+ * receive their definitions later.  The settings of the context that builds
+ * the shared scope, such as the E4X feature and the application class loader,
+ * apply to all executions.
+ */
+public final class SharedStandardObjects
+{
+    private static ScriptableObject sharedScope;
+
+    private SharedStandardObjects()
+    {
+    }
+
+    /**
+     * Get the shared sealed scope, initializing it with the given context on
+     * the first call.
+     */
+    public static synchronized ScriptableObject getSharedScope(Context cx)
+    {
+        if (sharedScope == null) {
+            ScriptableObject scope = cx.initStandardObjects(null, true);
+            Object[] ids = scope.getAllIds();
+            for (int i = 0; i != ids.length; ++i) {
+                if (ids[i] instanceof String) {
+                    // Force lazily loaded constructors to initialize
+                    ScriptableObject.getProperty(scope, (String)ids[i]);
+                }
+            }
+            scope.sealObject();
+            sharedScope = scope;
+        }
+        return sharedScope;
+    }
+
+    /**
+     * Create a new top-level scope for a single execution that inherits the
+     * standard objects from the shared scope.
+     */
+    public static Scriptable newExecutionScope(Context cx)
+    {
+        Scriptable scope = new NativeObject();
+        scope.setPrototype(getSharedScope(cx));
+        scope.setParentScope(null);
+        return scope;
+    }
+}
@@ -0,0 +1,304 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Rhino code, released
+ * May 6, 1999.
+ *
+ * The Initial Developer of the Original Code is
+ * Netscape Communications Corporation.
+ * Portions created by the Initial Developer are Copyright (C) 1997-1999
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * the GNU General Public License Version 2 or later (the "GPL"), in which
+ * case the provisions of the GPL are applicable instead of those above. If
+ * you wish to allow use of your version of this file only under the terms of
+ * the GPL and not to allow others to use your version of this file under the
+ * MPL, indicate your decision by deleting the provisions above and replacing
+ * them with the notice and other provisions required by the GPL. If you do
+ * not delete the provisions above, a recipient may use your version of this
+ * file under either the MPL or the GPL.
+ *
+ * ***** END LICENSE BLOCK ***** */
+
+
+package org.mozilla.javascript;
+
+import java.util.LinkedList;
+
+/**
+ * Background compilation of hot interpreted functions.
+ * <p>
+ * When {@link Context#FEATURE_TIERED_COMPILATION} is enabled every
+ * invocation and backward jump of an interpreted function is counted on its
+ * {@link InterpreterData}.  Once the count reaches
+ * {@link ContextFactory#getTieredCompilationThreshold()} the decompiled
+ * function source is queued for compilation by the optimizer on a single
+ * daemon thread.  The next call of any closure of that function
+ * instantiates the generated class with the closure's parent scope and
+ * delegates to it, see {@link InterpretedFunction#getCompiledTier(Context)}.
+ * <p>
+ * The compiled version must behave as the original function object.  It is
+ * compiled as an anonymous function, so the name of the function is
+ * resolved through the parent scope to the original function rather than
+ * bound to the compiled copy, and functions referring to
+ * <code>arguments</code> or calling <code>eval</code>, which could observe
+ * the copy as <code>arguments.callee</code>, are never compiled.
+ * <p>
+ * Since the compiled code is produced from the decompiled source, line
+ * numbers reported by it after the first line of the function may differ
+ * from the original ones.
+ */
+final class TieredCompiler implements Runnable
+{
+    static final int STATE_COUNTING = 0;
+    static final int STATE_QUEUED = 1;
+    static final int STATE_READY = 2;
+    static final int STATE_FAILED = 3;
+
+    private static Class codegenClass = Kit.classOrNull(
+                             "org.mozilla.javascript.optimizer.Codegen");
+
+    private static final LinkedList queue = new LinkedList();
+    private static Thread worker;
+
+    private final InterpreterData idata;
+    private final ContextFactory factory;
+    private final CompilerEnvirons compilerEnv;
+    private final String source;
+    private final int lineno;
+
+    private TieredCompiler(InterpreterData idata, ContextFactory factory,
+                           CompilerEnvirons compilerEnv, String source,
+                           int lineno)
+    {
+        this.idata = idata;
+        this.factory = factory;
+        this.compilerEnv = compilerEnv;
+        this.source = source;
+        this.lineno = lineno;
+    }
+
+    /**
+     * Returns the threshold to use for the function or 0 if it is not
+     * eligible for tiered compilation.
+     */
+    static int getThreshold(Context cx, InterpretedFunction f)
+    {
+        InterpreterData idata = f.idata;
+        if (codegenClass == null
+            || idata.itsFunctionType == 0
+            || idata.tierState == STATE_FAILED
+            || idata.encodedSource == null
+            || f.securityController != null
+            || cx.getDebugger() != null
+            || !cx.hasFeature(Context.FEATURE_TIERED_COMPILATION))
+        {
+            return 0;
+        }
+        // The name of a function expression is only visible inside its own
+        // body, which a function compiled on its own can not express.
+        if (idata.itsFunctionType == FunctionNode.FUNCTION_EXPRESSION
+            && idata.itsName != null && idata.itsName.length() != 0)
+        {
+            return 0;
+        }
+        int threshold = cx.getFactory().getTieredCompilationThreshold();
+        return threshold > 0 ? threshold : 0;
+    }
+
+    /**
+     * Add count to the hotness counter of the function and schedule its
+     * compilation once the threshold is reached.
+     */
+    static void count(Context cx, InterpretedFunction f, int count)
+    {
+        InterpreterData idata = f.idata;
+        if (idata.tierState != STATE_COUNTING) {
+            return;
+        }
+        idata.tierCounter += count;
+        if (idata.tierCounter < f.tierThreshold) {
+            return;
+        }
+        idata.tierState = STATE_QUEUED;
+        if (usesArguments(idata)) {
+            idata.tierState = STATE_FAILED;
+            return;
+        }
+        CompilerEnvirons compilerEnv = new CompilerEnvirons();
+        compilerEnv.initFromContext(cx);
+        compilerEnv.setOptimizationLevel(0);
+        compilerEnv.setErrorReporter(DefaultErrorReporter.instance);
+        String source;
+        try {
+            source = removeName(f.decompile(0, 0), idata.itsName);
+        } catch (RuntimeException ex) {
+            source = null;
+        }
+        if (source == null) {
+            idata.tierState = STATE_FAILED;
+            return;
+        }
+        int[] lines = Interpreter.getLineNumbers(idata);
+        int lineno = 1;
+        if (lines.length != 0) {
+            lineno = lines[0];
+            for (int i = 1; i != lines.length; ++i) {
+                if (lines[i] < lineno) {
+                    lineno = lines[i];
+                }
+            }
+        }
+        schedule(new TieredCompiler(idata, cx.getFactory(), compilerEnv,
+                                    source, lineno));
+    }
+
+    /**
+     * Checks if the function refers to its arguments object or calls eval,
+     * which would expose the compiled copy as <code>arguments.callee</code>.
+     * The names are interned, see Interpreter.generateICodeFromTree.
+     */
+    private static boolean usesArguments(InterpreterData idata)
+    {
+        String[] strings = idata.itsStringTable;
+        if (strings != null) {
+            for (int i = 0; i != strings.length; ++i) {
+                if (strings[i] == "arguments" || strings[i] == "eval") {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Remove the name from the decompiled function, so once compiled as a
+     * function expression it does not bind the name to itself.  Returns
+     * null if the source does not start with the function keyword and name.
+     */
+    private static String removeName(String source, String name)
+    {
+        int start = source.indexOf("function");
+        if (start < 0 || source.substring(0, start).trim().length() != 0) {
+            return null;
+        }
+        int pos = start + "function".length();
+        if (name == null || name.length() == 0) {
+            return source;
+        }
+        while (pos < source.length()
+               && Character.isWhitespace(source.charAt(pos)))
+        {
+            ++pos;
+        }
+        if (!source.startsWith(name, pos)) {
+            return null;
+        }
+        int end = pos + name.length();
+        if (end == source.length()
+            || (source.charAt(end) != '('
+                && !Character.isWhitespace(source.charAt(end))))
+        {
+            return null;
+        }
+        return source.substring(0, pos) + source.substring(end);
+    }
+
+    /**
+     * Create the compiled version of the function for its parent scope if
+     * the background compilation has finished, otherwise return null.
+     */
+    static Function instantiate(Context cx, InterpretedFunction f)
+    {
+        InterpreterData idata = f.idata;
+        if (idata.tierState != STATE_READY) {
+            return null;
+        }
+        Interpreter codegen = (Interpreter)Kit.newInstanceOrNull(codegenClass);
+        try {
+            return codegen.createFunctionObject(cx, f.getParentScope(),
+                                                idata.tierBytecode, null);
+        } catch (RuntimeException ex) {
+            idata.tierState = STATE_FAILED;
+            idata.tierBytecode = null;
+            return null;
+        }
+    }
+
+    private static void schedule(TieredCompiler job)
+    {
+        synchronized (queue) {
+            queue.addLast(job);
+            if (worker == null) {
+                worker = new Thread(job, "Rhino tiered compiler");
+                worker.setDaemon(true);
+                worker.setPriority(Thread.MIN_PRIORITY);
+                worker.start();
+            } else {
+                queue.notify();
+            }
+        }
+    }
+
+    public void run()
+    {
+        for (;;) {
+            final TieredCompiler job;
+            synchronized (queue) {
+                while (queue.isEmpty()) {
+                    try {
+                        queue.wait();
+                    } catch (InterruptedException ex) {
+                        worker = null;
+                        return;
+                    }
+                }
+                job = (TieredCompiler)queue.removeFirst();
+            }
+            try {
+                job.factory.call(new ContextAction() {
+                    public Object run(Context cx)
+                    {
+                        job.compile();
+                        return null;
+                    }
+                });
+            } catch (RuntimeException ex) {
+                job.idata.tierState = STATE_FAILED;
+            }
+        }
+    }
+
+    private void compile()
+    {
+        Parser p = new Parser(compilerEnv, compilerEnv.getErrorReporter());
+        p.calledByCompileFunction = true;
+        ScriptOrFnNode tree = p.parse(source, idata.itsSourceFile, lineno);
+        if (!(tree.getFunctionCount() == 1
+              && tree.getFirstChild() != null
+              && tree.getFirstChild().getType() == Token.FUNCTION))
+        {
+            idata.tierState = STATE_FAILED;
+            return;
+        }
+        Interpreter codegen = (Interpreter)Kit.newInstanceOrNull(codegenClass);
+        idata.tierBytecode = codegen.compile(compilerEnv, tree,
+                                             p.getEncodedSource(), true);
+        idata.tierState = STATE_READY;
+    }
+}
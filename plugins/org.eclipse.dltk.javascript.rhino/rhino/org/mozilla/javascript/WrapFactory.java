@@ -82,6 +82,10 @@ public class WrapFactory
         {
             return obj;
         }
+        if (obj instanceof ConsString) {
+            // lazy concatenation is a JavaScript string, not a Java object
+            return obj.toString();
+        }
         if (staticType != null && staticType.isPrimitive()) {
             if (staticType == Void.TYPE)
                 return Undefined.instance;
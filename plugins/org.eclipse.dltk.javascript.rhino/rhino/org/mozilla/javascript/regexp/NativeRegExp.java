@@ -272,10 +272,6 @@ public class NativeRegExp extends IdScriptableObject implements Function
 
     static Object compileRE(Context cx, String str, String global, boolean flat)
     {
-        RECompiled regexp = new RECompiled();
-        regexp.source = str.toCharArray();
-        int length = str.length();
-
         int flags = 0;
         if (global != null) {
             for (int i = 0; i < global.length(); i++) {
@@ -291,6 +287,14 @@ public class NativeRegExp extends IdScriptableObject implements Function
                 }
             }
         }
+
+        RECompiled regexp = RegExpCache.get(str, flags, flat);
+        if (regexp != null) {
+            return regexp;
+        }
+        regexp = new RECompiled();
+        regexp.source = str.toCharArray();
+        int length = str.length();
         regexp.flags = flags;
 
         CompilerState state = new CompilerState(cx, regexp.source, length, flags);
@@ -348,6 +352,7 @@ if (regexp.anchorCh >= 0) {
     System.out.println("Anchor ch = '" + (char)regexp.anchorCh + "'");
 }
 }
+        RegExpCache.put(str, flags, flat, regexp);
         return regexp;
     }
 
@@ -0,0 +1,170 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Rhino code, released
+ * May 6, 1999.
+ *
+ * The Initial Developer of the Original Code is
+ * Netscape Communications Corporation.
+ * Portions created by the Initial Developer are Copyright (C) 1997-1999
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * the GNU General Public License Version 2 or later (the "GPL"), in which
+ * case the provisions of the GPL are applicable instead of those above. If
+ * you wish to allow use of your version of this file only under the terms of
+ * the GPL and not to allow others to use your version of this file under the
+ * MPL, indicate your decision by deleting the provisions above and replacing
+ * them with the notice and other provisions required by the GPL. If you do
+ * not delete the provisions above, a recipient may use your version of this
+ * file under either the MPL or the GPL.
+ *
+ * ***** END LICENSE BLOCK ***** */
+
+package org.mozilla.javascript.regexp;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of the compiled regular expression programs, shared by all
+ * contexts in the JVM.
+ * <p>
+ * {@link NativeRegExp#compileRE} consults the cache before parsing, so the
+ * string patterns passed to <code>String.prototype.match</code>,
+ * <code>replace</code>, <code>search</code> and <code>split</code> and the
+ * regular expression literals are compiled once per distinct source, flags
+ * and flat mode instead of once per call.  The programs are never modified
+ * after compilation (the character classes are converted lazily under
+ * their own lock), so a cached program can be used by any number of
+ * <code>RegExp</code> objects and threads.  The least recently used
+ * programs are dropped when the cache is full.
+ */
+public final class RegExpCache
+{
+    private static final int MAX_SIZE = 256;
+
+    private static final Map cache = new LinkedHashMap(16, 0.75f, true) {
+        static final long serialVersionUID = 1L;
+
+        protected boolean removeEldestEntry(Map.Entry eldest)
+        {
+            return size() > MAX_SIZE;
+        }
+    };
+
+    private static long hits;
+    private static long misses;
+
+    private RegExpCache()
+    {
+    }
+
+    static RECompiled get(String source, int flags, boolean flat)
+    {
+        Key key = new Key(source, flags, flat);
+        synchronized (cache) {
+            RECompiled compiled = (RECompiled)cache.get(key);
+            if (compiled != null) {
+                ++hits;
+            } else {
+                ++misses;
+            }
+            return compiled;
+        }
+    }
+
+    static void put(String source, int flags, boolean flat,
+                    RECompiled compiled)
+    {
+        Key key = new Key(source, flags, flat);
+        synchronized (cache) {
+            cache.put(key, compiled);
+        }
+    }
+
+    /**
+     * Returns the number of the compilations answered from the cache.
+     */
+    public static long getHitCount()
+    {
+        synchronized (cache) {
+            return hits;
+        }
+    }
+
+    /**
+     * Returns the number of the compilations not found in the cache.
+     */
+    public static long getMissCount()
+    {
+        synchronized (cache) {
+            return misses;
+        }
+    }
+
+    /**
+     * Returns the number of the cached programs.
+     */
+    public static int size()
+    {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Drops the cached programs and resets the statistics.
+     */
+    public static void clear()
+    {
+        synchronized (cache) {
+            cache.clear();
+            hits = 0;
+            misses = 0;
+        }
+    }
+
+    private static final class Key
+    {
+        private final String source;
+        private final int flags;
+        private final boolean flat;
+
+        Key(String source, int flags, boolean flat)
+        {
+            this.source = source;
+            this.flags = flags;
+            this.flat = flat;
+        }
+
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key)obj;
+            return flags == other.flags && flat == other.flat
+                   && source.equals(other.source);
+        }
+
+        public int hashCode()
+        {
+            return source.hashCode() * 31 + flags * 2 + (flat ? 1 : 0);
+        }
+    }
+}
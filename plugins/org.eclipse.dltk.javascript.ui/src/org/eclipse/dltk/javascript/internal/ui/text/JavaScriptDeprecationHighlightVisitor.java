@@ -40,7 +40,7 @@ public class JavaScriptDeprecationHighlightVisitor extends ValidationVisitor
 
 	public JavaScriptDeprecationHighlightVisitor(ITypeInferenceContext context,
 			ISemanticHighlightingRequestor requestor) {
-		super(context, null, null);
+		super(context, null, null, true);
 		reporter = this;
 		this.requestor = requestor;
 	}
@@ -13,9 +13,12 @@ package org.eclipse.dltk.javascript.internal.ui.text;
 
 import static org.eclipse.dltk.javascript.internal.ui.text.JavascriptColorConstants.JS_DEPRECATED;
 
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.dltk.compiler.env.IModuleSource;
+import org.eclipse.dltk.internal.javascript.ti.BufferChangeMonitor;
 import org.eclipse.dltk.internal.javascript.ti.TypeInferencer2;
 import org.eclipse.dltk.javascript.ast.Script;
+import org.eclipse.dltk.javascript.core.JSBindings;
 import org.eclipse.dltk.javascript.parser.JavaScriptParserUtil;
 import org.eclipse.dltk.ui.editor.highlighting.AbortSemanticHighlightingException;
 import org.eclipse.dltk.ui.editor.highlighting.ISemanticHighlighter;
@@ -43,6 +46,18 @@ public class JavaScriptDeprecationHighlighter extends
 		final JavaScriptDeprecationHighlightVisitor visitor = new JavaScriptDeprecationHighlightVisitor(
 				inferencer, requestor);
 		inferencer.setVisitor(visitor);
-		inferencer.doInferencing(script);
+		final BufferChangeMonitor monitor = BufferChangeMonitor.create(code
+				.getModelElement());
+		inferencer.setProgressMonitor(monitor);
+		try {
+			inferencer.doInferencing(script);
+		} catch (OperationCanceledException e) {
+			// stale revision, keep the previous highlighting
+			throw new AbortSemanticHighlightingException();
+		} finally {
+			monitor.dispose();
+		}
+		// share the results with hovers, hyperlinks, etc
+		JSBindings.attach(script, inferencer, visitor.getBindings());
 	}
 }
@@ -0,0 +1,333 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation (Alex Panchenko)
+ *******************************************************************************/
+package org.eclipse.dltk.javascript.internal.ui.text.folding;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.dltk.ast.ASTNode;
+import org.eclipse.dltk.javascript.ast.AbstractNavigationVisitor;
+import org.eclipse.dltk.javascript.ast.BinaryOperation;
+import org.eclipse.dltk.javascript.ast.Expression;
+import org.eclipse.dltk.javascript.ast.FunctionStatement;
+import org.eclipse.dltk.javascript.ast.IVariableStatement;
+import org.eclipse.dltk.javascript.ast.Method;
+import org.eclipse.dltk.javascript.ast.ObjectInitializer;
+import org.eclipse.dltk.javascript.ast.Script;
+import org.eclipse.dltk.javascript.ast.Statement;
+import org.eclipse.dltk.javascript.ast.StringLiteral;
+import org.eclipse.dltk.javascript.ast.VariableDeclaration;
+import org.eclipse.dltk.javascript.ast.VariableStatement;
+import org.eclipse.dltk.javascript.ast.XmlLiteral;
+import org.eclipse.dltk.javascript.parser.JSParser;
+import org.eclipse.dltk.javascript.parser.PropertyExpressionUtils;
+
+/**
+ * The foldable blocks of the script, computed once per AST and kept as an
+ * attribute of the {@link Script}.
+ *
+ * The blocks are grouped by the top level statements, the offsets of each
+ * group are relative to the statement, so the group could be reused without
+ * visiting the statement again if the text of the statement is the same in the
+ * next revision of the document, e.g. when the edits are confined to a single
+ * top level function.
+ */
+class FoldingStructure {
+
+	private static final String ATTR_STRUCTURE = FoldingStructure.class
+			.getName();
+
+	static class Key {
+		final String name;
+		final int occurence;
+
+		public Key(String name, int occurence) {
+			this.name = name;
+			this.occurence = occurence;
+		}
+
+		@Override
+		public int hashCode() {
+			return name.hashCode() * 31 + occurence;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj instanceof Key) {
+				final Key other = (Key) obj;
+				return occurence == other.occurence && name.equals(other.name);
+			}
+			return false;
+		}
+
+	}
+
+	static class Block {
+		final int start;
+		final int end;
+		final JavaScriptFoldingBlockKind kind;
+		/**
+		 * The end offset of the function declaration to find the model
+		 * element or <code>-1</code>
+		 */
+		final int methodEnd;
+		/**
+		 * The name of the assignment key or <code>null</code>
+		 */
+		final String keyName;
+		/**
+		 * The occurrence of the key name inside of the statement
+		 */
+		final int keyOccurence;
+
+		Block(int start, int end, JavaScriptFoldingBlockKind kind,
+				int methodEnd, String keyName, int keyOccurence) {
+			this.start = start;
+			this.end = end;
+			this.kind = kind;
+			this.methodEnd = methodEnd;
+			this.keyName = keyName;
+			this.keyOccurence = keyOccurence;
+		}
+	}
+
+	/**
+	 * The blocks of the single top level statement.
+	 */
+	static class Segment {
+		final List<Block> blocks;
+		/**
+		 * The number of the distinct names registered in this statement, to
+		 * compute the occurrences of the following statements.
+		 */
+		final Map<String, Integer> names;
+
+		Segment(List<Block> blocks, Map<String, Integer> names) {
+			this.blocks = blocks;
+			this.names = names;
+		}
+	}
+
+	interface Requestor {
+		void acceptBlock(Block block, int offset, Key key);
+	}
+
+	private final String[] texts;
+	private final int[] offsets;
+	private final Segment[] segments;
+
+	private FoldingStructure(int size) {
+		texts = new String[size];
+		offsets = new int[size];
+		segments = new Segment[size];
+	}
+
+	/**
+	 * Returns the structure of the specified script, computing it if not
+	 * cached yet. The segments of the <code>previous</code> structure are
+	 * reused for the unchanged top level statements.
+	 */
+	static FoldingStructure get(Script script, String source,
+			FoldingStructure previous) {
+		final Object cached = script.getAttribute(ATTR_STRUCTURE);
+		if (cached instanceof FoldingStructure) {
+			return (FoldingStructure) cached;
+		}
+		final Map<String, Segment> reusable = previous != null ? previous
+				.index() : Collections.<String, Segment> emptyMap();
+		final List<Statement> statements = script.getStatements();
+		final FoldingStructure structure = new FoldingStructure(
+				statements.size());
+		for (int i = 0; i < statements.size(); ++i) {
+			final Statement statement = statements.get(i);
+			final int start = statement.start();
+			final String text = source != null
+					&& statement.end() <= source.length() ? source.substring(
+					start, statement.end()) : null;
+			Segment segment = text != null ? reusable.get(text) : null;
+			if (segment == null) {
+				segment = new SegmentBuilder(start).build(statement);
+			}
+			structure.texts[i] = text;
+			structure.offsets[i] = start;
+			structure.segments[i] = segment;
+		}
+		script.setAttribute(ATTR_STRUCTURE, structure);
+		return structure;
+	}
+
+	private Map<String, Segment> index() {
+		final Map<String, Segment> map = new HashMap<String, Segment>();
+		for (int i = 0; i < segments.length; ++i) {
+			if (texts[i] != null) {
+				map.put(texts[i], segments[i]);
+			}
+		}
+		return map;
+	}
+
+	void accept(Requestor requestor) {
+		final Map<String, Integer> occurences = new HashMap<String, Integer>();
+		for (int i = 0; i < segments.length; ++i) {
+			final Segment segment = segments[i];
+			for (Block block : segment.blocks) {
+				Key key = null;
+				if (block.keyName != null) {
+					final Integer base = occurences.get(block.keyName);
+					key = new Key(block.keyName, block.keyOccurence
+							+ (base != null ? base.intValue() : 0));
+				}
+				requestor.acceptBlock(block, offsets[i], key);
+			}
+			for (Map.Entry<String, Integer> entry : segment.names.entrySet()) {
+				final Integer base = occurences.get(entry.getKey());
+				occurences.put(entry.getKey(), entry.getValue()
+						+ (base != null ? base.intValue() : 0));
+			}
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private static class Scope extends IdentityHashMap<ASTNode, Integer> {
+		int getOccurence(ASTNode node) {
+			Integer occurence = get(node);
+			if (occurence == null) {
+				occurence = size();
+				put(node, occurence);
+			}
+			return occurence;
+		}
+	}
+
+	private static class SegmentBuilder extends AbstractNavigationVisitor<Object> {
+
+		private final int offset;
+		private final List<Block> blocks = new ArrayList<Block>();
+		private final Map<String, Scope> names = new HashMap<String, Scope>();
+
+		SegmentBuilder(int offset) {
+			this.offset = offset;
+		}
+
+		Segment build(Statement statement) {
+			visit(statement);
+			if (blocks.isEmpty() && names.isEmpty()) {
+				return new Segment(Collections.<Block> emptyList(),
+						Collections.<String, Integer> emptyMap());
+			}
+			final Map<String, Integer> counts = new HashMap<String, Integer>();
+			for (Map.Entry<String, Scope> entry : names.entrySet()) {
+				counts.put(entry.getKey(), entry.getValue().size());
+			}
+			return new Segment(blocks, counts);
+		}
+
+		private void addBlock(ASTNode node, JavaScriptFoldingBlockKind kind,
+				int methodEnd, String keyName, int keyOccurence) {
+			blocks.add(new Block(node.sourceStart() - offset, node.sourceEnd()
+					- offset, kind, methodEnd, keyName, keyOccurence));
+		}
+
+		@Override
+		public Object visitFunctionStatement(FunctionStatement node) {
+			addBlock(node, JavaScriptFoldingBlockKind.FUNCTION, node.end()
+					- offset, null, 0);
+			return super.visitFunctionStatement(node);
+		}
+
+		@Override
+		protected Object visitMethod(Method method) {
+			addBlock(method, JavaScriptFoldingBlockKind.FUNCTION, -1, null, 0);
+			return super.visitMethod(method);
+		}
+
+		@Override
+		public Object visitObjectInitializer(ObjectInitializer node) {
+			if (node.isMultiline()) {
+				final ASTNode parent = node.getParent();
+				if (parent instanceof VariableDeclaration) {
+					final VariableDeclaration declaration = (VariableDeclaration) parent;
+					final IVariableStatement statement = (IVariableStatement) declaration
+							.getParent();
+					if (statement.getVariables().size() == 1) {
+						addKeyBlock(node, declaration.getVariableName(),
+								declaration.getIdentifier());
+					}
+				} else if (parent instanceof BinaryOperation) {
+					final BinaryOperation operation = (BinaryOperation) parent;
+					if (operation.getOperation() == JSParser.ASSIGN) {
+						final String path = PropertyExpressionUtils
+								.getPath(operation.getLeftExpression());
+						if (path != null) {
+							addKeyBlock(node, path,
+									operation.getLeftExpression());
+						}
+					}
+				}
+			}
+			return super.visitObjectInitializer(node);
+		}
+
+		private void addKeyBlock(ObjectInitializer node, String name,
+				ASTNode keyNode) {
+			addBlock(node, JavaScriptFoldingBlockKind.OBJECT_INITIALIZER, -1,
+					name, registerName(name, keyNode));
+		}
+
+		@Override
+		public Object visitBinaryOperation(BinaryOperation node) {
+			if (node.getOperation() == JSParser.ASSIGN) {
+				final Expression expression = node.getLeftExpression();
+				final String name = PropertyExpressionUtils.getPath(expression);
+				if (name != null) {
+					registerName(name, expression);
+				}
+			}
+			return super.visitBinaryOperation(node);
+		}
+
+		@Override
+		public Object visitVariableStatement(VariableStatement node) {
+			for (VariableDeclaration declaration : node.getVariables()) {
+				registerName(declaration.getVariableName(), declaration);
+			}
+			return super.visitVariableStatement(node);
+		}
+
+		private int registerName(String name, ASTNode node) {
+			Scope scope = names.get(name);
+			if (scope == null) {
+				scope = new Scope();
+				names.put(name, scope);
+			}
+			return scope.getOccurence(node);
+		}
+
+		@Override
+		public Object visitXmlLiteral(XmlLiteral node) {
+			addBlock(node, JavaScriptFoldingBlockKind.XML, -1, null, 0);
+			return super.visitXmlLiteral(node);
+		}
+
+		@Override
+		public Object visitStringLiteral(StringLiteral node) {
+			addBlock(node, JavaScriptFoldingBlockKind.MULTILINESTRING, -1,
+					null, 0);
+			return super.visitStringLiteral(node);
+		}
+	}
+
+}
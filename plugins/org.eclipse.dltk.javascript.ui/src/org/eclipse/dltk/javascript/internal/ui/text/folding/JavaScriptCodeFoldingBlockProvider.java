@@ -12,11 +12,8 @@
 package org.eclipse.dltk.javascript.internal.ui.text.folding;
 
 import java.util.HashMap;
-import java.util.IdentityHashMap;
-import java.util.Map;
 
 import org.eclipse.dltk.annotations.Internal;
-import org.eclipse.dltk.ast.ASTNode;
 import org.eclipse.dltk.ast.parser.IModuleDeclaration;
 import org.eclipse.dltk.core.DLTKCore;
 import org.eclipse.dltk.core.IMethod;
@@ -26,29 +23,18 @@ import org.eclipse.dltk.core.ISourceModule;
 import org.eclipse.dltk.core.ISourceRange;
 import org.eclipse.dltk.core.ModelException;
 import org.eclipse.dltk.core.SourceParserUtil;
-import org.eclipse.dltk.javascript.ast.AbstractNavigationVisitor;
-import org.eclipse.dltk.javascript.ast.BinaryOperation;
-import org.eclipse.dltk.javascript.ast.Expression;
-import org.eclipse.dltk.javascript.ast.FunctionStatement;
-import org.eclipse.dltk.javascript.ast.IVariableStatement;
-import org.eclipse.dltk.javascript.ast.Method;
-import org.eclipse.dltk.javascript.ast.ObjectInitializer;
 import org.eclipse.dltk.javascript.ast.Script;
-import org.eclipse.dltk.javascript.ast.StringLiteral;
-import org.eclipse.dltk.javascript.ast.VariableDeclaration;
-import org.eclipse.dltk.javascript.ast.VariableStatement;
-import org.eclipse.dltk.javascript.ast.XmlLiteral;
-import org.eclipse.dltk.javascript.parser.JSParser;
+import org.eclipse.dltk.javascript.internal.ui.text.folding.FoldingStructure.Block;
+import org.eclipse.dltk.javascript.internal.ui.text.folding.FoldingStructure.Key;
 import org.eclipse.dltk.javascript.parser.JavaScriptParser;
-import org.eclipse.dltk.javascript.parser.PropertyExpressionUtils;
 import org.eclipse.dltk.ui.PreferenceConstants;
 import org.eclipse.dltk.ui.text.folding.IFoldingBlockProvider;
 import org.eclipse.dltk.ui.text.folding.IFoldingBlockRequestor;
 import org.eclipse.dltk.ui.text.folding.IFoldingContent;
 import org.eclipse.jface.preference.IPreferenceStore;
 
-public class JavaScriptCodeFoldingBlockProvider extends
-		AbstractNavigationVisitor<Object> implements IFoldingBlockProvider {
+public class JavaScriptCodeFoldingBlockProvider implements
+		IFoldingBlockProvider, FoldingStructure.Requestor {
 
 	private static Script parse(IFoldingContent content) {
 		if (content.getModelElement() instanceof ISourceModule) {
@@ -108,8 +94,9 @@ public class JavaScriptCodeFoldingBlockProvider extends
 
 	private final MethodCollector methodCollector = new MethodCollector();
 
+	private FoldingStructure previous;
+
 	public void computeFoldableBlocks(IFoldingContent content) {
-		names.clear();
 		final Script script = parse(content);
 		if (script != null) {
 			methodCollector.clear();
@@ -120,150 +107,36 @@ public class JavaScriptCodeFoldingBlockProvider extends
 					e.printStackTrace();
 				}
 			}
-			visitScript(script);
-			names.clear();
-		}
-	}
-
-	@Override
-	public Object visitFunctionStatement(FunctionStatement node) {
-		final IModelElement element = methodCollector.get(node.end());
-
-		requestor.acceptBlock(node.sourceStart(), node.sourceEnd(),
-				JavaScriptFoldingBlockKind.FUNCTION, element, collapseMethods);
-		return super.visitFunctionStatement(node);
-	}
-
-	@Override
-	protected Object visitMethod(Method method) {
-		requestor.acceptBlock(method.sourceStart(), method.sourceEnd(),
-				JavaScriptFoldingBlockKind.FUNCTION, null, collapseMethods);
-		return super.visitMethod(method);
-	}
-
-	@Override
-	public Object visitObjectInitializer(ObjectInitializer node) {
-		if (node.isMultiline()) {
-			final Key assignemtKey = getAssignementKey(node.getParent());
-			if (assignemtKey != null) {
-				requestor.acceptBlock(node.sourceStart(), node.sourceEnd(),
-						JavaScriptFoldingBlockKind.OBJECT_INITIALIZER,
-						assignemtKey, collapseObjectInitializers);
-			}
-		}
-		return super.visitObjectInitializer(node);
-	}
-
-	private Key getAssignementKey(ASTNode node) {
-		if (node instanceof VariableDeclaration) {
-			final VariableDeclaration declaration = (VariableDeclaration) node;
-			final IVariableStatement statement = (IVariableStatement) declaration
-					.getParent();
-			if (statement.getVariables().size() == 1) {
-				return registerName(declaration.getVariableName(),
-						declaration.getIdentifier());
-			}
-		} else if (node instanceof BinaryOperation) {
-			final BinaryOperation operation = (BinaryOperation) node;
-			if (operation.getOperation() == JSParser.ASSIGN) {
-				final String path = PropertyExpressionUtils.getPath(operation
-						.getLeftExpression());
-				if (path != null) {
-					return registerName(path, operation.getLeftExpression());
-				}
-			}
-		}
-		return null;
-	}
-
-	@Override
-	public Object visitBinaryOperation(BinaryOperation node) {
-		if (node.getOperation() == JSParser.ASSIGN) {
-			final Expression expression = node.getLeftExpression();
-			final String name = PropertyExpressionUtils.getPath(expression);
-			if (name != null) {
-				registerName(name, expression);
-			}
-		}
-		return super.visitBinaryOperation(node);
-	}
-
-	@Override
-	public Object visitVariableStatement(VariableStatement node) {
-		for (VariableDeclaration declaration : node.getVariables()) {
-			registerName(declaration.getVariableName(), declaration);
+			final FoldingStructure structure = FoldingStructure.get(script,
+					content.getSourceContents(), previous);
+			previous = structure;
+			structure.accept(this);
 		}
-		return super.visitVariableStatement(node);
 	}
 
-	private static class Key {
-		final String name;
-		final int occurence;
-
-		public Key(String name, int occurence) {
-			this.name = name;
-			this.occurence = occurence;
+	public void acceptBlock(Block block, int offset, Key key) {
+		final Object element;
+		final boolean collapse;
+		switch (block.kind) {
+		case FUNCTION:
+			element = block.methodEnd >= 0 ? methodCollector.get(offset
+					+ block.methodEnd) : null;
+			collapse = collapseMethods;
+			break;
+		case OBJECT_INITIALIZER:
+			element = key;
+			collapse = collapseObjectInitializers;
+			break;
+		case XML:
+			element = null;
+			collapse = collapseXml;
+			break;
+		default:
+			element = null;
+			collapse = collapseStrings;
+			break;
 		}
-
-		@Override
-		public int hashCode() {
-			return name.hashCode() * 31 + occurence;
-		}
-
-		@Override
-		public boolean equals(Object obj) {
-			if (obj instanceof Key) {
-				final Key other = (Key) obj;
-				return occurence == other.occurence && name.equals(other.name);
-			}
-			return false;
-		}
-
-	}
-
-	@SuppressWarnings("serial")
-	private static class Scope extends IdentityHashMap<ASTNode, Key> {
-		final String name;
-
-		public Scope(String name) {
-			this.name = name;
-		}
-
-		private int lastValue;
-
-		Key getKey(ASTNode node) {
-			Key key = get(node);
-			if (key == null) {
-				key = new Key(name, lastValue++);
-				put(node, key);
-			}
-			return key;
-		}
-	}
-
-	private final Map<String, Scope> names = new HashMap<String, Scope>();
-
-	private Key registerName(String name, ASTNode node) {
-		Scope scope = names.get(name);
-		if (scope == null) {
-			scope = new Scope(name);
-			names.put(name, scope);
-		}
-		return scope.getKey(node);
-	}
-
-	@Override
-	public Object visitXmlLiteral(XmlLiteral node) {
-		requestor.acceptBlock(node.sourceStart(), node.sourceEnd(),
-				JavaScriptFoldingBlockKind.XML, null, collapseXml);
-		return super.visitXmlLiteral(node);
-	}
-
-	@Override
-	public Object visitStringLiteral(StringLiteral node) {
-		requestor.acceptBlock(node.sourceStart(), node.sourceEnd(),
-				JavaScriptFoldingBlockKind.MULTILINESTRING, null,
-				collapseStrings);
-		return super.visitStringLiteral(node);
+		requestor.acceptBlock(offset + block.start, offset + block.end,
+				block.kind, element, collapse);
 	}
 }
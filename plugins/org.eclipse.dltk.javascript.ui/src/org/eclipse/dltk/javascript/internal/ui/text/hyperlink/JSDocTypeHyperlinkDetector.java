@@ -25,11 +25,13 @@ import org.eclipse.dltk.internal.javascript.ti.TypeInferencer2;
 import org.eclipse.dltk.internal.ui.actions.SelectionConverter;
 import org.eclipse.dltk.internal.ui.editor.EditorUtility;
 import org.eclipse.dltk.internal.ui.editor.ModelElementHyperlink;
+import org.eclipse.dltk.javascript.core.JSBindings;
 import org.eclipse.dltk.javascript.internal.core.codeassist.JavaScriptSelectionEngine2;
 import org.eclipse.dltk.javascript.internal.ui.JavaScriptUI;
 import org.eclipse.dltk.javascript.internal.ui.text.JSDocTextUtils;
 import org.eclipse.dltk.javascript.internal.ui.text.TypeNameNode;
 import org.eclipse.dltk.javascript.parser.jsdoc.JSDocTag;
+import org.eclipse.dltk.javascript.typeinfo.ITypeSystem;
 import org.eclipse.dltk.javascript.typeinfo.JSDocTypeRegion;
 import org.eclipse.dltk.javascript.typeinfo.JSDocTypeUtil;
 import org.eclipse.dltk.javascript.typeinfo.TypeInfoManager;
@@ -114,8 +116,7 @@ public class JSDocTypeHyperlinkDetector extends AbstractHyperlinkDetector {
 			if (input == null) {
 				return null;
 			}
-			TypeInferencer2 inferencer2 = new TypeInferencer2();
-			inferencer2.setModelElement(input);
+			final TypeInferencer2 inferencer2 = getTypeInferencer(input);
 			final int typeExpressionOffset = lineRegion.getOffset() + start;
 			final JSDocTypeRegion selection = JSDocTypeUtil.findTypeAt(
 					inferencer2, line.substring(start, end), offset
@@ -162,6 +163,21 @@ public class JSDocTypeHyperlinkDetector extends AbstractHyperlinkDetector {
 		return null;
 	}
 
+	/**
+	 * Returns the type system of the bindings already computed for the module
+	 * (e.g. by semantic highlighting) or the new one. Never parses the module,
+	 * as it is called on every hover.
+	 */
+	private static TypeInferencer2 getTypeInferencer(ISourceModule input) {
+		final ITypeSystem typeSystem = JSBindings.getCachedTypeSystem(input);
+		if (typeSystem instanceof TypeInferencer2) {
+			return (TypeInferencer2) typeSystem;
+		}
+		final TypeInferencer2 inferencer2 = new TypeInferencer2();
+		inferencer2.setModelElement(input);
+		return inferencer2;
+	}
+
 	private static class Visitor implements IModelElementVisitor {
 
 		private final String name;
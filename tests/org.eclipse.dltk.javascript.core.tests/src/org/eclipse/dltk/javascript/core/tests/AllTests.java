@@ -9,9 +9,11 @@ import org.eclipse.dltk.javascript.core.tests.builder.BuildChangeTests;
 import org.eclipse.dltk.javascript.core.tests.contentassist.CodeCompletion;
 import org.eclipse.dltk.javascript.core.tests.contentassist.CompletionStringParsing;
 import org.eclipse.dltk.javascript.core.tests.contentassist.JavaScriptCompletionUtilTest;
+import org.eclipse.dltk.javascript.core.tests.contentassist.NodeFinderTests;
 import org.eclipse.dltk.javascript.core.tests.contentassist.SelectionTests;
 import org.eclipse.dltk.javascript.core.tests.contentassist.StandardTypeMemberTests;
 import org.eclipse.dltk.javascript.core.tests.contentassist.XMLCompletionTests;
+import org.eclipse.dltk.javascript.core.tests.refactoring.ChangeSignatureTests;
 import org.eclipse.dltk.javascript.core.tests.rewrite.RewriteTest;
 import org.eclipse.dltk.javascript.core.tests.rewrite.VariableRemoveTest;
 import org.eclipse.dltk.javascript.core.tests.rewrite.XmlQueryRewriteTests;
@@ -74,10 +76,12 @@ public class AllTests {
 		suite.addTest(new JUnit4TestAdapter(SearchTestSuite.class));
 		suite.addTestSuite(RTypeDeclarationTests.class);
 		suite.addTest(SelectionTests.suite());
+		suite.addTestSuite(NodeFinderTests.class);
 		suite.addTestSuite(VariableRemoveTest.class);
 		suite.addTestSuite(RewriteTest.class);
 		suite.addTestSuite(GenericMethodTypeInferenceTest.class);
 		suite.addTestSuite(XmlQueryRewriteTests.class);
+		suite.addTest(ChangeSignatureTests.suite());
 		// $JUnit-END$
 		return suite;
 	}
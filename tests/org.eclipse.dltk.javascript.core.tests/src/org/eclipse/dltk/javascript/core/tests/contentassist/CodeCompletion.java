@@ -12,11 +12,16 @@ import java.util.List;
 
 import org.eclipse.dltk.codeassist.ICompletionEngine;
 import org.eclipse.dltk.compiler.env.IModuleSource;
+import org.eclipse.dltk.compiler.problem.ProblemCollector;
 import org.eclipse.dltk.core.CompletionProposal;
 import org.eclipse.dltk.core.tests.util.StringList;
 import org.eclipse.dltk.javascript.ast.Keywords;
+import org.eclipse.dltk.javascript.ast.Script;
 import org.eclipse.dltk.javascript.core.JavaScriptKeywords;
+import org.eclipse.dltk.javascript.internal.core.codeassist.CompletionSnapshots;
 import org.eclipse.dltk.javascript.internal.core.codeassist.JSCompletionEngine;
+import org.eclipse.dltk.javascript.internal.core.codeassist.JavaScriptCompletionEngine2;
+import org.eclipse.dltk.javascript.parser.JavaScriptParser;
 import org.eclipse.dltk.javascript.typeinfo.ITypeNames;
 
 @SuppressWarnings("restriction")
@@ -1214,5 +1219,62 @@ public class CodeCompletion extends AbstractCompletionTest {
 		assertFalse(names.contains("foo"));
 		assertFalse(names.contains("bar"));
 	}
-}
 
+	private List<String> completeWithSnapshots(IModuleSource module,
+			int position, boolean snapshots) {
+		final List<CompletionProposal> results = new ArrayList<CompletionProposal>();
+		final JavaScriptCompletionEngine2 engine = (JavaScriptCompletionEngine2) createEngine(
+				results, JSCompletionEngine.OPTION_NONE);
+		if (snapshots) {
+			final Script script = new JavaScriptParser().parse(module,
+					new ProblemCollector());
+			final CompletionSnapshots computed = CompletionSnapshots.compute(
+					script, null);
+			assertNotNull(computed.find(position));
+			engine.setSnapshots(computed);
+		}
+		try {
+			engine.complete(module, position, 0);
+		} finally {
+			engine.setSnapshots(null);
+		}
+		final List<String> names = new ArrayList<String>();
+		for (CompletionProposal proposal : results) {
+			names.add(proposal.getName());
+		}
+		Collections.sort(names);
+		return names;
+	}
+
+	public void testSnapshotCompletionMatchesFullInference() {
+		for (String pattern : new String[] { "settings.", "base.", "hel",
+				"new Ba" }) {
+			final StringList code = new StringList();
+			code.add("var settings = { name: 'test', size: 10 }");
+			code.add("function Base(name) {");
+			code.add("	this.name = name");
+			code.add("}");
+			code.add("Base.prototype.getName = function() {");
+			code.add("	return this.name");
+			code.add("}");
+			code.add("function helper(value) {");
+			code.add("	return value + 1");
+			code.add("}");
+			code.add("function helperTwo() {");
+			code.add("	var b = new Base('x')");
+			code.add("	return b");
+			code.add("}");
+			code.add("function test() {");
+			code.add("	var base = new Base('y')");
+			code.add("	" + pattern);
+			code.add("}");
+			final IModuleSource module = new TestModule(code.toString());
+			final int position = lastPositionInFile(pattern, module);
+			final List<String> full = completeWithSnapshots(module, position,
+					false);
+			assertFalse(pattern, full.isEmpty());
+			assertEquals(pattern, full,
+					completeWithSnapshots(module, position, true));
+		}
+	}
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation (Alex Panchenko)
+ *******************************************************************************/
+package org.eclipse.dltk.javascript.core.tests.contentassist;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.ast.ASTNode;
+import org.eclipse.dltk.compiler.env.ModuleSource;
+import org.eclipse.dltk.core.tests.util.StringList;
+import org.eclipse.dltk.javascript.ast.Identifier;
+import org.eclipse.dltk.javascript.ast.Script;
+import org.eclipse.dltk.javascript.core.NodeFinder;
+import org.eclipse.dltk.javascript.core.NodeIndex;
+import org.eclipse.dltk.javascript.parser.JavaScriptParser;
+
+public class NodeFinderTests extends TestCase {
+
+	private static final String CODE;
+
+	static {
+		final StringList code = new StringList();
+		code.add("/** @param {String} a */");
+		code.add("function test(a, b) {");
+		code.add("  var x = a.length + b;");
+		code.add("  if (x > 1) { return [1, function() { return x; }, ]; }");
+		code.add("  return (function(){ x++; }  );");
+		code.add("}");
+		code.add("var o = { name: 'value', call: function(p) { o.name = p; } };");
+		code.add("test(o.name, 2)");
+		CODE = code.toString();
+	}
+
+	private static Script parse(boolean indexed) {
+		final Script script = new JavaScriptParser().parse(new ModuleSource(
+				CODE), null);
+		if (!indexed) {
+			script.setAttribute(NodeIndex.class.getName(), Boolean.FALSE);
+		}
+		return script;
+	}
+
+	private static String describe(ASTNode node) {
+		return node == null ? "null" : node.getClass().getSimpleName() + "["
+				+ node.sourceStart() + ".." + node.sourceEnd() + "]";
+	}
+
+	public void testIndexedLookupMatchesTraversal() {
+		final Script indexed = parse(true);
+		final Script traversed = parse(false);
+		assertNotNull(NodeIndex.get(indexed));
+		assertNull(NodeIndex.get(traversed));
+		for (int start = 0; start <= CODE.length(); ++start) {
+			for (int end = start; end <= Math.min(start + 3, CODE.length()); ++end) {
+				assertEquals(start + ".." + end, describe(new NodeFinder(start,
+						end).locate(traversed).getNode()),
+						describe(new NodeFinder(start, end).locate(indexed)
+								.getNode()));
+			}
+		}
+	}
+
+	public void testFindInnermost() {
+		final NodeIndex index = NodeIndex.get(parse(true));
+		final int offset = CODE.indexOf("length");
+		final ASTNode node = index.findInnermost(offset + 1, offset + 2);
+		assertTrue(node instanceof Identifier);
+		assertEquals("length", ((Identifier) node).getName());
+		assertTrue(index.findNodes(0, CODE.length()).size() == index.size());
+	}
+
+}
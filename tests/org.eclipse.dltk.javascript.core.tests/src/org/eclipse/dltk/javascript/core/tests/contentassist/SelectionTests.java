@@ -15,6 +15,7 @@ import static org.eclipse.dltk.javascript.core.tests.AllTests.PLUGIN_ID;
 import static org.eclipse.dltk.javascript.core.tests.contentassist.AbstractContentAssistTest.lastPositionInFile;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.eclipse.core.runtime.CoreException;
@@ -164,6 +165,25 @@ public class SelectionTests extends AbstractModelTests {
 						nameRange.getOffset() + nameRange.getLength()));
 	}
 
+	public void testMultiSelection() throws ModelException {
+		IModuleSource module = getModule("selection1.js");
+		final String[] names = { "test2()", "test3()", "test1()",
+				"testArgument" };
+		final int[] offsets = new int[names.length];
+		final int[] lengths = new int[names.length];
+		for (int i = 0; i < names.length; ++i) {
+			offsets[i] = lastPositionInFile(names[i], module, false);
+			lengths[i] = 1;
+		}
+		final IModelElement[][] elements = new JavaScriptSelectionEngine2()
+				.select(module, offsets, lengths);
+		assertEquals(names.length, elements.length);
+		for (int i = 0; i < names.length; ++i) {
+			assertEquals(Arrays.asList(select(module, offsets[i])),
+					Arrays.asList(elements[i]));
+		}
+	}
+
 	public void testLocalVar() throws ModelException {
 		IModuleSource module = getModule("locals.js");
 		IModelElement[] elements = select(module,
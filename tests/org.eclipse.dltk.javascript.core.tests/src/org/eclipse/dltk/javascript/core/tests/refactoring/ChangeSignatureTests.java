@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation (Alex Panchenko)
+ *******************************************************************************/
+package org.eclipse.dltk.javascript.core.tests.refactoring;
+
+import static org.eclipse.dltk.javascript.core.tests.AllTests.PLUGIN_ID;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.dltk.core.IMethod;
+import org.eclipse.dltk.core.IScriptProject;
+import org.eclipse.dltk.core.ISourceModule;
+import org.eclipse.dltk.core.tests.model.AbstractModelTests;
+import org.eclipse.dltk.internal.javascript.corext.refactoring.RefactoringCoreMessages;
+import org.eclipse.dltk.internal.javascript.corext.refactoring.structure.ChangeSignatureProcessor;
+import org.eclipse.ltk.core.refactoring.Change;
+import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+import org.eclipse.ltk.core.refactoring.RefactoringStatusContext;
+import org.eclipse.ltk.core.refactoring.RefactoringStatusEntry;
+import org.eclipse.ltk.core.refactoring.TextChange;
+import org.eclipse.ltk.core.refactoring.participants.CheckConditionsContext;
+import org.eclipse.ltk.core.refactoring.participants.ResourceChangeChecker;
+
+@SuppressWarnings("restriction")
+public class ChangeSignatureTests extends AbstractModelTests {
+
+	private static final String PRJ_NAME = "changeSignature";
+
+	public ChangeSignatureTests(String name) {
+		super(PLUGIN_ID, name);
+	}
+
+	public static Suite suite() {
+		return new Suite(ChangeSignatureTests.class);
+	}
+
+	@Override
+	public void setUpSuite() throws Exception {
+		super.setUpSuite();
+		setUpScriptProject(PRJ_NAME);
+		waitUntilIndexesReady();
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		IScriptProject scriptProject = getScriptProject(PRJ_NAME);
+		if (scriptProject == null || !scriptProject.isOpen()) {
+			setUpSuite();
+		}
+		super.setUp();
+	}
+
+	@Override
+	public void tearDownSuite() throws Exception {
+		deleteProject(PRJ_NAME);
+		super.tearDownSuite();
+	}
+
+	private ChangeSignatureProcessor createProcessor(int threadCount)
+			throws CoreException {
+		final ISourceModule module = getSourceModule(PRJ_NAME, "src",
+				"decl.js");
+		final IMethod method = module.getMethod("target");
+		assertTrue(method.exists());
+		final ChangeSignatureProcessor processor = new ChangeSignatureProcessor(
+				method);
+		processor.setThreadCount(threadCount);
+		processor.setNewMethodName("renamed");
+		return processor;
+	}
+
+	private RefactoringStatus checkConditions(
+			ChangeSignatureProcessor processor, IProgressMonitor monitor)
+			throws CoreException {
+		final RefactoringStatus status = processor
+				.checkInitialConditions(monitor);
+		assertFalse(status.hasFatalError());
+		final CheckConditionsContext context = new CheckConditionsContext();
+		context.add(new ResourceChangeChecker());
+		status.merge(processor.checkFinalConditions(monitor, context));
+		return status;
+	}
+
+	/**
+	 * Returns the description of the changes and the status entries, in the
+	 * order they were merged.
+	 */
+	private List<String> describe(ChangeSignatureProcessor processor,
+			RefactoringStatus status) throws CoreException {
+		final List<String> result = new ArrayList<String>();
+		for (Change change : processor.getAllChanges()) {
+			result.add(change.getName()
+					+ ":"
+					+ ((TextChange) change)
+							.getPreviewContent(new NullProgressMonitor()));
+		}
+		for (RefactoringStatusEntry entry : status.getEntries()) {
+			final RefactoringStatusContext context = entry.getContext();
+			result.add(entry.getSeverity()
+					+ ":"
+					+ entry.getMessage()
+					+ ":"
+					+ (context != null ? String.valueOf(context
+							.getCorrespondingElement()) : null));
+		}
+		return result;
+	}
+
+	public void testParallelChangesMatchSequential() throws CoreException {
+		final ChangeSignatureProcessor sequential = createProcessor(1);
+		final List<String> expected = describe(sequential,
+				checkConditions(sequential, new NullProgressMonitor()));
+		// the declaration and the 6 modules with the references
+		assertEquals(7, sequential.getAllChanges().length);
+		for (int i = 0; i < 3; ++i) {
+			final ChangeSignatureProcessor parallel = createProcessor(4);
+			assertEquals(expected, describe(parallel,
+					checkConditions(parallel, new NullProgressMonitor())));
+		}
+	}
+
+	/**
+	 * Cancels the monitor when the changes are computed, after the specified
+	 * number of the modules are merged.
+	 */
+	private static class CancelingMonitor extends NullProgressMonitor {
+		private final int mergedModules;
+		private boolean computingChanges;
+		private int worked;
+
+		CancelingMonitor(int mergedModules) {
+			this.mergedModules = mergedModules;
+		}
+
+		@Override
+		public void subTask(String name) {
+			if (RefactoringCoreMessages.ChangeSignatureRefactoring_preview
+					.equals(name)) {
+				computingChanges = true;
+				checkCanceled();
+			}
+		}
+
+		@Override
+		public void internalWorked(double work) {
+			if (computingChanges) {
+				++worked;
+				checkCanceled();
+			}
+		}
+
+		private void checkCanceled() {
+			if (worked >= mergedModules) {
+				setCanceled(true);
+			}
+		}
+	}
+
+	private void assertCanceled(int mergedModules) throws CoreException {
+		final CancelingMonitor monitor = new CancelingMonitor(mergedModules);
+		final ChangeSignatureProcessor processor = createProcessor(4);
+		try {
+			checkConditions(processor, monitor);
+			fail("OperationCanceledException expected");
+		} catch (OperationCanceledException e) {
+			// expected
+		}
+		assertTrue(monitor.isCanceled());
+	}
+
+	public void testCancelBeforeChanges() throws CoreException {
+		assertCanceled(0);
+	}
+
+	public void testCancelWhileWaiting() throws CoreException {
+		assertCanceled(1);
+	}
+
+}
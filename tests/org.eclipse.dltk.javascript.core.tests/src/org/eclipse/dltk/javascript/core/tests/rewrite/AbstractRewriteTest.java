@@ -11,6 +11,9 @@
  *******************************************************************************/
 package org.eclipse.dltk.javascript.core.tests.rewrite;
 
+import java.util.List;
+
+import org.eclipse.dltk.core.ISourceRange;
 import org.eclipse.dltk.javascript.ast.Script;
 import org.eclipse.dltk.javascript.core.dom.Source;
 import org.eclipse.dltk.javascript.core.dom.rewrite.ASTConverter;
@@ -31,6 +34,16 @@ public abstract class AbstractRewriteTest extends TestCase {
 		final Script script = new JavaScriptParser().parse(input, null);
 		final ASTConverter converter = new ASTConverter();
 		final Source source = (Source) converter.visit(script);
+		return rewrite(input, source, operation);
+	}
+
+	protected String rewrite(String input, List<ISourceRange> ranges,
+			Operation operation) {
+		final Script script = new JavaScriptParser().parse(input, null);
+		return rewrite(input, ASTConverter.convert(script, ranges), operation);
+	}
+
+	private String rewrite(String input, Source source, Operation operation) {
 		final ChangeRecorder recorder = new ChangeRecorder(source);
 		operation.execute(source);
 		final ChangeDescription cd = recorder.endRecording();
@@ -13,14 +13,18 @@ package org.eclipse.dltk.javascript.core.tests.rewrite;
 
 import static java.lang.Integer.parseInt;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.eclipse.dltk.core.ISourceRange;
+import org.eclipse.dltk.core.SourceRange;
 import org.eclipse.dltk.core.tests.util.StringList;
 import org.eclipse.dltk.javascript.core.dom.NumericLiteral;
 import org.eclipse.dltk.javascript.core.dom.Source;
 import org.eclipse.dltk.javascript.core.dom.StringLiteral;
 import org.eclipse.dltk.javascript.core.dom.VariableDeclaration;
+import org.eclipse.dltk.javascript.core.dom.VariableStatement;
 import org.eclipse.emf.ecore.EObject;
 
 public class RewriteTest extends AbstractRewriteTest {
@@ -85,4 +89,71 @@ public class RewriteTest extends AbstractRewriteTest {
 		assertEquals("var year = 2013", changed);
 	}
 
+	public void testPartialConversion() {
+		final StringList code = new StringList();
+		code.add("var a = 'A'");
+		code.add("var b = 'B'");
+		code.add("var c = 'C'");
+		final String input = code.toString();
+		final AtomicInteger counter = new AtomicInteger();
+		final String changed = rewrite(input,
+				Collections.<ISourceRange> singletonList(new SourceRange(input
+						.indexOf("'B'"), 3)), new Operation() {
+					@Override
+					public void execute(Source source) {
+						assertEquals(1, source.getStatements().size());
+						for (Iterator<EObject> i = source.eAllContents(); i
+								.hasNext();) {
+							final EObject child = i.next();
+							if (child instanceof StringLiteral) {
+								((StringLiteral) child).setText("'BB'");
+								counter.incrementAndGet();
+							}
+						}
+					}
+				});
+		assertEquals(1, counter.intValue());
+		final StringList expected = new StringList();
+		expected.add("var a = 'A'");
+		expected.add("var b = 'BB'");
+		expected.add("var c = 'C'");
+		assertEquals(expected.toString(), changed);
+	}
+
+	public void testPartialConversionOfWrapper() {
+		for (String wrapper : new String[] { "(function() {|})()",
+				"define(['dep'], function(dep) {|})" }) {
+			final int split = wrapper.indexOf('|');
+			final StringList code = new StringList();
+			code.add(wrapper.substring(0, split));
+			code.add("var a = 'A'");
+			code.add("var b = 'B'");
+			code.add("var c = 'C'");
+			code.add(wrapper.substring(split + 1));
+			final String input = code.toString();
+			final AtomicInteger counter = new AtomicInteger();
+			final String changed = rewrite(input,
+					Collections.<ISourceRange> singletonList(new SourceRange(
+							input.indexOf("'B'"), 3)), new Operation() {
+						@Override
+						public void execute(Source source) {
+							for (Iterator<EObject> i = source.eAllContents(); i
+									.hasNext();) {
+								final EObject child = i.next();
+								if (child instanceof VariableStatement) {
+									counter.incrementAndGet();
+								} else if (child instanceof StringLiteral
+										&& "'B'".equals(((StringLiteral) child)
+												.getText())) {
+									((StringLiteral) child).setText("'BB'");
+								}
+							}
+						}
+					});
+			// only the statement of the wrapped body containing the range
+			assertEquals(wrapper, 1, counter.intValue());
+			assertEquals(wrapper, input.replace("'B'", "'BB'"), changed);
+		}
+	}
+
 }
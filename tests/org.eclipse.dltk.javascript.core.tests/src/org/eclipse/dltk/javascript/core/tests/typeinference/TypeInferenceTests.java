@@ -20,11 +20,14 @@ import java.util.Set;
 
 import junit.framework.TestCase;
 
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.dltk.compiler.env.ModuleSource;
 import org.eclipse.dltk.compiler.problem.ProblemCollector;
 import org.eclipse.dltk.core.tests.TestSupport;
 import org.eclipse.dltk.core.tests.util.StringList;
 import org.eclipse.dltk.internal.javascript.ti.IReferenceAttributes;
+import org.eclipse.dltk.internal.javascript.ti.InferenceStatistics;
 import org.eclipse.dltk.internal.javascript.ti.TypeInferencer2;
 import org.eclipse.dltk.internal.javascript.validation.JavaScriptValidations;
 import org.eclipse.dltk.javascript.ast.Script;
@@ -1377,4 +1380,57 @@ public class TypeInferenceTests extends TestCase implements ITypeNames {
 		
 	}
 
+	public void testCanceledInference() {
+		final NullProgressMonitor monitor = new NullProgressMonitor();
+		monitor.setCanceled(true);
+		inferencer = new TestTypeInferencer2();
+		inferencer.setProgressMonitor(monitor);
+		try {
+			inferencer.doInferencing(parse("var a = 1"));
+			fail("OperationCanceledException expected");
+		} catch (OperationCanceledException e) {
+			// expected
+		}
+	}
+
+	public void testTimeBudget() {
+		final StringList code = new StringList();
+		for (int i = 0; i < 20000; ++i) {
+			code.add("var v" + i + " = " + i + ";");
+		}
+		final Script script = parse(code.toString());
+		inferencer = new TestTypeInferencer2();
+		inferencer.doInferencing(script);
+		assertTrue(inferencer.isComplete());
+		inferencer = new TestTypeInferencer2();
+		inferencer.setTimeBudget(1);
+		inferencer.doInferencing(script);
+		assertFalse(inferencer.isComplete());
+		assertTrue(inferencer.getCollection().getChild("v0").exists());
+		assertTrue(inferencer.getCollection().getChild("v19999").getTypes()
+				.isEmpty());
+	}
+
+	public void testStatistics() {
+		final StringList code = new StringList();
+		code.add("function a() { var x = 1; return x + 1; }");
+		code.add("function b() { return a() + a(); }");
+		code.add("var v = b();");
+		final InferenceStatistics statistics = new InferenceStatistics("test");
+		inferencer = new TestTypeInferencer2();
+		inferencer.setStatistics(statistics);
+		inferencer.doInferencing(parse(code.toString()));
+		assertEquals(1, statistics.getInferenceCount());
+		assertFalse(statistics.getNodeTypes().isEmpty());
+		final List<InferenceStatistics.Entry> functions = statistics
+				.getSlowestFunctions(10);
+		assertEquals(2, functions.size());
+		assertTrue(statistics.getCounter(InferenceStatistics.Counter.VALUES) > 0);
+		assertTrue(statistics
+				.getCounter(InferenceStatistics.Counter.REFERENCES) > 0);
+		final String json = statistics.toJSON();
+		assertTrue(json.startsWith("{\"module\":\"test\""));
+		assertTrue(json.contains("\"name\":\"b\""));
+	}
+
 }
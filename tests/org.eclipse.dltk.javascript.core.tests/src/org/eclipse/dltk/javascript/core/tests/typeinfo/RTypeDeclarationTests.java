@@ -51,6 +51,25 @@ public class RTypeDeclarationTests extends TestCase {
 		assertEquals(TypeCompatibility.FALSE, number.isAssignableFrom(string));
 	}
 
+	public void testAssignabilityCache() {
+		final Type aType = TypeInfoModelFactory.eINSTANCE.createType();
+		aType.setName("A");
+		final Type bType = TypeInfoModelFactory.eINSTANCE.createType();
+		bType.setName("B");
+		bType.setSuperType(aType);
+
+		final TypeSystemImpl ts = (TypeSystemImpl) typeSystem;
+		final IRTypeDeclaration a = typeSystem.convert(aType);
+		final IRTypeDeclaration b = typeSystem.convert(bType);
+		assertNull(ts.getCachedAssignability(a, b));
+		assertEquals(TypeCompatibility.TRUE, a.isAssignableFrom(b));
+		assertEquals(TypeCompatibility.TRUE, ts.getCachedAssignability(a, b));
+		assertEquals(TypeCompatibility.FALSE, b.isAssignableFrom(a));
+		assertEquals(TypeCompatibility.FALSE, ts.getCachedAssignability(b, a));
+		ts.reset();
+		assertNull(ts.getCachedAssignability(a, b));
+	}
+
 	public void testAssignableFromArray() {
 		final IRTypeDeclaration arrayOfString = typeSystem.parameterize(ARRAY,
 				singletonList(simple(typeSystem, STRING)));
@@ -11,13 +11,19 @@
  *******************************************************************************/
 package org.eclipse.dltk.javascript.core.tests.typeinfo;
 
+import java.util.List;
+
 import org.eclipse.dltk.internal.javascript.ti.TypeSystemImpl;
+import org.eclipse.dltk.javascript.internal.core.RTypeDeclaration;
+import org.eclipse.dltk.javascript.internal.core.RTypeMemberIndex;
+import org.eclipse.dltk.javascript.typeinfo.IRMember;
 import org.eclipse.dltk.javascript.typeinfo.IRMethod;
 import org.eclipse.dltk.javascript.typeinfo.IRTypeDeclaration;
 import org.eclipse.dltk.javascript.typeinfo.ITypeSystem;
 import org.eclipse.dltk.javascript.typeinfo.MemberPredicates;
 import org.eclipse.dltk.javascript.typeinfo.RTypeMemberQuery;
 import org.eclipse.dltk.javascript.typeinfo.model.Method;
+import org.eclipse.dltk.javascript.typeinfo.model.Property;
 import org.eclipse.dltk.javascript.typeinfo.model.Type;
 import org.eclipse.dltk.javascript.typeinfo.model.TypeInfoModelFactory;
 import org.junit.Assert;
@@ -59,4 +65,66 @@ public class RTypeMemberQueryTest extends Assert {
 		assertSame(baseRun, superMethod.getSource());
 	}
 
+	@Test
+	public void memberIndex() {
+		final Type trait = TIMF.createType();
+		trait.setName("Trait");
+		final Method traitRun = TIMF.createMethod();
+		traitRun.setName("run");
+		trait.getMembers().add(traitRun);
+		final Property traitName = TIMF.createProperty();
+		traitName.setName("name");
+		trait.getMembers().add(traitName);
+
+		final Type base = TIMF.createType();
+		base.setName("Base");
+		final Property baseCount = TIMF.createProperty();
+		baseCount.setName("count");
+		baseCount.setStatic(true);
+		base.getMembers().add(baseCount);
+
+		final Type child = TIMF.createType();
+		child.setName("Child");
+		child.setSuperType(base);
+		child.getTraits().add(trait);
+		final Method childRun = TIMF.createMethod();
+		childRun.setName("run");
+		child.getMembers().add(childRun);
+		final Method childCount = TIMF.createMethod();
+		childCount.setName("count");
+		childCount.setStatic(true);
+		child.getMembers().add(childCount);
+
+		final RTypeDeclaration declaration = (RTypeDeclaration) typeSystem
+				.convert(child);
+		final RTypeMemberIndex index = declaration.getMemberIndex();
+		assertSame(index, declaration.getMemberIndex());
+
+		final List<IRMember> run = index.findMembers("run",
+				MemberPredicates.ALWAYS_TRUE);
+		assertEquals(1, run.size());
+		assertSame(childRun, run.get(0).getSource());
+		assertTrue(index.findMembers("run", MemberPredicates.STATIC)
+				.isEmpty());
+
+		final List<IRMember> name = index.findMembers("name",
+				MemberPredicates.NON_STATIC);
+		assertEquals(1, name.size());
+		assertSame(traitName, name.get(0).getSource());
+
+		final List<IRMember> count = index.findMembers("count",
+				MemberPredicates.STATIC);
+		assertEquals(1, count.size());
+		assertSame(childCount, count.get(0).getSource());
+		assertTrue(index.findMembers("count", MemberPredicates.NON_STATIC)
+				.isEmpty());
+		assertTrue(index.findMembers("unknown", MemberPredicates.ALWAYS_TRUE)
+				.isEmpty());
+
+		final RTypeMemberQuery memberQuery = new RTypeMemberQuery(declaration);
+		assertSame(childRun, memberQuery.findMethod("run").getSource());
+		assertSame(traitName, memberQuery.findProperty("name").getSource());
+		assertNull(memberQuery.findProperty("run"));
+	}
+
 }
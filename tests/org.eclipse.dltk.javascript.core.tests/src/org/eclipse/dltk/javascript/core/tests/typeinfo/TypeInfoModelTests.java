@@ -11,18 +11,34 @@
  *******************************************************************************/
 package org.eclipse.dltk.javascript.core.tests.typeinfo;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
 import junit.framework.TestCase;
 
 import org.eclipse.dltk.compiler.env.ModuleSource;
 import org.eclipse.dltk.compiler.problem.ProblemCollector;
+import org.eclipse.dltk.internal.javascript.ti.ContributedNames;
 import org.eclipse.dltk.javascript.parser.JavaScriptParser;
 import org.eclipse.dltk.javascript.typeinfo.DefaultMetaType;
+import org.eclipse.dltk.javascript.typeinfo.IContributedNames;
+import org.eclipse.dltk.javascript.typeinfo.INameContributor;
 import org.eclipse.dltk.javascript.typeinfo.ITypeNames;
 import org.eclipse.dltk.javascript.typeinfo.TypeInfoManager;
+import org.eclipse.dltk.javascript.typeinfo.TypeMode;
+import org.eclipse.dltk.javascript.typeinfo.model.Member;
+import org.eclipse.dltk.javascript.typeinfo.model.Method;
 import org.eclipse.dltk.javascript.typeinfo.model.Type;
 import org.eclipse.dltk.javascript.typeinfo.model.TypeInfoModelFactory;
 import org.eclipse.dltk.javascript.typeinfo.model.TypeInfoModelLoader;
+import org.eclipse.dltk.javascript.typeinfo.model.TypeInfoModelResourceSet;
 import org.eclipse.dltk.javascript.typeinfo.model.TypeKind;
+import org.eclipse.dltk.javascript.typeinfo.model.TypeLiteral;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
 
 @SuppressWarnings("nls")
 public class TypeInfoModelTests extends TestCase implements ITypeNames {
@@ -61,4 +77,157 @@ public class TypeInfoModelTests extends TestCase implements ITypeNames {
 		assertSame(DefaultMetaType.DEFAULT, type.getMetaType());
 	}
 
+	public void testListTypes() {
+		final Set<String> types = TypeInfoModelLoader.getInstance()
+				.listTypes("Str");
+		assertTrue(types.contains(STRING));
+		for (String type : types) {
+			assertTrue(type, type.startsWith("Str"));
+		}
+	}
+
+	public void testModelIndexInvalidation() {
+		final TypeInfoModelResourceSet resourceSet = new TypeInfoModelResourceSet();
+		assertTrue(resourceSet.listTypes("Foo").isEmpty());
+		final Resource resource = new ResourceImpl(
+				URI.createURI("test:/types"));
+		resourceSet.getResources().add(resource);
+		final Type type = TypeInfoModelFactory.eINSTANCE.createType();
+		type.setName("FooBar");
+		resource.getContents().add(type);
+		assertEquals(Collections.singleton("FooBar"),
+				resourceSet.listTypes("Foo"));
+		resource.getContents().remove(type);
+		assertTrue(resourceSet.listTypes("Foo").isEmpty());
+	}
+
+	public void testModelIndexPrefix() {
+		final TypeInfoModelResourceSet resourceSet = new TypeInfoModelResourceSet();
+		final Resource resource = new ResourceImpl(
+				URI.createURI("test:/members"));
+		resourceSet.getResources().add(resource);
+		for (String name : new String[] { "NullPointerException", "Number",
+				"Object", "NumberFormat" }) {
+			final Method method = TypeInfoModelFactory.eINSTANCE
+					.createMethod();
+			method.setName(name);
+			resource.getContents().add(method);
+		}
+		final Type type = TypeInfoModelFactory.eINSTANCE.createType();
+		type.setName("Numeric");
+		final TypeLiteral literal = TypeInfoModelFactory.eINSTANCE
+				.createTypeLiteral();
+		literal.setTarget(type);
+		resource.getContents().add(literal);
+		final Set<String> names = new HashSet<String>();
+		for (Member member : resourceSet.listMembers("Num")) {
+			names.add(member.getName());
+		}
+		assertEquals(new HashSet<String>(Arrays.asList("Number",
+				"NumberFormat")), names);
+		assertEquals(4, resourceSet.listMembers("").size());
+		assertTrue(resourceSet.listMembers("X").isEmpty());
+		assertEquals(Collections.singleton("Numeric"),
+				resourceSet.listTypeLiterals("Nu"));
+	}
+
+	public void testModelIndexRename() {
+		final TypeInfoModelResourceSet resourceSet = new TypeInfoModelResourceSet();
+		final Resource resource = new ResourceImpl(
+				URI.createURI("test:/rename"));
+		resourceSet.getResources().add(resource);
+		final Type type = TypeInfoModelFactory.eINSTANCE.createType();
+		type.setName("FooBar");
+		resource.getContents().add(type);
+		final TypeLiteral literal = TypeInfoModelFactory.eINSTANCE
+				.createTypeLiteral();
+		literal.setTarget(type);
+		resource.getContents().add(literal);
+		assertEquals(Collections.singleton("FooBar"),
+				resourceSet.listTypes("Foo"));
+		assertEquals(Collections.singleton("FooBar"),
+				resourceSet.listTypeLiterals("Foo"));
+		type.setName("BarFoo");
+		assertTrue(resourceSet.listTypes("Foo").isEmpty());
+		assertTrue(resourceSet.listTypeLiterals("Foo").isEmpty());
+		assertEquals(Collections.singleton("BarFoo"),
+				resourceSet.listTypes("Bar"));
+		assertEquals(Collections.singleton("BarFoo"),
+				resourceSet.listTypeLiterals("Bar"));
+		literal.setName("Baz");
+		assertTrue(resourceSet.listTypeLiterals("Bar").isEmpty());
+		assertEquals(Collections.singleton("Baz"),
+				resourceSet.listTypeLiterals("Ba"));
+	}
+
+	public void testModelIndexVisibility() {
+		final TypeInfoModelResourceSet resourceSet = new TypeInfoModelResourceSet();
+		final Resource resource = new ResourceImpl(
+				URI.createURI("test:/visibility"));
+		resourceSet.getResources().add(resource);
+		final Type type = TypeInfoModelFactory.eINSTANCE.createType();
+		type.setName("FooBar");
+		resource.getContents().add(type);
+		assertEquals(Collections.singleton("FooBar"),
+				resourceSet.listTypes("Foo"));
+		type.setVisible(false);
+		assertTrue(resourceSet.listTypes("Foo").isEmpty());
+		type.setVisible(true);
+		assertEquals(Collections.singleton("FooBar"),
+				resourceSet.listTypes("Foo"));
+	}
+
+	public void testModelIndexResourceRemoval() {
+		final TypeInfoModelResourceSet resourceSet = new TypeInfoModelResourceSet();
+		final Resource resource = new ResourceImpl(
+				URI.createURI("test:/removal"));
+		final Method method = TypeInfoModelFactory.eINSTANCE.createMethod();
+		method.setName("fooBar");
+		resource.getContents().add(method);
+		resourceSet.getResources().add(resource);
+		assertEquals(Collections.singleton(method),
+				resourceSet.listMembers("foo"));
+		method.setName("barFoo");
+		assertTrue(resourceSet.listMembers("foo").isEmpty());
+		resourceSet.getResources().remove(resource);
+		assertTrue(resourceSet.listMembers("").isEmpty());
+	}
+
+	private static class TestNameContributor implements INameContributor {
+		static IContributedNames names;
+
+		public void contributeNames(IContributedNames names) {
+			TestNameContributor.names = names;
+			names.addType(TypeMode.JSDOC, "ContributedType");
+			names.addGlobal("contributedGlobal");
+		}
+	}
+
+	public void testContributedNames() {
+		final ContributedNames contributedNames = ContributedNames
+				.getInstance();
+		assertFalse(contributedNames.contribute(new Object()));
+		assertTrue(contributedNames.contribute(new TestNameContributor()));
+		final Set<Class<?>> active = new HashSet<Class<?>>();
+		active.add(TestNameContributor.class);
+		final Set<String> names = new HashSet<String>();
+		contributedNames.listTypes(TypeMode.JSDOC, "Contr", active, names);
+		assertEquals(Collections.singleton("ContributedType"), names);
+		names.clear();
+		contributedNames.listTypes(TypeMode.CODE, "Contr", active, names);
+		contributedNames.listTypes(TypeMode.JSDOC, "Contr",
+				Collections.<Class<?>> emptySet(), names);
+		assertTrue(names.isEmpty());
+		contributedNames.listGlobals("contr", active, names);
+		assertEquals(Collections.singleton("contributedGlobal"), names);
+		// contributed once, updated in place
+		final IContributedNames contributed = TestNameContributor.names;
+		assertTrue(contributedNames.contribute(new TestNameContributor()));
+		assertSame(contributed, TestNameContributor.names);
+		contributed.removeGlobal("contributedGlobal");
+		names.clear();
+		contributedNames.listGlobals("contr", active, names);
+		assertTrue(names.isEmpty());
+	}
+
 }
@@ -0,0 +1,3 @@
+function target(first, second) {
+	return first + second;
+}
@@ -0,0 +1,2 @@
+var result1 = target(1, 1);
+var other1 = target(1, 0);
@@ -0,0 +1,2 @@
+var result2 = target(2, 2);
+var other2 = target(2, 0);
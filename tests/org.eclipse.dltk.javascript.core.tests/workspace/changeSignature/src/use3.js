@@ -0,0 +1,2 @@
+var result3 = target(3, 3);
+var other3 = target(3, 0);
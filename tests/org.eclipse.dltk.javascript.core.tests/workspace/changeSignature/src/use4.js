@@ -0,0 +1 @@
+var result4 = target(4);
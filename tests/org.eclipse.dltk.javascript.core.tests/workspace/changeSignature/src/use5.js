@@ -0,0 +1,2 @@
+var result5 = target(5, 5);
+var other5 = target(5, 0);
@@ -0,0 +1,2 @@
+var result6 = target(6, 6);
+var other6 = target(6, 0);
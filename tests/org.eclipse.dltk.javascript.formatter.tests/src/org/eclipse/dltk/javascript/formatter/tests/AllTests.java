@@ -46,6 +46,7 @@ public class AllTests {
 		suite.addTest(StatementTest.suite());
 		suite.addTest(VarTest.suite());
 		suite.addTest(ObjectInitializerTest.suite());
+		suite.addTestSuite(RangeFormattingTest.class);
 		suite.addTestSuite(JavaScriptStreamTokenTestCase.class);
 		suite.addTestSuite(JavaScriptParserTestCase.class);
 		suite.addTestSuite(ANTLRParserTestCase.class);
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.javascript.formatter.tests;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.javascript.formatter.JavaScriptFormatter;
+import org.eclipse.dltk.javascript.formatter.JavaScriptFormatterConstants;
+import org.eclipse.dltk.javascript.internal.formatter.tests.TestJavaScriptFormatter;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.text.edits.TextEdit;
+
+public class RangeFormattingTest extends TestCase {
+
+	private JavaScriptFormatter formatter;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		formatter = new TestJavaScriptFormatter("\n",
+				JavaScriptFormatterConstants.getDefaults());
+	}
+
+	private String apply(String source, TextEdit edit) throws Exception {
+		final IDocument document = new Document(source);
+		edit.apply(document);
+		return document.get();
+	}
+
+	private static void assertWhitespaceOnly(String source, TextEdit edit) {
+		for (TextEdit child : edit.getChildren()) {
+			assertEquals(
+					"",
+					source.substring(child.getOffset(),
+							child.getOffset() + child.getLength()).trim());
+		}
+	}
+
+	public void testMinimalEdits() throws Exception {
+		final String source = "var x=1;\nvar y = 2;\nfunction f(){return x+y;}\n";
+		final TextEdit edit = formatter.format(source, 0, source.length(), 0);
+		assertTrue(edit.getChildrenSize() > 1);
+		assertWhitespaceOnly(source, edit);
+		assertEquals(formatter.format(source, 0), apply(source, edit));
+	}
+
+	public void testNoChanges() throws Exception {
+		final String source = formatter.format("var x=1;\n", 0);
+		final TextEdit edit = formatter.format(source, 0, source.length(), 0);
+		assertEquals(0, edit.getChildrenSize());
+	}
+
+	public void testRangeUsesEnclosingIndentation() throws Exception {
+		final String formatted = formatter.format(
+				"function f() {\nvar x=1;\nvar y=2;\n}\n", 0);
+		final String[] lines = formatted.split("\n");
+		final String unindented = lines[0] + "\n" + lines[1].trim() + "\n"
+				+ "var y=2;\n" + lines[3] + "\n";
+		final int start = unindented.indexOf("var x");
+		final int end = unindented.indexOf('\n', start);
+		final TextEdit edit = formatter.format(unindented, start, end - start,
+				0);
+		assertWhitespaceOnly(unindented, edit);
+		final String result = apply(unindented, edit);
+		assertEquals(lines[0] + "\n" + lines[1] + "\n" + "var y=2;\n"
+				+ lines[3] + "\n", result);
+	}
+
+	public void testRangeKeepsIndentationLevel() throws Exception {
+		final String source = "function f() {\nvar x=1;\nvar y=2;\n}\n";
+		final String[] lines = formatter.format(source, 1).split("\n");
+		final int start = source.indexOf("var x");
+		final int end = source.indexOf('\n', start);
+		final TextEdit edit = formatter.format(source, start, end - start, 1);
+		assertWhitespaceOnly(source, edit);
+		final String result = apply(source, edit);
+		assertEquals(lines[1], result.split("\n")[1]);
+		assertEquals("var y=2;", result.split("\n")[2]);
+	}
+
+}
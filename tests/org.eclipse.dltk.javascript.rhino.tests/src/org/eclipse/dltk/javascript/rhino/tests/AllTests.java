@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation (Alex Panchenko)
+ *******************************************************************************/
+package org.eclipse.dltk.javascript.rhino.tests;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+public class AllTests {
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(
+				"Test for org.eclipse.dltk.javascript.rhino");
+		// $JUnit-BEGIN$
+		suite.addTestSuite(BatchRhinoRunnerTests.class);
+		suite.addTestSuite(CoverageCollectorTests.class);
+		suite.addTestSuite(JavaInteropTests.class);
+		suite.addTestSuite(RegExpCacheTests.class);
+		suite.addTestSuite(SamplingProfilerTests.class);
+		suite.addTestSuite(TieredCompilationTests.class);
+		// $JUnit-END$
+		return suite;
+	}
+
+}
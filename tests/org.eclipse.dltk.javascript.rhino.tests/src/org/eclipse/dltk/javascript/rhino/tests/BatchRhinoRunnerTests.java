@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation (Alex Panchenko)
+ *******************************************************************************/
+package org.eclipse.dltk.javascript.rhino.tests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.rhino.dbgp.BatchRhinoRunner;
+import org.eclipse.dltk.rhino.dbgp.BatchRhinoRunner.Result;
+import org.eclipse.dltk.rhino.dbgp.DefaultRhinoRunner;
+import org.mozilla.javascript.BaseFunction;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.EvaluatorException;
+import org.mozilla.javascript.JavaScriptException;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+
+public class BatchRhinoRunnerTests extends TestCase {
+
+	private static final String NL = System.getProperty("line.separator");
+
+	private File directory;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		directory = File.createTempFile("batch", "");
+		directory.delete();
+		directory.mkdir();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+		super.tearDown();
+	}
+
+	private String write(String name, String... lines) throws IOException {
+		final File file = new File(directory, name);
+		final Writer writer = new OutputStreamWriter(new FileOutputStream(
+				file));
+		try {
+			for (String line : lines) {
+				writer.write(line);
+				writer.write('\n');
+			}
+		} finally {
+			writer.close();
+		}
+		return file.getPath();
+	}
+
+	private static List<Result> run(String... fileNames)
+			throws InterruptedException {
+		return new BatchRhinoRunner(4).run(Arrays.asList(fileNames));
+	}
+
+	public void testIsolation() throws Exception {
+		final PrintStream out = System.out;
+		final String a = write("a.js", "var x = 1;",
+				"for (var i = 0; i < 200; ++i) print('a', i);",
+				"print(typeof y);");
+		final String b = write("b.js", "var y = 2;",
+				"for (var i = 0; i < 200; ++i) print('b', i);",
+				"print(typeof x);",
+				"print(java.lang.System.out.hashCode());");
+		final List<Result> results = run(a, b);
+		final StringBuilder expectedA = new StringBuilder();
+		final StringBuilder expectedB = new StringBuilder();
+		for (int i = 0; i < 200; ++i) {
+			expectedA.append("a " + i + NL);
+			expectedB.append("b " + i + NL);
+		}
+		expectedA.append("undefined" + NL);
+		expectedB.append("undefined" + NL);
+		// the standard output is not replaced while the scripts run
+		expectedB.append(out.hashCode() + NL);
+		assertTrue(results.get(0).isSuccess());
+		assertEquals(expectedA.toString(), results.get(0).getOutput());
+		assertTrue(results.get(1).isSuccess());
+		assertEquals(expectedB.toString(), results.get(1).getOutput());
+		assertSame(out, System.out);
+	}
+
+	public void testOrdering() throws Exception {
+		final List<String> fileNames = new ArrayList<String>();
+		fileNames.add(write("slow.js",
+				"var end = new Date().getTime() + 200;",
+				"while (new Date().getTime() < end) {}", "print('slow');"));
+		for (int i = 0; i < 8; ++i) {
+			fileNames.add(write("fast" + i + ".js", "print('fast" + i
+					+ "');"));
+		}
+		final List<Result> results = run(fileNames
+				.toArray(new String[fileNames.size()]));
+		assertEquals(fileNames.size(), results.size());
+		assertEquals("slow" + NL, results.get(0).getOutput());
+		assertTrue(results.get(0).getElapsedNanos() >= 200 * 1000000L);
+		for (int i = 0; i < results.size(); ++i) {
+			assertEquals(fileNames.get(i), results.get(i).getFileName());
+			if (i != 0) {
+				assertEquals("fast" + (i - 1) + NL, results.get(i)
+						.getOutput());
+			}
+		}
+	}
+
+	public void testFailures() throws Exception {
+		final String ok = write("ok.js", "print('ok');");
+		final String thrown = write("thrown.js", "print('before');",
+				"throw new Error('boom');");
+		final String syntax = write("syntax.js", "var = ;");
+		final String missing = new File(directory, "missing.js").getPath();
+		final List<Result> results = run(ok, thrown, syntax, missing);
+
+		assertTrue(results.get(0).isSuccess());
+		assertNull(results.get(0).getError());
+		assertTrue(results.get(0).toString(), results.get(0).toString()
+				.startsWith(ok + ": OK "));
+
+		final Result thrownResult = results.get(1);
+		assertFalse(thrownResult.isSuccess());
+		assertTrue(thrownResult.getError() instanceof JavaScriptException);
+		assertTrue(thrownResult.toString(), thrownResult.toString()
+				.startsWith(thrown + ": FAILED "));
+		final String output = thrownResult.getOutput();
+		assertTrue(output, output.startsWith("before" + NL + "Error: boom"
+				+ NL));
+		assertTrue(output, output.indexOf(thrown + ":2") != -1);
+
+		assertFalse(results.get(2).isSuccess());
+		assertTrue(results.get(2).getError() instanceof EvaluatorException);
+		assertTrue(results.get(2).toString().startsWith(syntax + ": FAILED "));
+
+		assertFalse(results.get(3).isSuccess());
+		assertTrue(results.get(3).getError() instanceof FileNotFoundException);
+		assertTrue(results.get(3).toString()
+				.startsWith(missing + ": FAILED "));
+
+		assertEquals(1, BatchRhinoRunner.getExitCode(results));
+		assertEquals(0, BatchRhinoRunner.getExitCode(results.subList(0, 1)));
+	}
+
+	private static class AbortError extends Error {
+		private static final long serialVersionUID = 1L;
+	}
+
+	public void testErrorAbortsBatch() throws Exception {
+		final String ok = write("ok.js", "print('ok');");
+		final String abort = write("abort.js", "try {", "  abort();",
+				"} catch (e) {", "  print('caught');", "}");
+		final BatchRhinoRunner runner = new BatchRhinoRunner(2) {
+			@Override
+			protected void initScope(Context cx, Scriptable scope,
+					PrintStream out) {
+				super.initScope(cx, scope, out);
+				ScriptableObject.putProperty(scope, "abort",
+						new BaseFunction() {
+							private static final long serialVersionUID = 1L;
+
+							@Override
+							public Object call(Context cx, Scriptable scope,
+									Scriptable thisObj, Object[] args) {
+								throw new AbortError();
+							}
+						});
+			}
+		};
+		try {
+			runner.run(Arrays.asList(ok, abort));
+			fail("AbortError expected");
+		} catch (AbortError e) {
+			// expected
+		}
+	}
+
+	private static int runBatch(final String... fileNames) {
+		final PrintStream out = System.out;
+		// the report is printed to the standard output
+		System.setOut(new PrintStream(new ByteArrayOutputStream()));
+		try {
+			return new DefaultRhinoRunner() {
+				int exitCode() {
+					return runBatch(Arrays.asList(fileNames));
+				}
+			}.exitCode();
+		} finally {
+			System.setOut(out);
+		}
+	}
+
+	public void testExitCode() throws Exception {
+		final String ok = write("ok.js", "print('ok');");
+		final String failed = write("failed.js", "undefinedFunction();");
+		assertEquals(0, runBatch(ok));
+		assertEquals(1, runBatch(ok, failed));
+		assertEquals(1, runBatch(ok, new File(directory, "missing.js")
+				.getPath()));
+	}
+
+}
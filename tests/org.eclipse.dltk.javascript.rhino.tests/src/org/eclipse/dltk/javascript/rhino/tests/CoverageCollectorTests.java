@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation (Alex Panchenko)
+ *******************************************************************************/
+package org.eclipse.dltk.javascript.rhino.tests;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.rhino.dbgp.DefaultRhinoRunner;
+import org.mozilla.javascript.Context;
+
+public class CoverageCollectorTests extends TestCase {
+
+	private static final String[] SCRIPT = { "function f(x) {",
+			"  if (x) {", "    return 1;", "  }", "  return 2;", "}" };
+
+	private File script;
+	private File report;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		script = File.createTempFile("coverage", ".js");
+		report = File.createTempFile("coverage", ".info");
+		// the runner merges its results into an existing report
+		report.delete();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		script.delete();
+		report.delete();
+		super.tearDown();
+	}
+
+	private List<String> runCovered(String... lines) throws IOException {
+		final Writer writer = new OutputStreamWriter(new FileOutputStream(
+				script), "UTF-8");
+		try {
+			for (String line : lines) {
+				writer.write(line);
+				writer.write('\n');
+			}
+		} finally {
+			writer.close();
+		}
+		System.setProperty(DefaultRhinoRunner.COVERAGE_PROPERTY,
+				report.getPath());
+		try {
+			new DefaultRhinoRunner().run(new String[] { script.getPath() });
+		} finally {
+			// the runner leaves its context entered
+			if (Context.getCurrentContext() != null) {
+				Context.exit();
+			}
+			System.clearProperty(DefaultRhinoRunner.COVERAGE_PROPERTY);
+		}
+		final List<String> records = new ArrayList<String>();
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new FileInputStream(report), "UTF-8"));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				records.add(line);
+			}
+		} finally {
+			reader.close();
+		}
+		return records;
+	}
+
+	private String[] script(String call) {
+		final String[] lines = new String[SCRIPT.length + 1];
+		System.arraycopy(SCRIPT, 0, lines, 0, SCRIPT.length);
+		lines[SCRIPT.length] = call;
+		return lines;
+	}
+
+	public void testReport() throws IOException {
+		final List<String> records = runCovered(script("f(false);"));
+		assertEquals(
+				Arrays.asList("SF:" + script.getPath(), "DA:1,1", "DA:2,1",
+						"DA:3,0", "DA:5,1", "DA:7,1", "LF:5", "LH:4",
+						"end_of_record"), records);
+	}
+
+	public void testMergedRuns() throws IOException {
+		runCovered(script("f(false);"));
+		final List<String> records = runCovered(script("f(true);"));
+		assertEquals(
+				Arrays.asList("SF:" + script.getPath(), "DA:1,2", "DA:2,2",
+						"DA:3,1", "DA:5,1", "DA:7,2", "LF:5", "LH:5",
+						"end_of_record"), records);
+	}
+
+}
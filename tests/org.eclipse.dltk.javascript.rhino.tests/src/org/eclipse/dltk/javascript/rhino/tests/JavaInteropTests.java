@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation (Alex Panchenko)
+ *******************************************************************************/
+package org.eclipse.dltk.javascript.rhino.tests;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+
+public class JavaInteropTests extends TestCase {
+
+	private Context cx;
+	private Scriptable scope;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		cx = Context.enter();
+		scope = cx.initStandardObjects();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		Context.exit();
+		super.tearDown();
+	}
+
+	private Object eval(String source) {
+		return cx.evaluateString(scope, source, "test", 1, null);
+	}
+
+	private void put(String name, Object value) {
+		scope.put(name, scope, Context.javaToJS(value, scope));
+	}
+
+	/**
+	 * Returns the string of the specified length, long enough strings are
+	 * concatenated lazily.
+	 */
+	private static String repeat(char c, int length) {
+		final StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; ++i) {
+			sb.append(c);
+		}
+		return sb.toString();
+	}
+
+	public void testConcatenatedMapKey() {
+		final Map<Object, Object> map = new HashMap<Object, Object>();
+		put("map", map);
+		put("a", repeat('a', 64));
+		eval("var b = 'b'; map.put(a + b, 1);");
+		assertEquals(1, map.size());
+		final Object key = map.keySet().iterator().next();
+		assertEquals(String.class, key.getClass());
+		assertEquals(1, ((Number) map.get(repeat('a', 64) + "b")).intValue());
+		assertEquals(Boolean.TRUE, eval("map.containsKey(a + b)"));
+		assertEquals(Boolean.TRUE, eval("map.get(a + b) == 1"));
+	}
+
+	public void testConcatenatedListElement() {
+		final List<Object> list = new ArrayList<Object>();
+		put("list", list);
+		put("s", repeat('x', 64));
+		// repeated calls reuse the resolved overload
+		eval("for (var i = 0; i < 3; ++i) { list.add('y'); list.add(s + i); }");
+		assertEquals(6, list.size());
+		for (Object element : list) {
+			assertEquals(String.class, element.getClass());
+		}
+		assertEquals(repeat('x', 64) + "0", list.get(1));
+		assertEquals(repeat('x', 64) + "2", list.get(5));
+		assertEquals(Boolean.TRUE, eval("list.indexOf(s + 1) == 3"));
+	}
+
+	public void testConcatenatedStringToJS() {
+		put("p", repeat('p', 64));
+		final Object value = eval("p + 'q'");
+		assertFalse(value instanceof String);
+		assertEquals(String.class, Context.javaToJS(value, scope).getClass());
+		assertEquals(String.class,
+				cx.getWrapFactory().wrap(cx, scope, value, null).getClass());
+		assertEquals(repeat('p', 64) + "q", Context.javaToJS(value, scope));
+	}
+
+}
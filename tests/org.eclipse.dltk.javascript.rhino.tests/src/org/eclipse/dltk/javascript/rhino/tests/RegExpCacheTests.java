@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation (Alex Panchenko)
+ *******************************************************************************/
+package org.eclipse.dltk.javascript.rhino.tests;
+
+import junit.framework.TestCase;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.regexp.RegExpCache;
+
+public class RegExpCacheTests extends TestCase {
+
+	private static final int MAX_SIZE = 256;
+
+	private Context cx;
+	private Scriptable scope;
+	private Script script;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		cx = Context.enter();
+		scope = cx.initStandardObjects();
+		script = cx.compileString("new RegExp(source, flags)", "test", 1,
+				null);
+		// RegExp is initialized lazily and compiles its prototype
+		cx.evaluateString(scope, "RegExp.prototype", "init", 1, null);
+		RegExpCache.clear();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		RegExpCache.clear();
+		Context.exit();
+		super.tearDown();
+	}
+
+	private Object compile(String source, String flags) {
+		ScriptableObject.putProperty(scope, "source", source);
+		ScriptableObject.putProperty(scope, "flags", flags);
+		return script.exec(cx, scope);
+	}
+
+	private void assertStats(long hits, long misses, int size) {
+		assertEquals("hits", hits, RegExpCache.getHitCount());
+		assertEquals("misses", misses, RegExpCache.getMissCount());
+		assertEquals("size", size, RegExpCache.size());
+	}
+
+	public void testSameSourceAndFlagsShared() {
+		final Object first = compile("a+b", "g");
+		final Object second = compile("a+b", "g");
+		assertNotSame(first, second);
+		assertStats(1, 1, 1);
+		assertEquals(Boolean.TRUE, cx.evaluateString(scope,
+				"var re = new RegExp('a+b', 'g');"
+						+ "re.test('xaab') && re.lastIndex == 4", "test", 1,
+				null));
+		assertStats(2, 1, 1);
+	}
+
+	public void testDifferentFlagsSeparateKeys() {
+		compile("a+b", "");
+		compile("a+b", "g");
+		compile("a+b", "i");
+		compile("a+b", "gi");
+		assertStats(0, 4, 4);
+		compile("a+b", "i");
+		assertStats(1, 4, 4);
+		// the flags of the cached programs are not mixed up
+		assertEquals(Boolean.TRUE, cx.evaluateString(scope,
+				"new RegExp('a+b', 'i').test('AAB')"
+						+ " && !new RegExp('a+b', '').test('AAB')", "test",
+				1, null));
+	}
+
+	public void testLeastRecentlyUsedEvicted() {
+		for (int i = 0; i < MAX_SIZE; ++i) {
+			compile("p" + i, "");
+		}
+		assertStats(0, MAX_SIZE, MAX_SIZE);
+		// touch the eldest program, so p1 becomes the least recently used
+		compile("p0", "");
+		assertStats(1, MAX_SIZE, MAX_SIZE);
+		compile("p" + MAX_SIZE, "");
+		assertStats(1, MAX_SIZE + 1, MAX_SIZE);
+		compile("p0", "");
+		assertStats(2, MAX_SIZE + 1, MAX_SIZE);
+		compile("p1", "");
+		assertStats(2, MAX_SIZE + 2, MAX_SIZE);
+		// p1 has evicted p2
+		compile("p2", "");
+		assertStats(2, MAX_SIZE + 3, MAX_SIZE);
+	}
+
+}
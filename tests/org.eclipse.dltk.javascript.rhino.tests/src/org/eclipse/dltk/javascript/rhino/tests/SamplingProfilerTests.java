@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation (Alex Panchenko)
+ *******************************************************************************/
+package org.eclipse.dltk.javascript.rhino.tests;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.rhino.dbgp.DefaultRhinoRunner;
+import org.mozilla.javascript.Context;
+
+public class SamplingProfilerTests extends TestCase {
+
+	private File script;
+	private File profile;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		script = File.createTempFile("profile", ".js");
+		profile = File.createTempFile("profile", ".txt");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		script.delete();
+		profile.delete();
+		super.tearDown();
+	}
+
+	private List<String> runProfiled(String... lines) throws IOException {
+		final Writer writer = new OutputStreamWriter(new FileOutputStream(
+				script), "UTF-8");
+		try {
+			for (String line : lines) {
+				writer.write(line);
+				writer.write('\n');
+			}
+		} finally {
+			writer.close();
+		}
+		System.setProperty(DefaultRhinoRunner.PROFILE_PROPERTY,
+				profile.getPath());
+		System.setProperty(DefaultRhinoRunner.PROFILE_INTERVAL_PROPERTY, "1");
+		try {
+			new DefaultRhinoRunner().run(new String[] { script.getPath() });
+		} finally {
+			// the runner leaves its context entered
+			if (Context.getCurrentContext() != null) {
+				Context.exit();
+			}
+			System.clearProperty(DefaultRhinoRunner.PROFILE_PROPERTY);
+			System.clearProperty(DefaultRhinoRunner.PROFILE_INTERVAL_PROPERTY);
+		}
+		final List<String> stacks = new ArrayList<String>();
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new FileInputStream(profile), "UTF-8"));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				stacks.add(line);
+			}
+		} finally {
+			reader.close();
+		}
+		return stacks;
+	}
+
+	public void testLineNumbers() throws IOException {
+		final List<String> stacks = runProfiled(
+				"function spin() {",
+				"  var end = new Date().getTime() + 200;",
+				"  while (new Date().getTime() < end) {}",
+				"}",
+				"spin();");
+		final String module = "module (" + script.getPath() + ":5);";
+		final String spin = "spin (" + script.getPath() + ":3) ";
+		int spinning = 0;
+		for (String stack : stacks) {
+			if (stack.indexOf("spin (") != -1) {
+				assertTrue(stack, stack.startsWith(module));
+			}
+			if (stack.startsWith(module + spin)) {
+				++spinning;
+			}
+		}
+		assertTrue(stacks.toString(), spinning > 0);
+	}
+
+}
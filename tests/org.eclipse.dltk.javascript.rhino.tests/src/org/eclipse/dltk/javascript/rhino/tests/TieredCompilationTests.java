@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation (Alex Panchenko)
+ *******************************************************************************/
+package org.eclipse.dltk.javascript.rhino.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextAction;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.debug.DebugFrame;
+import org.mozilla.javascript.debug.DebuggableScript;
+import org.mozilla.javascript.debug.Debugger;
+
+public class TieredCompilationTests extends TestCase {
+
+	private static final int THRESHOLD = 50;
+
+	private static final String SCRIPT = "function work(n) {\n"
+			+ "  probe.check();\n"
+			+ "  var s = 0;\n"
+			+ "  for (var i = 0; i < n; ++i) { s += i * 3 % 7; }\n"
+			+ "  return s + ':' + work.tag + ':' + (this === scope);\n"
+			+ "}\n"
+			+ "function Point(x) { this.x = x; }\n"
+			+ "Point.prototype.twice = function() { return this.x * 2; };\n"
+			+ "var scope = this;\n"
+			+ "work.tag = 'tagged';";
+
+	private static final String CALL = "work(20) + '|' + new Point(21).twice()";
+
+	/**
+	 * Detects if the JavaScript caller is compiled to JVM bytecode.
+	 */
+	public static class Probe {
+		boolean compiled;
+
+		public void check() {
+			for (StackTraceElement element : new Throwable().getStackTrace()) {
+				if (element.getClassName().startsWith(
+						"org.mozilla.javascript.gen.")) {
+					compiled = true;
+					return;
+				}
+			}
+		}
+	}
+
+	private static class TieredContextFactory extends ContextFactory {
+		@Override
+		protected boolean hasFeature(Context cx, int featureIndex) {
+			if (featureIndex == Context.FEATURE_TIERED_COMPILATION) {
+				return true;
+			}
+			return super.hasFeature(cx, featureIndex);
+		}
+
+		@Override
+		protected int getTieredCompilationThreshold() {
+			return THRESHOLD;
+		}
+	}
+
+	/**
+	 * Debugger without frames, it only makes the context debuggable.
+	 */
+	private static class NullDebugger implements Debugger {
+		public void handleCompilationDone(Context cx,
+				DebuggableScript fnOrScript, String source) {
+		}
+
+		public DebugFrame getFrame(Context cx, DebuggableScript fnOrScript) {
+			return null;
+		}
+	}
+
+	/**
+	 * Evaluates the script and then the call until the function is compiled
+	 * or the time is out, returns the results of all the calls.
+	 */
+	private static List<Object> run(ContextFactory factory,
+			final int optimizationLevel, final boolean debug,
+			final Probe probe, final long timeout) {
+		final List<Object> results = new ArrayList<Object>();
+		factory.call(new ContextAction() {
+			public Object run(Context cx) {
+				cx.setOptimizationLevel(optimizationLevel);
+				if (debug) {
+					cx.setDebugger(new NullDebugger(), null);
+				}
+				final Scriptable scope = cx.initStandardObjects();
+				scope.put("probe", scope, Context.javaToJS(probe, scope));
+				cx.evaluateString(scope, SCRIPT, "tiered.js", 1, null);
+				final long end = System.currentTimeMillis() + timeout;
+				do {
+					results.add(Context.toString(cx.evaluateString(scope,
+							CALL, "call.js", 1, null)));
+					if (probe.compiled) {
+						break;
+					}
+					try {
+						Thread.sleep(1);
+					} catch (InterruptedException e) {
+						break;
+					}
+				} while (System.currentTimeMillis() < end);
+				return null;
+			}
+		});
+		return results;
+	}
+
+	public void testPromotedResults() {
+		final Probe probe = new Probe();
+		final List<Object> results = run(new TieredContextFactory(), -1,
+				false, probe, 10000);
+		assertTrue("function is not promoted", probe.compiled);
+		assertTrue(results.size() > 1);
+		final String expected = "59:tagged:true|42";
+		for (Object result : results) {
+			assertEquals(expected, result);
+		}
+		for (int level = 0; level <= 9; level += 9) {
+			final Probe compiled = new Probe();
+			final List<Object> optimized = run(new ContextFactory(), level,
+					false, compiled, 0);
+			assertTrue(compiled.compiled);
+			assertEquals(1, optimized.size());
+			assertEquals(expected, optimized.get(0));
+		}
+	}
+
+	public void testDebuggerOptOut() {
+		final Probe probe = new Probe();
+		final List<Object> results = run(new TieredContextFactory(), -1,
+				true, probe, 500);
+		assertFalse("function with debugger is promoted", probe.compiled);
+		assertTrue(results.size() > THRESHOLD);
+		for (Object result : results) {
+			assertEquals("59:tagged:true|42", result);
+		}
+	}
+
+}
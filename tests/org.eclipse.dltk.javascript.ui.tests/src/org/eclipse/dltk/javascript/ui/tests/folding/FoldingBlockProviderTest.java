@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2013 NumberFour AG
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NumberFour AG - initial API and Implementation (Alex Panchenko)
+ *******************************************************************************/
+package org.eclipse.dltk.javascript.ui.tests.folding;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.dltk.core.IModelElement;
+import org.eclipse.dltk.core.tests.util.StringList;
+import org.eclipse.dltk.javascript.internal.ui.text.folding.JavaScriptCodeFoldingBlockProvider;
+import org.eclipse.dltk.ui.text.folding.IFoldingBlockRequestor;
+import org.eclipse.dltk.ui.text.folding.IFoldingContent;
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings("restriction")
+public class FoldingBlockProviderTest extends Assert {
+
+	/**
+	 * Model element without children, so the functions are not associated
+	 * with the methods.
+	 */
+	private static final IModelElement ELEMENT = proxy(IModelElement.class,
+			new InvocationHandler() {
+				public Object invoke(Object proxy, Method method, Object[] args) {
+					return defaultValue(method.getReturnType());
+				}
+			});
+
+	private static Object defaultValue(Class<?> type) {
+		if (type == boolean.class) {
+			return Boolean.FALSE;
+		} else if (type == int.class) {
+			return Integer.valueOf(0);
+		}
+		return null;
+	}
+
+	private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+		return type.cast(Proxy.newProxyInstance(
+				FoldingBlockProviderTest.class.getClassLoader(),
+				new Class<?>[] { type }, handler));
+	}
+
+	private static IFoldingContent content(final String source) {
+		return proxy(IFoldingContent.class, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				final String name = method.getName();
+				if ("getSourceContents".equals(name)) {
+					return source;
+				} else if ("getContentsAsCharArray".equals(name)) {
+					return source.toCharArray();
+				} else if ("getModelElement".equals(name)) {
+					return ELEMENT;
+				} else if ("getFileName".equals(name)) {
+					return "folding.js";
+				}
+				return defaultValue(method.getReturnType());
+			}
+		});
+	}
+
+	/**
+	 * Computes the blocks of the specified revisions with the same provider
+	 * and returns the blocks of the last one as the lists of the start, end,
+	 * kind and element.
+	 */
+	private static List<List<Object>> compute(String... revisions) {
+		final List<List<Object>> blocks = new ArrayList<List<Object>>();
+		final JavaScriptCodeFoldingBlockProvider provider = new JavaScriptCodeFoldingBlockProvider();
+		provider.setRequestor(proxy(IFoldingBlockRequestor.class,
+				new InvocationHandler() {
+					public Object invoke(Object proxy, Method method,
+							Object[] args) {
+						if ("acceptBlock".equals(method.getName())) {
+							blocks.add(Arrays.asList(args[0], args[1],
+									args[2], args[3]));
+						}
+						return null;
+					}
+				}));
+		for (String revision : revisions) {
+			blocks.clear();
+			provider.computeFoldableBlocks(content(revision));
+		}
+		return blocks;
+	}
+
+	private static void assertReused(String before, String after) {
+		final List<List<Object>> expected = compute(after);
+		assertFalse(expected.isEmpty());
+		assertEquals(expected, compute(before, after));
+	}
+
+	private static final String DUPLICATE = new StringList(
+			"var o = {", "  a: 1", "};").toString();
+
+	private static final String FUNCTION = new StringList(
+			"function f() {", "  return 1;", "}").toString();
+
+	@Test
+	public void testDuplicateStatements() {
+		final String source = new StringList(DUPLICATE, DUPLICATE, FUNCTION,
+				DUPLICATE).toString();
+		final List<List<Object>> blocks = compute(source);
+		assertEquals(4, blocks.size());
+		// the same text folds at the offset of each statement
+		final int second = source.indexOf(DUPLICATE, 1);
+		assertEquals(Integer.valueOf(second + DUPLICATE.indexOf('{')),
+				blocks.get(1).get(0));
+		// but with the different keys
+		assertFalse(blocks.get(0).get(3).equals(blocks.get(1).get(3)));
+		assertReused(source, source);
+		// the occurrences of the object keys follow the statement order
+		assertReused(source, new StringList(DUPLICATE, FUNCTION, DUPLICATE,
+				DUPLICATE).toString());
+	}
+
+	@Test
+	public void testEditInsideStatement() {
+		final String source = new StringList(DUPLICATE, FUNCTION, DUPLICATE)
+				.toString();
+		assertReused(source, source.replace("return 1;", "return 1 + 2;"));
+		assertReused(source, source.replace("a: 1", "a: 1,\n  b: 2"));
+	}
+
+	@Test
+	public void testMovedText() {
+		final String source = new StringList(DUPLICATE, FUNCTION).toString();
+		// the text shifted by the new statement
+		assertReused(source, new StringList("var x = 1;", FUNCTION, DUPLICATE,
+				FUNCTION).toString());
+		// the statements swapped
+		assertReused(source, new StringList(FUNCTION, DUPLICATE).toString());
+		// the statement removed
+		assertReused(new StringList(FUNCTION, DUPLICATE, FUNCTION).toString(),
+				new StringList(DUPLICATE, FUNCTION).toString());
+	}
+
+}